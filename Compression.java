@@ -0,0 +1,121 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of the files written by the store methods. The loaders detect GZIP input transparently
+ * (by the magic bytes 1F 8B - not by the file name), DEFLATE input must be decoded explicitly
+ * via {@link #decode(InputStream)}.
+ * @since Last change: 2026.10.18
+ */
+public enum Compression
+{
+    /** No compression */
+    NONE,
+    /** GZIP framing (RFC 1952) e.g. .gz files */
+    GZIP,
+    /** zlib framing (RFC 1950) */
+    DEFLATE;
+
+/**
+ * Determines the compression by the file extension: .gz is GZIP, .zz and .deflate are DEFLATE, otherwise NONE
+ * @param file The file
+ * @return The compression
+ */
+public static Compression of(Path file)
+{
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".gz")) return GZIP;
+    if (name.endsWith(".zz") || name.endsWith(".deflate")) return DEFLATE;
+    return NONE;
+} //--------------------- end of of()
+
+/**
+ * Wraps 'out' with a compressing stream, closing the returned stream finishes the compression and closes 'out'
+ * @param out The output stream
+ * @return The compressing stream or 'out' itself for NONE
+ * @throws IOException On error
+ */
+public OutputStream encode(OutputStream out) throws IOException
+{
+    switch (this)
+    {
+    case GZIP:    return new GZIPOutputStream(out,1 << 16);
+    case DEFLATE: return new DeflaterOutputStream(out);
+    default:      return out;
+    }
+} //--------------------- end of encode()
+
+/**
+ * Wraps 'in' with a decompressing stream
+ * @param in The input stream
+ * @return The decompressing stream or 'in' itself for NONE
+ * @throws IOException On error
+ */
+public InputStream decode(InputStream in) throws IOException
+{
+    switch (this)
+    {
+    case GZIP:    return new GZIPInputStream(in,1 << 16);
+    case DEFLATE: return new InflaterInputStream(in);
+    default:      return in;
+    }
+} //--------------------- end of decode()
+
+/**
+ * Creates a UTF-8 writer for 'file', compressed as given by this constant
+ * @param file The output file
+ * @return The writer
+ * @throws IOException On error
+ */
+public BufferedWriter newWriter(Path file) throws IOException
+{
+    if (this == NONE) return Files.newBufferedWriter(file,StandardCharsets.UTF_8);
+    OutputStream out = Files.newOutputStream(file);
+    try
+    {   return new BufferedWriter(new OutputStreamWriter(encode(out),StandardCharsets.UTF_8),1 << 16);
+    } catch (IOException e)
+    {   out.close();
+        throw e;
+    }
+} //--------------------- end of newWriter()
+
+/**
+ * Returns a buffered stream of the decompressed content of 'in': if 'in' starts with the GZIP magic bytes it is
+ * decompressed, otherwise it is returned as is (buffered). Nothing is read twice.
+ * @param in The input stream
+ * @return The buffered, possibly decompressed stream, supports mark()
+ * @throws IOException On error
+ */
+public static BufferedInputStream autoDecode(InputStream in) throws IOException
+{
+    BufferedInputStream bin = in instanceof BufferedInputStream ? (BufferedInputStream)in : new BufferedInputStream(in,1 << 16);
+    bin.mark(2);
+    int b1 = bin.read(), b2 = bin.read();
+    bin.reset();
+    if (b1 == 0x1F && b2 == 0x8B) return new BufferedInputStream(GZIP.decode(bin),1 << 16);
+    return bin;
+} //--------------------- end of autoDecode()
+
+} //------------------------------------- end of enum
@@ -0,0 +1,33 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+
+/**
+ * Callback for the streaming loaders: each key/value pair is passed to {@link #entry(String, String)}
+ * in the order it is read from the file - without building a Properties container.
+ * @since Last change: 2026.10.18
+ */
+@FunctionalInterface
+public interface EntryHandler
+{
+/**
+ * Receives one key/value pair
+ * @param key The key, never null
+ * @param value The value, never null - may be empty
+ * @throws IOException To abort the load
+ */
+void entry(String key,String value) throws IOException;
+
+} //------------------------------------- end of interface
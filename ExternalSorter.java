@@ -0,0 +1,204 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Sorts key/value pairs by key within a memory budget: As long as the budget is not exceeded the
+ * entries are sorted in memory, otherwise sorted runs are spilled to temp files and k-way merged by
+ * {@link #finish(EntryHandler)}.<br>
+ * If a key is passed more than once, the last value wins - as with Properties.setProperty().
+ * @since Last change: 2026.10.18
+ */
+final class ExternalSorter implements EntryHandler,Closeable
+{
+    static final long DEFAULT_BUDGET = 64L << 20; // 64 MB
+
+    private final Comparator<String> order;
+    private final long budget;
+    private final Path tmpdir;
+
+    private ArrayList<Entry> buf = new ArrayList<>();
+    private long bufBytes = 0, seq = 0;
+    private final List<Run> runs = new ArrayList<>();
+
+    private static final class Entry
+    {   final String key,value;  final long seq;
+        Entry(String key,String value,long seq) { this.key = key; this.value = value; this.seq = seq; }
+    }
+
+/**
+ * @param order The sort order of the keys, null for the natural order
+ * @param budget Approx. number of heap bytes for the buffered entries, at least 1 MB is used
+ * @param tmpdir Directory for the temp files, null for java.io.tmpdir
+ */
+ExternalSorter(Comparator<String> order,long budget,Path tmpdir)
+{
+    this.order  = order != null ? order : Comparator.<String>naturalOrder();
+    this.budget = Math.max(budget,1L << 20);
+    this.tmpdir = tmpdir;
+}
+
+@Override
+public void entry(String key,String value) throws IOException
+{
+    buf.add(new Entry(key,value,seq++));
+    bufBytes += 2L * (key.length() + value.length()) + 120; // 2 Strings, 2 arrays, the entry and the list slot
+    if (bufBytes >= budget) spill();
+}
+
+/**
+ * Passes all entries sorted by key to 'out'
+ * @param out Receives the entries
+ * @return Number of entries passed
+ * @throws IOException On error
+ */
+long finish(EntryHandler out) throws IOException
+{
+    if (runs.isEmpty())
+    {   sort(buf);
+        long many = emitDistinct(buf.iterator(),out);
+        buf = new ArrayList<>();
+        return many;
+    }
+    if (!buf.isEmpty()) spill();
+
+    PriorityQueue<Run> pq = new PriorityQueue<>(runs.size(),(a,b) -> compare(a.cur,b.cur));
+    for (Run r : runs) if (r.advance()) pq.add(r);
+
+    Iterator<Entry> merged = new Iterator<Entry>()
+    {   public boolean hasNext() { return !pq.isEmpty(); }
+        public Entry next()
+        {   Run r = pq.poll();
+            Entry e = r.cur;
+            try { if (r.advance()) pq.add(r); } catch (IOException ex) { throw new UncheckedIOException(ex); }
+            return e;
+        }
+    };
+    try { return emitDistinct(merged,out); }
+    catch (UncheckedIOException e) { throw e.getCause(); }
+} //--------------------- end of finish()
+
+/** Deletes the temp files */
+@Override
+public void close()
+{
+    for (Run r : runs) r.close();
+    runs.clear();
+    buf = new ArrayList<>();
+}
+
+/** @return Number of temp files written so far */
+int spills() { return runs.size(); }
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+private int compare(Entry a,Entry b)
+{
+    int rc = order.compare(a.key,b.key);
+    if (rc != 0) return rc;
+    return Long.compare(a.seq,b.seq);
+}
+
+private void sort(List<Entry> list)
+{
+    list.sort(this::compare);
+}
+
+//Passes the last entry of each group of equal keys to 'out'
+private long emitDistinct(Iterator<Entry> it,EntryHandler out) throws IOException
+{
+    Entry pending = null, e;   long many = 0;
+    while (it.hasNext())
+    {
+        e = it.next();
+        if (pending != null && order.compare(pending.key,e.key) != 0)
+        {   out.entry(pending.key,pending.value);
+            many++;
+        }
+        pending = e;
+    }
+    if (pending != null) { out.entry(pending.key,pending.value); many++; }
+    return many;
+}
+
+//Writes the buffer as a sorted run to a temp file
+private void spill() throws IOException
+{
+    sort(buf);
+    Path file = tmpdir != null ? Files.createTempFile(tmpdir,"propsort",".run") : Files.createTempFile("propsort",".run");
+    Run run = new Run(file,buf.size());
+    runs.add(run);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),1 << 16)))
+    {
+        for (Entry e : buf)
+        {   out.writeLong(e.seq);
+            writeString(out,e.key);
+            writeString(out,e.value);
+        }
+    }
+    buf = new ArrayList<>();
+    bufBytes = 0;
+} //--------------------- end of spill()
+
+private static void writeString(DataOutputStream out,String s) throws IOException
+{
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+}
+
+private static String readString(DataInputStream in) throws IOException
+{
+    byte[] b = new byte[in.readInt()];
+    in.readFully(b);
+    return new String(b,StandardCharsets.UTF_8);
+}
+
+//A sorted run in a temp file, read sequentially while merging
+private static final class Run
+{
+    final Path file;
+    long remaining;
+    DataInputStream in;
+    Entry cur;
+
+    Run(Path file,long count) { this.file = file; this.remaining = count; }
+
+    boolean advance() throws IOException
+    {
+        if (in == null) in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),1 << 16));
+        if (remaining <= 0) { cur = null; return false; }
+        remaining--;
+        long seq = in.readLong();
+        String key = readString(in);
+        cur = new Entry(key,readString(in),seq);
+        return true;
+    }
+
+    void close()
+    {
+        try { if (in != null) in.close(); } catch (IOException e) {}
+        try { Files.deleteIfExists(file); } catch (IOException e) {}
+    }
+} //--------------------- end of class Run
+
+} //------------------------------------- end of class
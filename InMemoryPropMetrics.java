@@ -0,0 +1,139 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple thread safe {@link PropMetrics} which keeps all figures in memory - e.g. for tests or a status page.
+ * Each figure is kept twice: per operation ("loadProper/lines") and per operation and source
+ * ("loadProper/lines@/etc/app.properties").
+ * @since Last change: 2026.10.18
+ */
+public class InMemoryPropMetrics implements PropMetrics
+{
+    private final ConcurrentHashMap<String,LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String,Stats> timers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String,Stats> histograms = new ConcurrentHashMap<>();
+
+/**
+ * Count, sum, min and max of the recorded values - and a histogram of power of 2 buckets:
+ * bucket i counts the values in range [2^(i-1), 2^i), bucket 0 counts the values &lt;= 0.
+ */
+public static final class Stats
+{
+    private long count,sum,min = Long.MAX_VALUE,max = Long.MIN_VALUE;
+    private final long[] buckets = new long[65];
+
+    synchronized void add(long v)
+    {
+        count++; sum += v;
+        if (v < min) min = v;
+        if (v > max) max = v;
+        buckets[v <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(v)]++;
+    }
+    public synchronized long count() { return count; }
+    public synchronized long sum()   { return sum; }
+    public synchronized long min()   { return count == 0 ? 0 : min; }
+    public synchronized long max()   { return count == 0 ? 0 : max; }
+    public synchronized double mean() { return count == 0 ? 0 : (double)sum / count; }
+    public synchronized long[] buckets() { return buckets.clone(); }
+
+    @Override
+    public synchronized String toString()
+    {   return "count=" + count + " sum=" + sum + " min=" + min() + " max=" + max() + String.format(" mean=%.1f",mean());
+    }
+} //--------------------- end of class Stats
+
+@Override
+public void count(String op,String source,String name,long delta)
+{
+    counters.computeIfAbsent(op + "/" + name,k -> new LongAdder()).add(delta);
+    if (source != null) counters.computeIfAbsent(op + "/" + name + "@" + source,k -> new LongAdder()).add(delta);
+}
+
+@Override
+public void time(String op,String source,long nanos)
+{
+    timers.computeIfAbsent(op,k -> new Stats()).add(nanos);
+    if (source != null) timers.computeIfAbsent(op + "@" + source,k -> new Stats()).add(nanos);
+}
+
+@Override
+public void record(String op,String source,String name,long value)
+{
+    histograms.computeIfAbsent(op + "/" + name,k -> new Stats()).add(value);
+    if (source != null) histograms.computeIfAbsent(op + "/" + name + "@" + source,k -> new Stats()).add(value);
+}
+
+/**
+ * @param op The operation e.g. "loadProper"
+ * @param name The counter e.g. "lines"
+ * @return The sum over all sources, 0 if never counted
+ */
+public long counter(String op,String name)
+{
+    LongAdder a = counters.get(op + "/" + name);
+    return a == null ? 0 : a.sum();
+}
+
+/**
+ * @param op The operation e.g. "loadProper"
+ * @param source The file
+ * @param name The counter e.g. "lines"
+ * @return The sum for 'source', 0 if never counted
+ */
+public long counter(String op,String source,String name)
+{
+    LongAdder a = counters.get(op + "/" + name + "@" + source);
+    return a == null ? 0 : a.sum();
+}
+
+/**
+ * @param op The operation e.g. "loadProper"
+ * @return The durations in nanoseconds or null if never recorded
+ */
+public Stats timer(String op) { return timers.get(op); }
+
+/**
+ * @param op The operation e.g. "expandProperties"
+ * @param name The histogram e.g. "placeholders"
+ * @return The recorded values or null if never recorded
+ */
+public Stats histogram(String op,String name) { return histograms.get(op + "/" + name); }
+
+/** Removes all figures */
+public void clear()
+{
+    counters.clear(); timers.clear(); histograms.clear();
+}
+
+/**
+ * @return All figures sorted by name, one per line
+ */
+@Override
+public String toString()
+{
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String,LongAdder> e : new TreeMap<>(counters).entrySet())
+        sb.append("counter   ").append(e.getKey()).append(" = ").append(e.getValue().sum()).append('\n');
+    for (Map.Entry<String,Stats> e : new TreeMap<>(timers).entrySet())
+        sb.append("timer     ").append(e.getKey()).append(" [ns] ").append(e.getValue()).append('\n');
+    for (Map.Entry<String,Stats> e : new TreeMap<>(histograms).entrySet())
+        sb.append("histogram ").append(e.getKey()).append(' ').append(e.getValue()).append('\n');
+    return sb.toString();
+}
+
+} //------------------------------------- end of class
@@ -0,0 +1,485 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * <h3>Read-only Properties container which keeps its keys and values off the Java heap</h3>
+ * Keys and values are stored as UTF-8 bytes in direct ByteBuffers (segments of up to 1 GB), found via an
+ * open addressed hash index which is off-heap too. Strings are only created when a key or value is requested,
+ * so even tens of millions of entries cause no GC load.<br>
+ * The container can be saved to a file and reopened via memory mapping - without parsing, the pages are
+ * read on demand by the OS.<br>
+ * Since it is a Properties container, getProperty(), stringPropertyNames(), entrySet() etc. work as usual, e.g. with
+ * {@link Prop#print(Properties, String)} and {@link Prop#report(Properties, Path, String, boolean...)}.
+ * All modifying methods throw an UnsupportedOperationException. There are no default properties.<br>
+ * A lone surrogate, e.g. from the escape \\uDE92, is stored as 3 byte sequence as in CESU-8 - so every String is
+ * returned unchanged. A serialized container is deserialized as OffHeapProperties with the same entries.<br>
+ * The direct memory is limited by the JVM option -XX:MaxDirectMemorySize (default: the max. heap size).
+ * Example:<br>
+ * OffHeapProperties flags = OffHeapProperties.load(Paths.get("flags.properties"));<br>
+ * flags.save(Paths.get("flags.ohp"));   ...   flags = OffHeapProperties.open(Paths.get("flags.ohp"));
+ * @since Last change: 2026.10.18
+ */
+public class OffHeapProperties extends Properties
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x4F485031; // "OHP1"
+    private static final int HEADER = 24;        // magic, version, size, index capacity, number of segments
+    private static final int MIN_SEGMENT = 1 << 20, MAX_SEGMENT = 1 << 30, MAX_INDEX = 1 << 28;
+
+    private final transient List<ByteBuffer> segs = new ArrayList<ByteBuffer>();
+    private transient ByteBuffer cur;          // the segment being filled, null when sealed
+    private transient ByteBuffer indexBytes;
+    private transient LongBuffer index;        // slot: address + 1 of a record, 0 if empty
+    private transient int mask;
+    private transient long size = 0;
+    private transient boolean sealed = false;
+
+    private OffHeapProperties() {}
+
+/**
+ * Loads a file of any format supported by {@link PropConvert} - .properties files via Prop.loadProper()
+ * @param file The input file, e.g. a .properties, .ini or .xml file, may be GZIP compressed
+ * @return The read-only container
+ * @throws IOException On error, e.g. bad key name or 'file' does not exist
+ * @since Last change: 2026.10.18
+ */
+public static OffHeapProperties load(Path file) throws IOException
+{
+    return load(PropConvert.reader(file,PropConvert.Format.of(file)));
+} //--------------------- end of load()
+
+/**
+ * Fills a container from any entry source, e.g. h -&gt; Prop.loadProper(file,h). For duplicate keys the last value wins.
+ * @param source The source
+ * @return The read-only container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static OffHeapProperties load(PropConvert.EntryReader source) throws IOException
+{
+    OffHeapProperties p = new OffHeapProperties();
+    p.allocIndex(1024);
+    source.read(p::add);
+    p.seal();
+    return p;
+} //--------------------- end of load()
+
+/**
+ * Copies a Properties container - including its default properties
+ * @param props The source
+ * @return The read-only container
+ * @since Last change: 2026.10.18
+ */
+public static OffHeapProperties copyOf(Properties props)
+{
+    OffHeapProperties p = new OffHeapProperties();
+    Set<String> keys = props.stringPropertyNames();
+    p.allocIndex(Math.max(1024,2L * keys.size()));
+    for (String k : keys) p.add(k,props.getProperty(k,""));
+    p.seal();
+    return p;
+} //--------------------- end of copyOf()
+
+/**
+ * Saves the container to a file which can be reopened by {@link #open(Path)}
+ * @param file The output file
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public void save(Path file) throws IOException
+{
+try (FileChannel ch = FileChannel.open(file,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE))
+{
+    ByteBuffer hdr = ByteBuffer.allocate(HEADER + 8 * segs.size());
+    hdr.putInt(MAGIC).putInt(1).putLong(size).putInt(index.capacity()).putInt(segs.size());
+    for (ByteBuffer s : segs) hdr.putLong(s.limit());
+    hdr.flip();
+    writeFully(ch,hdr);
+    for (ByteBuffer s : segs) writeFully(ch,s.duplicate().position(0));
+    writeFully(ch,indexBytes.duplicate().clear());
+
+} catch (Exception e)
+{
+    String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+    throw new IOException("OffHeapProperties.save(): " + msg + " (file: " + file + ")");
+}
+} //--------------------- end of save()
+
+/**
+ * Opens a file written by {@link #save(Path)} via memory mapping. The file must not be changed while the
+ * container is in use.
+ * @param file The file
+ * @return The read-only container
+ * @throws IOException On error, e.g. not a file written by save()
+ * @since Last change: 2026.10.18
+ */
+public static OffHeapProperties open(Path file) throws IOException
+{
+try (FileChannel ch = FileChannel.open(file,StandardOpenOption.READ))
+{
+    ByteBuffer hdr = ByteBuffer.allocate(HEADER);
+    readFully(ch,hdr,0);
+    if (hdr.getInt(0) != MAGIC || hdr.getInt(4) != 1) throw new IOException("Not an OffHeapProperties file");
+    OffHeapProperties p = new OffHeapProperties();
+    p.size = hdr.getLong(8);
+    int cap = hdr.getInt(16), nseg = hdr.getInt(20);
+    if (cap <= 0 || cap > MAX_INDEX || Integer.bitCount(cap) != 1 || nseg < 0) throw new IOException("Corrupt header");
+
+    ByteBuffer lens = ByteBuffer.allocate(8 * nseg);
+    readFully(ch,lens,HEADER);
+    long pos = HEADER + 8L * nseg, len;
+    for (int i=0;i < nseg;i++)
+    {   len = lens.getLong(8 * i);
+        if (len < 0 || len > MAX_SEGMENT) throw new IOException("Corrupt segment length: " + len);
+        p.segs.add(ch.map(FileChannel.MapMode.READ_ONLY,pos,len));
+        pos += len;
+    }
+    if (pos + 8L * cap != ch.size()) throw new IOException("Unexpected file size " + ch.size() + ", expected: " + (pos + 8L * cap));
+    p.indexBytes = ch.map(FileChannel.MapMode.READ_ONLY,pos,8L * cap);
+    p.index = p.indexBytes.asLongBuffer();
+    p.mask = cap - 1;
+    p.sealed = true;
+    return p;
+
+} catch (Exception e)
+{
+    String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+    throw new IOException("OffHeapProperties.open(): " + msg + " (file: " + file + ")");
+}
+} //--------------------- end of open()
+
+/**
+ * @return The bytes used off-heap by the segments and the index
+ * @since Last change: 2026.10.18
+ */
+public long offHeapBytes()
+{
+    long n = indexBytes.capacity();
+    for (ByteBuffer s : segs) n += s.capacity();
+    return n;
+}
+
+/**
+ * Passes all entries to 'handler' - in the order of the hash index
+ * @param handler Receives each key/value pair
+ * @throws IOException If thrown by 'handler'
+ * @since Last change: 2026.10.18
+ */
+public void forEachEntry(EntryHandler handler) throws IOException
+{
+    long a;
+    for (int i=0;i <= mask;i++)
+        if ( (a = index.get(i)) != 0) handler.entry(string(a - 1,true),string(a - 1,false));
+} //--------------------- end of forEachEntry()
+
+@Override
+public String getProperty(String key)
+{
+    long a = find(key);
+    return (a < 0) ? null : string(a,false);
+}
+
+@Override
+public String getProperty(String key,String defaultValue)
+{
+    String v = getProperty(key);
+    return (v == null) ? defaultValue : v;
+}
+
+@Override public Object get(Object key)                        { return (key instanceof String) ? getProperty((String)key) : null; }
+@Override public Object getOrDefault(Object key,Object def)    { Object v = get(key); return (v == null) ? def : v; }
+@Override public boolean containsKey(Object key)               { return (key instanceof String) && find((String)key) >= 0; }
+@Override public boolean containsValue(Object value)           { return values().contains(value); }
+@Override public boolean contains(Object value)                { return containsValue(value); }
+@Override public int size()                                    { return (int)Math.min(size,Integer.MAX_VALUE); }
+@Override public boolean isEmpty()                             { return size == 0; }
+@Override public Set<String> stringPropertyNames()             { return new View<String>(true,a -> string(a,true)); }
+@Override public Set<Object> keySet()                          { return new View<Object>(true,a -> string(a,true)); }
+@Override public Collection<Object> values()                   { return new View<Object>(false,a -> string(a,false)); }
+@Override public Enumeration<?> propertyNames()                { return Collections.enumeration(keySet()); }
+@Override public Enumeration<Object> keys()                    { return Collections.enumeration(keySet()); }
+@Override public Enumeration<Object> elements()                { return Collections.enumeration(values()); }
+
+@Override
+public Set<Map.Entry<Object,Object>> entrySet()
+{
+    return new View<Map.Entry<Object,Object>>(false,a -> new AbstractMap.SimpleImmutableEntry<Object,Object>(string(a,true),string(a,false)));
+}
+
+@Override
+public void forEach(BiConsumer<? super Object,? super Object> action)
+{
+    for (Map.Entry<Object,Object> e : entrySet()) action.accept(e.getKey(),e.getValue());
+}
+
+@Override public boolean equals(Object o) { return this == o; }
+@Override public int hashCode()           { return System.identityHashCode(this); }
+@Override public String toString()        { return "OffHeapProperties[size=" + size + ", offHeapBytes=" + offHeapBytes() + "]"; }
+
+//--- read-only
+@Override public Object setProperty(String key,String value)   { throw readOnly(); }
+@Override public Object put(Object key,Object value)           { throw readOnly(); }
+@Override public void putAll(Map<?,?> t)                       { throw readOnly(); }
+@Override public Object putIfAbsent(Object key,Object value)   { throw readOnly(); }
+@Override public Object remove(Object key)                     { throw readOnly(); }
+@Override public boolean remove(Object key,Object value)       { throw readOnly(); }
+@Override public Object replace(Object key,Object value)       { throw readOnly(); }
+@Override public boolean replace(Object key,Object o,Object n) { throw readOnly(); }
+@Override public void replaceAll(BiFunction<? super Object,? super Object,?> f)                          { throw readOnly(); }
+@Override public Object compute(Object key,BiFunction<? super Object,? super Object,?> f)                { throw readOnly(); }
+@Override public Object computeIfAbsent(Object key,Function<? super Object,?> f)                         { throw readOnly(); }
+@Override public Object computeIfPresent(Object key,BiFunction<? super Object,? super Object,?> f)       { throw readOnly(); }
+@Override public Object merge(Object key,Object value,BiFunction<? super Object,? super Object,?> f)     { throw readOnly(); }
+@Override public void clear()                                  { throw readOnly(); }
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//A lazy, read-only view of all entries: 'fn' creates an element from the address of a record
+private final class View<T> extends AbstractSet<T>
+{
+    private final boolean keys;
+    private final LongFunction<T> fn;
+
+    View(boolean keys,LongFunction<T> fn) { this.keys = keys; this.fn = fn; }
+
+    @Override public int size() { return OffHeapProperties.this.size(); }
+
+    @Override
+    public boolean contains(Object o)
+    {   if (keys) return (o instanceof String) && find((String)o) >= 0;
+        return super.contains(o); // linear scan
+    }
+
+    @Override
+    public Iterator<T> iterator()
+    {
+        return new Iterator<T>()
+        {   int slot = advance(0);
+
+            private int advance(int i)
+            {   while (i <= mask && index.get(i) == 0) i++;
+                return i;
+            }
+            @Override public boolean hasNext() { return slot <= mask; }
+            @Override public T next()
+            {   if (slot > mask) throw new NoSuchElementException();
+                T t = fn.apply(index.get(slot) - 1);
+                slot = advance(slot + 1);
+                return t;
+            }
+        };
+    }
+} //--------------------- end of class View
+
+//Invoked while loading: a record is [int hash][int key length][int value length][key bytes][value bytes]
+private void add(String key,String value)
+{
+    if (sealed) throw readOnly();
+    byte[] kb = encode(key), vb = encode(value);
+    int h = hash(kb,kb.length), i = h & mask;
+    long a;
+    while ( (a = index.get(i)) != 0)
+    {   if (keyEquals(a - 1,h,kb)) break; // duplicate key: the last value wins
+        i = (i + 1) & mask;
+    }
+    index.put(i,append(h,kb,vb) + 1);
+    if (a == 0 && ++size * 2 > index.capacity()) grow();
+} //--------------------- end of add()
+
+//Appends a record to the current segment, returns its address: segment number << 32 | offset
+private long append(int h,byte[] kb,byte[] vb)
+{
+    int need = 12 + kb.length + vb.length;
+    if (need < 0 || need > MAX_SEGMENT) throw new IllegalArgumentException("Entry too large: " + ((long)kb.length + vb.length) + " bytes");
+    if (cur == null || cur.remaining() < need)
+    {   if (cur != null) cur.flip();
+        int cap = (cur == null) ? MIN_SEGMENT : (int)Math.min(MAX_SEGMENT,2L * cur.capacity());
+        cur = ByteBuffer.allocateDirect(Math.max(cap,need));
+        segs.add(cur);
+    }
+    long a = ((long)(segs.size() - 1) << 32) | cur.position();
+    cur.putInt(h).putInt(kb.length).putInt(vb.length).put(kb).put(vb);
+    return a;
+} //--------------------- end of append()
+
+//Ends loading: from now on limit() of each segment is its used size
+private void seal()
+{
+    if (cur != null) cur.flip();
+    cur = null;
+    sealed = true;
+} //--------------------- end of seal()
+
+private void allocIndex(long capacity)
+{
+    if (capacity > MAX_INDEX) throw new IllegalStateException("Too many entries for OffHeapProperties: " + Math.max(size,capacity / 2));
+    int cap = Integer.highestOneBit((int)Math.max(2,capacity) - 1) << 1;
+    indexBytes = ByteBuffer.allocateDirect(8 * cap);
+    index = indexBytes.asLongBuffer();
+    mask = cap - 1;
+} //--------------------- end of allocIndex()
+
+private void grow()
+{
+    LongBuffer old = index;
+    allocIndex(2L * old.capacity());
+    long a;   int i;
+    for (int j=0;j < old.capacity();j++)
+    {   if ( (a = old.get(j)) == 0) continue;
+        i = hashAt(a - 1) & mask;
+        while (index.get(i) != 0) i = (i + 1) & mask;
+        index.put(i,a);
+    }
+} //--------------------- end of grow()
+
+//The address of the record of 'key' or -1
+private long find(String key)
+{
+    if (key == null) return -1;
+    byte[] kb = encode(key);
+    int h = hash(kb,kb.length), i = h & mask;
+    long a;
+    while ( (a = index.get(i)) != 0)
+    {   if (keyEquals(a - 1,h,kb)) return a - 1;
+        i = (i + 1) & mask;
+    }
+    return -1;
+} //--------------------- end of find()
+
+private int hashAt(long a)
+{
+    return segs.get((int)(a >>> 32)).getInt((int)a);
+}
+
+private boolean keyEquals(long a,int h,byte[] kb)
+{
+    ByteBuffer s = segs.get((int)(a >>> 32));
+    int off = (int)a;
+    if (s.getInt(off) != h || s.getInt(off + 4) != kb.length) return false;
+    off += 12;
+    for (int i=0;i < kb.length;i++) if (s.get(off + i) != kb[i]) return false;
+    return true;
+} //--------------------- end of keyEquals()
+
+//Decodes the key or the value of the record at address 'a'
+private String string(long a,boolean key)
+{
+    ByteBuffer s = segs.get((int)(a >>> 32));
+    int off = (int)a, klen = s.getInt(off + 4);
+    byte[] b = new byte[key ? klen : s.getInt(off + 8)];
+    s.get(key ? off + 12 : off + 12 + klen,b);
+    return decode(b);
+} //--------------------- end of string()
+
+//UTF-8 - however a lone surrogate is encoded as 3 bytes (ED A0..BF xx) instead of being replaced by '?'
+static byte[] encode(String s)
+{
+    int i = 0, len = s.length();
+    while (i < len && !Character.isSurrogate(s.charAt(i))) i++;
+    if (i == len) return s.getBytes(StandardCharsets.UTF_8); // the usual case
+    ByteArrayOutputStream out = new ByteArrayOutputStream(len * 3);
+    byte[] head = s.substring(0,i).getBytes(StandardCharsets.UTF_8); // no surrogate up to i
+    out.write(head,0,head.length);
+    for (char c;i < len;i++)
+    {   c = s.charAt(i);
+        if (Character.isHighSurrogate(c) && i+1 < len && Character.isLowSurrogate(s.charAt(i+1)))
+        {   int cp = Character.toCodePoint(c,s.charAt(++i));
+            out.write(0xF0 | (cp >> 18));   out.write(0x80 | ((cp >> 12) & 0x3F));
+            out.write(0x80 | ((cp >> 6) & 0x3F));   out.write(0x80 | (cp & 0x3F));
+        }
+        else if (c < 0x80) out.write(c);
+        else if (c < 0x800) { out.write(0xC0 | (c >> 6));   out.write(0x80 | (c & 0x3F)); }
+        else { out.write(0xE0 | (c >> 12));   out.write(0x80 | ((c >> 6) & 0x3F));   out.write(0x80 | (c & 0x3F)); } // incl. a lone surrogate
+    }
+    return out.toByteArray();
+} //--------------------- end of encode()
+
+//Reverse of encode(): the JDK decoder is used unless a lone surrogate (ED A0..BF) is contained
+static String decode(byte[] b)
+{
+    int i = 0;
+    while (i < b.length - 1 && !(b[i] == (byte)0xED && (b[i+1] & 0xE0) == 0xA0)) i++;
+    if (i >= b.length - 1) return new String(b,StandardCharsets.UTF_8);
+    StringBuilder sb = new StringBuilder(b.length);
+    for (i=0;i < b.length;)
+    {   int c = b[i] & 0xFF;
+        if (c < 0x80)      { sb.append((char)c); i++; }
+        else if (c < 0xE0) { sb.append((char)(((c & 0x1F) << 6) | (b[i+1] & 0x3F))); i += 2; }
+        else if (c < 0xF0) { sb.append((char)(((c & 0x0F) << 12) | ((b[i+1] & 0x3F) << 6) | (b[i+2] & 0x3F))); i += 3; }
+        else               { sb.appendCodePoint(((c & 0x07) << 18) | ((b[i+1] & 0x3F) << 12) | ((b[i+2] & 0x3F) << 6) | (b[i+3] & 0x3F)); i += 4; }
+    }
+    return sb.toString();
+} //--------------------- end of decode()
+
+//Serialization: the entries are copied to the heap, readResolve() creates a new container
+private Object writeReplace()
+{
+    Properties p = new Properties();
+    for (Map.Entry<Object,Object> e : entrySet()) p.put(e.getKey(),e.getValue());
+    return new SerialForm(p);
+} //--------------------- end of writeReplace()
+
+private static final class SerialForm implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private final Properties entries;
+    SerialForm(Properties entries) { this.entries = entries; }
+    private Object readResolve() { return copyOf(entries); }
+} //--------------------- end of class SerialForm
+
+//FNV-1a of the UTF-8 bytes - independent of String.hashCode(), so a saved index stays valid
+private static int hash(byte[] b,int len)
+{
+    int h = 0x811C9DC5;
+    for (int i=0;i < len;i++) h = (h ^ (b[i] & 0xFF)) * 0x01000193;
+    return h ^ (h >>> 16);
+} //--------------------- end of hash()
+
+private static UnsupportedOperationException readOnly()
+{
+    return new UnsupportedOperationException("OffHeapProperties is read-only");
+}
+
+private static void writeFully(FileChannel ch,ByteBuffer b) throws IOException
+{
+    while (b.hasRemaining()) ch.write(b);
+}
+
+private static void readFully(FileChannel ch,ByteBuffer b,long pos) throws IOException
+{
+    while (b.hasRemaining())
+    {   int n = ch.read(b,pos + b.position());
+        if (n < 0) throw new EOFException("Unexpected end of file");
+    }
+} //--------------------- end of readFully()
+
+} //------------------------------------- end of class
@@ -0,0 +1,159 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * State of one load, expand or store operation: the figures are counted into plain fields while parsing
+ * and published to the installed {@link PropMetrics} once at the end by {@link #publish()}.
+ * The FINER logging and the {@link PropTrace} are also decided once per operation - so a disabled
+ * diagnostic costs one boolean test per line and allocates nothing.
+ * @since Last change: 2026.10.18
+ */
+final class ParseContext
+{
+    final String op;
+    final String source;
+    final PropMetrics metrics;
+    final long t0;
+    /** Snapshot of logger.isLoggable(Level.FINER) */
+    final boolean finer;
+    /** The trace recording this source or null */
+    final PropTrace trace;
+    /** The unicode options of this call, see Prop.setUnicodeOptions() */
+    final boolean longEscapes, checkSurrogates;
+
+    long lines, contLines, unescapes, entries;
+    /** The natural line number where the current logical line starts and the number of blanks skipped in front of it */
+    long lineno;
+    int column0;
+    /** Lenient mode: receives the problems instead of throwing them, null: strict mode */
+    List<PropValidator.Diagnostic> diagnostics;
+    Charset charset;
+    private CountingInputStream counting;
+
+/**
+ * @param op The operation e.g. "loadProper"
+ * @param source The file or "stream", null if not related to a file
+ */
+ParseContext(String op,Object source)
+{
+    this(op,source,Prop.getUnicodeOptions());
+}
+
+/**
+ * @param op The operation e.g. "loadProper"
+ * @param source The file or "stream", null if not related to a file
+ * @param unicodeOptions 0 or any combination of Prop.UNICODE_LONG_ESCAPES and Prop.UNICODE_CHECK_SURROGATES
+ */
+ParseContext(String op,Object source,int unicodeOptions)
+{
+    this.op = op;
+    this.source = (source == null) ? null : source.toString();
+    this.metrics = Prop.getMetrics();
+    this.t0 = metrics != PropMetrics.NOOP ? System.nanoTime() : 0;
+    this.finer = Prop.logger.isLoggable(Level.FINER);
+    PropTrace t = Prop.getTrace();
+    this.trace = (t != null && t.accepts(this.source)) ? t : null;
+    this.longEscapes = (unicodeOptions & Prop.UNICODE_LONG_ESCAPES) != 0;
+    this.checkSurrogates = (unicodeOptions & Prop.UNICODE_CHECK_SURROGATES) != 0;
+}
+
+/** @return true if a PropMetrics is installed */
+boolean enabled() { return metrics != PropMetrics.NOOP; }
+
+/**
+ * Counts the bytes read from 'in' - only if enabled
+ * @param in The raw input, e.g. the file stream
+ * @return 'in' or the counting stream
+ */
+InputStream count(InputStream in)
+{
+    if (!enabled()) return in;
+    return counting = new CountingInputStream(in);
+}
+
+/**
+ * Records one value of a distribution immediately - only if enabled
+ * @param name The histogram e.g. "placeholders"
+ * @param value The value
+ */
+void record(String name,long value)
+{
+    if (enabled()) metrics.record(op,source,name,value);
+}
+
+/**
+ * A problem in the current logical line: thrown in strict mode, recorded in lenient mode
+ * @param kind The kind of problem
+ * @param pos The position in the logical line (0 based)
+ * @param key The key, null if unknown
+ * @param msg The message
+ * @throws IOException In strict mode
+ */
+void problem(PropValidator.Kind kind,int pos,String key,String msg) throws IOException
+{
+    if (diagnostics == null) throw new IOException(msg);
+    diagnostics.add(new PropValidator.Diagnostic(source,lineno,column0 + pos + 1,key,kind,msg));
+}
+
+/** Publishes the figures to the installed PropMetrics */
+void publish()
+{
+    if (!enabled()) return;
+    metrics.time(op,source,System.nanoTime() - t0);
+    if (counting != null) metrics.count(op,source,"bytes",counting.bytes);
+    if (lines > 0)     metrics.count(op,source,"lines",lines);
+    if (contLines > 0) metrics.count(op,source,"contLines",contLines);
+    if (unescapes > 0) metrics.count(op,source,"unescapes",unescapes);
+    metrics.count(op,source,"entries",entries);
+    if (charset != null) metrics.count(op,source,"charset." + charset.name(),1);
+}
+
+private static final class CountingInputStream extends FilterInputStream
+{
+    long bytes = 0;
+
+    CountingInputStream(InputStream in) { super(in); }
+
+    @Override
+    public int read() throws IOException
+    {   int b = in.read();
+        if (b != -1) bytes++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b,int off,int len) throws IOException
+    {   int n = in.read(b,off,len);
+        if (n > 0) bytes += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {   long s = in.skip(n);
+        bytes += s;
+        return s;
+    }
+
+    @Override public boolean markSupported() { return false; }
+} //--------------------- end of class CountingInputStream
+
+} //------------------------------------- end of class
@@ -0,0 +1,350 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.util.*;
+
+/**
+ * <h3>Immutable String map with structural sharing (hash array mapped trie)</h3>
+ * with() and without() return a new map which shares all unchanged nodes with the old one: a change costs
+ * O(log32 n) new nodes, so many versions of a large config fit on the heap. The shape of the trie only depends on
+ * its content, so {@link #diff(PersistentPropMap, DiffHandler)} skips all shared subtrees and costs about
+ * O(changes) for two versions of one history. Thread safe, null keys and values are not allowed.
+ * @see PropHistory
+ * @since Last change: 2026.10.19
+ */
+public final class PersistentPropMap
+{
+    /** The empty map */
+    public static final PersistentPropMap EMPTY = new PersistentPropMap(Bitmap.EMPTY,0);
+
+/**
+ * Receives the differences of two maps
+ */
+public interface DiffHandler
+{
+    /**
+     * @param key The key
+     * @param oldValue The value in the old map, null if the key was added
+     * @param newValue The value in the new map, null if the key was removed
+     */
+    void change(String key,String oldValue,String newValue);
+}
+
+    private final Bitmap root;
+    private final int size;
+
+    private PersistentPropMap(Bitmap root,int size) { this.root = root; this.size = size; }
+
+/**
+ * @param props A Properties container - its default properties are included
+ * @return A map with the same content
+ */
+public static PersistentPropMap of(Properties props)
+{
+    PersistentPropMap m = EMPTY;
+    for (String k : props.stringPropertyNames()) m = m.with(k,props.getProperty(k));
+    return m;
+} //--------------------- end of of()
+
+/** @return The number of keys */
+public int size() { return size; }
+
+/**
+ * @param key The key
+ * @return The value or null
+ */
+public String get(String key)
+{
+    Object n = root;   int h = key.hashCode();
+    for (int shift=0; ;shift+=5)
+    {
+        if (n instanceof Collision)
+        {   Collision c = (Collision)n;
+            if (c.hash != h) return null;
+            for (int i=0;i < c.a.length;i+=2) if (key.equals(c.a[i])) return (String)c.a[i+1];
+            return null;
+        }
+        Bitmap b = (Bitmap)n;
+        int bit = 1 << ((h >>> shift) & 31);
+        if ((b.bitmap & bit) == 0) return null;
+        int i = 2 * Integer.bitCount(b.bitmap & (bit - 1));
+        if (b.a[i] == null) { n = b.a[i+1]; continue; }
+        return key.equals(b.a[i]) ? (String)b.a[i+1] : null;
+    }
+} //--------------------- end of get()
+
+/**
+ * @param key The key
+ * @param value The value
+ * @return A map with 'key' set to 'value' - this map if the value is unchanged
+ */
+public PersistentPropMap with(String key,String value)
+{
+    Objects.requireNonNull(key,"key");   Objects.requireNonNull(value,"value");
+    boolean[] added = { false };
+    Bitmap r = (Bitmap)root.put(0,key.hashCode(),key,value,added);
+    if (r == root) return this;
+    return new PersistentPropMap(r,added[0] ? size + 1 : size);
+} //--------------------- end of with()
+
+/**
+ * @param key The key
+ * @return A map without 'key' - this map if it does not contain 'key'
+ */
+public PersistentPropMap without(String key)
+{
+    Object r = root.remove(0,key.hashCode(),key);
+    if (r == root) return this;
+    if (r == null) return EMPTY;
+    if (!(r instanceof Bitmap)) r = Bitmap.EMPTY.put(0,key(r).hashCode(),key(r),(String)value(r),new boolean[1]); // a single leaf
+    return new PersistentPropMap((Bitmap)r,size - 1);
+} //--------------------- end of without()
+
+/**
+ * Passes all entries to 'handler' - in the order of the trie, not sorted
+ * @param handler Receives each key/value pair
+ */
+public void forEach(EntryHandler handler)
+{
+    try
+    {   forEach(root,handler);
+    } catch (java.io.IOException e)
+    {   throw new java.io.UncheckedIOException(e);
+    }
+} //--------------------- end of forEach()
+
+/**
+ * @return A new Properties container with all entries, e.g. for {@link Prop#storeProper(Properties, java.nio.file.Path, String, boolean...)}
+ */
+public Properties toProperties()
+{
+    Properties props = new Properties();
+    forEach((k,v) -> props.setProperty(k,v));
+    return props;
+} //--------------------- end of toProperties()
+
+/**
+ * Passes the differences between this (old) map and 'other' (new) to 'handler'. Shared subtrees are skipped.
+ * @param other The newer map
+ * @param handler Receives the added, removed and changed keys
+ */
+public void diff(PersistentPropMap other,DiffHandler handler)
+{
+    diff(root,other.root,0,handler);
+} //--------------------- end of diff()
+
+@Override
+public boolean equals(Object o)
+{
+    if (o == this) return true;
+    if (!(o instanceof PersistentPropMap) || ((PersistentPropMap)o).size != size) return false;
+    boolean[] differs = { false };
+    diff((PersistentPropMap)o,(k,ov,nv) -> differs[0] = true);
+    return !differs[0];
+}
+
+@Override
+public int hashCode()
+{
+    int[] h = { 0 };
+    forEach((k,v) -> h[0] += k.hashCode() ^ v.hashCode());
+    return h[0];
+}
+
+@Override
+public String toString() { return "PersistentPropMap: size=" + size; }
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//A slot of a node is a leaf (key,value) or a subnode (null,node). A subnode always holds 2 or more entries.
+private static abstract class Node
+{
+    abstract Node put(int shift,int hash,String key,String value,boolean[] added);
+    //Returns this if not found, null if empty, a Leaf if only one entry is left
+    abstract Object remove(int shift,int hash,String key);
+}
+
+//A single entry returned by remove() - pulled up into the parent slot
+private static final class Leaf
+{
+    final String key, value;
+    Leaf(String key,String value) { this.key = key; this.value = value; }
+}
+
+private static final class Bitmap extends Node
+{
+    static final Bitmap EMPTY = new Bitmap(0,new Object[0]);
+    final int bitmap;
+    final Object[] a;
+
+    Bitmap(int bitmap,Object[] a) { this.bitmap = bitmap; this.a = a; }
+
+    Node put(int shift,int hash,String key,String value,boolean[] added)
+    {
+        int bit = 1 << ((hash >>> shift) & 31), i = 2 * Integer.bitCount(bitmap & (bit - 1));
+        if ((bitmap & bit) == 0)
+        {   Object[] n = new Object[a.length + 2];
+            System.arraycopy(a,0,n,0,i);
+            n[i] = key;   n[i+1] = value;
+            System.arraycopy(a,i,n,i+2,a.length - i);
+            added[0] = true;
+            return new Bitmap(bitmap | bit,n);
+        }
+        Object k = a[i], v = a[i+1];
+        if (k == null)
+        {   Node sub = ((Node)v).put(shift + 5,hash,key,value,added);
+            return sub == v ? this : set(i,null,sub);
+        }
+        if (key.equals(k)) return value.equals(v) ? this : set(i,key,value);
+        added[0] = true;
+        return set(i,null,pair(shift + 5,(String)k,(String)v,hash,key,value));
+    }
+
+    Object remove(int shift,int hash,String key)
+    {
+        int bit = 1 << ((hash >>> shift) & 31), i = 2 * Integer.bitCount(bitmap & (bit - 1));
+        if ((bitmap & bit) == 0) return this;
+        Object k = a[i], v = a[i+1];
+        if (k == null)
+        {   Object sub = ((Node)v).remove(shift + 5,hash,key);
+            if (sub == v) return this;
+            if (sub instanceof Leaf)  // pull up the last entry of the subnode
+            {   if (a.length == 2) return sub; // it is the last entry of this node too
+                return set(i,((Leaf)sub).key,((Leaf)sub).value);
+            }
+            return set(i,null,sub);
+        }
+        if (!key.equals(k)) return this;
+        if (a.length == 2) return null;
+        if (a.length == 4 && a[2-i] != null) return new Leaf((String)a[2-i],(String)a[3-i]);
+        Object[] n = new Object[a.length - 2];
+        System.arraycopy(a,0,n,0,i);
+        System.arraycopy(a,i+2,n,i,a.length - i - 2);
+        return new Bitmap(bitmap & ~bit,n);
+    }
+
+    private Bitmap set(int i,Object k,Object v)
+    {
+        Object[] n = a.clone();
+        n[i] = k;   n[i+1] = v;
+        return new Bitmap(bitmap,n);
+    }
+} //--------------------- end of class Bitmap
+
+//Keys with the same hash code
+private static final class Collision extends Node
+{
+    final int hash;
+    final Object[] a; // key,value,key,value...
+
+    Collision(int hash,Object[] a) { this.hash = hash; this.a = a; }
+
+    Node put(int shift,int h,String key,String value,boolean[] added)
+    {
+        if (h != hash) // a bitmap node at this level holding this node and the new entry
+            return new Bitmap(1 << ((hash >>> shift) & 31),new Object[] { null,this }).put(shift,h,key,value,added);
+        for (int i=0;i < a.length;i+=2)
+        {   if (!key.equals(a[i])) continue;
+            if (value.equals(a[i+1])) return this;
+            Object[] n = a.clone();   n[i+1] = value;
+            return new Collision(hash,n);
+        }
+        Object[] n = Arrays.copyOf(a,a.length + 2);
+        n[a.length] = key;   n[a.length+1] = value;
+        added[0] = true;
+        return new Collision(hash,n);
+    }
+
+    Object remove(int shift,int h,String key)
+    {
+        if (h != hash) return this;
+        for (int i=0;i < a.length;i+=2)
+        {   if (!key.equals(a[i])) continue;
+            if (a.length == 4) return new Leaf((String)a[2-i],(String)a[3-i]);
+            Object[] n = new Object[a.length - 2];
+            System.arraycopy(a,0,n,0,i);
+            System.arraycopy(a,i+2,n,i,a.length - i - 2);
+            return new Collision(hash,n);
+        }
+        return this;
+    }
+} //--------------------- end of class Collision
+
+//The subnode for two entries which share the hash bits above 'shift'
+private static Node pair(int shift,String k1,String v1,int h2,String k2,String v2)
+{
+    int h1 = k1.hashCode();
+    if (h1 == h2) return new Collision(h1,new Object[] { k1,v1,k2,v2 });
+    boolean[] added = new boolean[1];
+    return Bitmap.EMPTY.put(shift,h1,k1,v1,added).put(shift,h2,k2,v2,added);
+} //--------------------- end of pair()
+
+private static String key(Object leaf) { return ((Leaf)leaf).key; }
+private static Object value(Object leaf) { return ((Leaf)leaf).value; }
+
+private static void forEach(Node n,EntryHandler handler) throws java.io.IOException
+{
+    Object[] a = (n instanceof Bitmap) ? ((Bitmap)n).a : ((Collision)n).a;
+    for (int i=0;i < a.length;i+=2)
+    {   if (a[i] != null) handler.entry((String)a[i],(String)a[i+1]);
+        else              forEach((Node)a[i+1],handler);
+    }
+} //--------------------- end of forEach()
+
+//Compares two bitmap nodes at the same level slot by slot, shared subnodes are skipped
+private static void diff(Bitmap x,Bitmap y,int shift,DiffHandler handler)
+{
+    if (x == y) return;
+    int all = x.bitmap | y.bitmap;
+    while (all != 0)
+    {
+        int bit = all & -all;   all &= all - 1;
+        Object xk = null, xv = null, yk = null, yv = null;
+        if ((x.bitmap & bit) != 0) { int i = 2 * Integer.bitCount(x.bitmap & (bit - 1)); xk = x.a[i]; xv = x.a[i+1]; }
+        if ((y.bitmap & bit) != 0) { int i = 2 * Integer.bitCount(y.bitmap & (bit - 1)); yk = y.a[i]; yv = y.a[i+1]; }
+        if (xk == yk && xv == yv) continue; // same subnode, same leaf or both empty
+        if (xk == null && yk == null && xv instanceof Bitmap && yv instanceof Bitmap)
+        {   diff((Bitmap)xv,(Bitmap)yv,shift + 5,handler);
+            continue;
+        }
+        diffSlot(xk,xv,yk,yv,handler); // different shapes: a few entries only
+    }
+} //--------------------- end of diff()
+
+//Compares the entries of two slots, each is empty, a leaf or a subnode
+private static void diffSlot(Object xk,Object xv,Object yk,Object yv,DiffHandler handler)
+{
+    Map<String,String> xm = new LinkedHashMap<String,String>(), ym = new LinkedHashMap<String,String>();
+    collect(xk,xv,xm);   collect(yk,yv,ym);
+    for (Map.Entry<String,String> e : xm.entrySet())
+    {   String nv = ym.get(e.getKey());
+        if (nv == null) handler.change(e.getKey(),e.getValue(),null);
+        else if (!nv.equals(e.getValue())) handler.change(e.getKey(),e.getValue(),nv);
+    }
+    for (Map.Entry<String,String> e : ym.entrySet())
+        if (!xm.containsKey(e.getKey())) handler.change(e.getKey(),null,e.getValue());
+} //--------------------- end of diffSlot()
+
+private static void collect(Object k,Object v,Map<String,String> map)
+{
+    if (v == null) return;
+    if (k != null) { map.put((String)k,(String)v); return; }
+    try
+    {   forEach((Node)v,(key,val) -> map.put(key,val));
+    } catch (java.io.IOException e) { throw new java.io.UncheckedIOException(e); } // not thrown by put()
+} //--------------------- end of collect()
+
+} //------------------------------------- end of class
@@ -14,7 +14,12 @@ package de.noschu.shsutils;
  */
 import java.io.*;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -38,6 +43,112 @@ public class Prop
 	// System.setProperty("java.util.logging.config.file",my_jul_config); 
 	
 	/*private */static final Logger logger = Logger.getLogger(Prop.class.getName());
+
+    private static volatile PropMetrics metrics = PropMetrics.NOOP;
+
+/**
+ * Installs a metrics/tracing implementation for all load, expand and store operations, e.g. {@link InMemoryPropMetrics}
+ * @param m The implementation, null restores the default {@link PropMetrics#NOOP}
+ * @since Last change: 2026.10.18
+ */
+public static void setMetrics(PropMetrics m)
+{
+    metrics = (m == null) ? PropMetrics.NOOP : m;
+} //--------------------- end of setMetrics()
+
+/**
+ * @return The installed metrics implementation, never null
+ * @since Last change: 2026.10.18
+ */
+public static PropMetrics getMetrics() { return metrics; }
+
+    private static volatile PropTrace trace = null;
+
+/**
+ * Installs a trace which records the parse events of selected files into a bounded ring buffer
+ * @param t The trace, null switches tracing off
+ * @since Last change: 2026.10.18
+ */
+public static void setTrace(PropTrace t)
+{
+    trace = t;
+} //--------------------- end of setTrace()
+
+/**
+ * @return The installed trace or null
+ * @since Last change: 2026.10.18
+ */
+public static PropTrace getTrace() { return trace; }
+
+    /** Option of {@link #setUnicodeOptions(int)}: Values may contain 8 digit escape sequences like \U0001F41D */
+    public static final int UNICODE_LONG_ESCAPES = 1;
+    /** Option of {@link #setUnicodeOptions(int)}: An escaped high surrogate must be followed by a low surrogate and vice versa */
+    public static final int UNICODE_CHECK_SURROGATES = 2;
+
+    private static volatile int unicodeOptions = 0;
+
+/**
+ * Sets the default options for unicode escape sequences in values, used by the loaders of .properties files which
+ * are not given options, e.g. {@link #loadProper(Path, Properties...)} - see {@link #loadProper(Path, int, Properties...)}.
+ * The default 0 is compatible to Properties.load(): only \\uXXXX, surrogates are not checked and \U is taken as 'U'.
+ * @param options 0 or any combination of UNICODE_LONG_ESCAPES and UNICODE_CHECK_SURROGATES
+ * @since Last change: 2026.10.18
+ */
+public static void setUnicodeOptions(int options)
+{
+    unicodeOptions = options;
+} //--------------------- end of setUnicodeOptions()
+
+/**
+ * @return The default options set by {@link #setUnicodeOptions(int)}
+ * @since Last change: 2026.10.18
+ */
+public static int getUnicodeOptions() { return unicodeOptions; }
+
+    /** Option of {@link #setStoreOptions(int)}: Keys are sorted, the date comment is replaced by the fixed timestamp or omitted */
+    public static final int STORE_DETERMINISTIC = 1;
+    /** Option of {@link #setStoreOptions(int)}: An existing file with the same content is not touched */
+    public static final int STORE_IF_CHANGED = 2;
+
+    private static volatile int storeOptions = 0;
+    private static volatile String storeTimestamp = null;
+
+/**
+ * Sets the default options for storeProper(), storeWrapper() and syncResourceBundle() - used by the calls which are
+ * not given options, see {@link #storeProper(Properties, Path, String, Compression, int, String, boolean...)}. With STORE_DETERMINISTIC the same
+ * content always results in the same file. With STORE_IF_CHANGED the new content is written to a temp file which
+ * replaces the existing file (atomic move) only if the content differs - else the existing file keeps its modification
+ * time, so caches, rsync and incremental builds see no change.
+ * @param options 0 (the default) or any combination of STORE_DETERMINISTIC and STORE_IF_CHANGED
+ * @since Last change: 2026.10.18
+ */
+public static void setStoreOptions(int options)
+{
+    storeOptions = options;
+} //--------------------- end of setStoreOptions()
+
+/**
+ * @return The default options set by {@link #setStoreOptions(int)}
+ * @since Last change: 2026.10.18
+ */
+public static int getStoreOptions() { return storeOptions; }
+
+/**
+ * Sets the default timestamp written as comment instead of the current date in mode STORE_DETERMINISTIC, e.g. a build
+ * or release date
+ * @param timestamp The timestamp, null (the default) omits the date comment
+ * @since Last change: 2026.10.18
+ */
+public static void setStoreTimestamp(String timestamp)
+{
+    storeTimestamp = timestamp;
+} //--------------------- end of setStoreTimestamp()
+
+/**
+ * @return The default timestamp set by {@link #setStoreTimestamp(String)} or null
+ * @since Last change: 2026.10.18
+ */
+public static String getStoreTimestamp() { return storeTimestamp; }
 	
 /**
 * Get the first comment lines of a .properties file
@@ -51,16 +162,7 @@ public static List<String> getHeaderLines(Path propfile) throws IOException
     BufferedReader br = null; 
 try
 {      
-    Charset cs = getCharset(propfile);  //if (isUTF8(propfile)) cs = StandardCharsets.UTF_8;
-    String tmp = cs.toString();
-    if (tmp.startsWith("UTF-32")) throw new IOException("Charset " + cs + " is not supported");
-
-    br = Files.newBufferedReader(propfile,cs);
- 
-    if (cs != StandardCharsets.ISO_8859_1)
-    {   br.mark(4); // each BOM results in codepoint 0xFEFF which is one java char (2 bytes) 
-        if ('\uFEFF' != br.read())  br.reset(); // SKIP THE BOM OR REWIND
-    }  
+    br = newReader(Files.newInputStream(propfile),new ParseContext("getHeaderLines",propfile)); // one open: the charset is detected on the stream
     List<String> headLines = new ArrayList<String>();
     String line; char c = 'x'; int pos;
     while((line = br.readLine()) != null)  
@@ -108,6 +210,7 @@ public static Properties loadWrapper(Path propfile,Properties... defProps) throw
     else                     props = new Properties();   
        
     BufferedReader br = null;       Charset cs = StandardCharsets.ISO_8859_1;	   String msg,tmp;
+    ParseContext ctx = new ParseContext("loadWrapper",propfile);
     
 try
 {   
@@ -115,7 +218,7 @@ try
     tmp = cs.toString();
     if (tmp.startsWith("UTF-32")) throw new IOException("Charset " + cs + " is not supported");
     
-    logger.log(Level.FINER,"The .properties file will be read using encoding {0} : {1}",new Object[] {cs,propfile});
+    if (ctx.finer) logger.log(Level.FINER,"The .properties file will be read using encoding {0} : {1}",new Object[] {cs,propfile});
     
     br = Files.newBufferedReader(propfile,cs);
     
@@ -124,6 +227,9 @@ try
         if ('\uFEFF' != br.read())  br.reset(); // SKIP THE BOM OR REWIND
     }  
     props.load(br);
+    ctx.charset = cs;
+    ctx.entries = props.size();
+    ctx.publish();
     return props;
     
 } catch (Exception e)
@@ -163,70 +269,154 @@ try
  */
 public static Properties loadProper(Path propfile,Properties... defProps) throws IOException
 { 
-    final String fn = "loadProper()"; 
-    Properties props = null; char c; int len,st; // st=startpos
-    BufferedReader br = null; String line="",contline,tmp; 
-    
-try
-{   Charset cs = getCharset(propfile); //if (isUTF8(propfile)) cs = StandardCharsets.UTF_8;
-    tmp = cs.name();
-    if (tmp.startsWith("UTF-32")) throw new IOException("Charset " + cs + " is not supported");
+    Properties props = null;
+    if (defProps.length > 0) props = new Properties(defProps[0]); 
+    else                     props = new Properties();   
 
-    logger.log(Level.FINER,"The .properties file will be read using encoding {0} : {1}",new Object[] {cs,propfile});
+    final Properties target = props;
+    loadProper(propfile,(k,v) -> target.setProperty(k,v));
+    return props;
+} //---------------------------------------------------- end of loadProper()
 
-    br = Files.newBufferedReader(propfile,cs);
-    
-    if (cs != StandardCharsets.ISO_8859_1)
-    {   br.mark(4); // each BOM results in codepoint 0xFEFF which is one java char (2 bytes) 
-        if ('\uFEFF' != br.read())  br.reset(); // SKIP THE BOM OR REWIND
-    }  
+/**
+ * Streaming version of {@link #loadProper(Path, Properties...)}: Each key/value pair is passed to 'handler' 
+ * in the order of the file - no Properties container is built. A key may be passed more than once.
+ * A GZIP compressed file is decompressed transparently. The file is opened only once.
+ * @param propfile Path name to properties file
+ * @param handler Receives each key/value pair
+ * @return Number of key/value pairs read
+ * @throws IOException On error, e.g. bad key name or invalid unicode sequence or 'propfile' does not exist
+ * @since Last change: 2026.10.18
+ */
+public static long loadProper(Path propfile,EntryHandler handler) throws IOException
+{ 
+    return loadProper(propfile,unicodeOptions,handler);
+} //---------------------------------------------------- end of loadProper()
+
+/**
+ * Loads a .properties file as {@link #loadProper(Path, Properties...)} with the given unicode options instead of
+ * the defaults of {@link #setUnicodeOptions(int)}.
+ * @param propfile Path name to properties file
+ * @param unicodeOptions 0 or any combination of UNICODE_LONG_ESCAPES and UNICODE_CHECK_SURROGATES
+ * @param defProps Option: Default properties
+ * @return Properties container
+ * @throws IOException On error, e.g. bad key name or invalid unicode sequence or 'propfile' does not exist
+ * @since Last change: 2026.10.19
+ */
+public static Properties loadProper(Path propfile,int unicodeOptions,Properties... defProps) throws IOException
+{ 
+    Properties props = null;
     if (defProps.length > 0) props = new Properties(defProps[0]); 
     else                     props = new Properties();   
-     
-    while((line = br.readLine()) != null)  
-    {     
-       //--- STEP: 1) Read a natural line, ignore empty or comment lines   
-       if ( (len = line.length()) == 0) continue;   
-       st = 0;
-       c = 'x';
-       for ( ;st < len;st++) // STEP: 1.1) Skip white spaces in front of the key - if any 
-       {   c = line.charAt(st);
-           if (c != ' ' && c != '\t' /* && c != '\f'*/ ) break; // \f \u000c and ALT-12 (FORMFEED) does not work as specifid by oracle
-       }                                                        // formmeed terminates a key, and will not be trimmed
-       if (st >= len || c == '#' || c == '!') continue; // empty line or comment line found    
-       if (st > 0) line = line.substring(st);
-       
-       //--- STEP: 2) Read more continuation line(s) -if any
-       while(hasContLine(line)) 
-       {         
-          line = line.substring(0,line.length()-1); // truncate the last backslash        
-          if ( (contline = br.readLine()) == null) break; // end of file   
-          for (st=0; st < contline.length(); st++)  //--- skip the front of the contline
-          {  c = contline.charAt(st);
-             if (c != ' ' && c != '\t') break;
-          } 
-          line += contline.substring(st);          
-       }   
-       //======================================
-       //--- STEP: 3) Parse the logical line 
-       //======================================   
-       String[] keyAndValue = parseLineProper(line); // throws IOEx.
-       
-       logger.log(Level.FINER,"Key: \"{0}\" , Value: \"{1}\"",new Object[] { keyAndValue[0],keyAndValue[1] });
-       
-       //--- STEP: 4) Set the value
-       props.setProperty(keyAndValue[0],keyAndValue[1]);
-    }  //------------------------------- next line
- 
+
+    final Properties target = props;
+    loadProper(propfile,unicodeOptions,(k,v) -> target.setProperty(k,v));
     return props;
+} //---------------------------------------------------- end of loadProper()
+
+/**
+ * Streaming version of {@link #loadProper(Path, int, Properties...)}
+ * @param propfile Path name to properties file
+ * @param unicodeOptions 0 or any combination of UNICODE_LONG_ESCAPES and UNICODE_CHECK_SURROGATES
+ * @param handler Receives each key/value pair
+ * @return Number of key/value pairs read
+ * @throws IOException On error, e.g. bad key name or invalid unicode sequence or 'propfile' does not exist
+ * @since Last change: 2026.10.19
+ */
+public static long loadProper(Path propfile,int unicodeOptions,EntryHandler handler) throws IOException
+{ 
+    final String fn = "loadProper()"; 
+    ParseContext ctx = new ParseContext("loadProper",propfile,unicodeOptions);
+try (InputStream in = Files.newInputStream(propfile))
+{   
+    long many = readProper(newReader(ctx.count(in),ctx),handler,ctx);
+    ctx.publish();
+    return many;
     
 } catch (Exception e)
 {  
     String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
-    throw new IOException(fn + ": " + msg + ", line: '"+line+"', (File: " + propfile + ")"); 
-    
-} finally
-{ try { br.close(); } catch (Exception ee) {} }
+    throw new IOException(fn + ": " + msg + ", (File: " + propfile + ")"); 
+}
+} //---------------------------------------------------- end of loadProper()
+
+/**
+ * Loads a .properties file from a stream as {@link #loadProper(Path, Properties...)}. The charset is 
+ * detected on the (decompressed) stream itself, GZIP input is decompressed transparently. 
+ * 'in' is not closed.
+ * @param in The input stream e.g. a resource or Channels.newInputStream(channel)
+ * @param defProps Option: Default properties
+ * @return Properties container
+ * @throws IOException On error, e.g. bad key name or invalid unicode sequence
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadProper(InputStream in,Properties... defProps) throws IOException
+{ 
+    Properties props = null;
+    if (defProps.length > 0) props = new Properties(defProps[0]); 
+    else                     props = new Properties();   
+
+    final Properties target = props;
+    loadProper(in,(k,v) -> target.setProperty(k,v));
+    return props;
+} //---------------------------------------------------- end of loadProper()
+
+/**
+ * Streaming version of {@link #loadProper(InputStream, Properties...)}. 'in' is not closed.
+ * @param in The input stream
+ * @param handler Receives each key/value pair
+ * @return Number of key/value pairs read
+ * @throws IOException On error, e.g. bad key name or invalid unicode sequence
+ * @since Last change: 2026.10.18
+ */
+public static long loadProper(InputStream in,EntryHandler handler) throws IOException
+{ 
+try
+{   ParseContext ctx = new ParseContext("loadProper","stream");
+    long many = readProper(newReader(ctx.count(in),ctx),handler,ctx);
+    ctx.publish();
+    return many;
+} catch (Exception e)
+{  
+    String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+    throw new IOException("loadProper(): " + msg); 
+}
+} //---------------------------------------------------- end of loadProper()
+
+/**
+ * Loads a .properties file from a channel as {@link #loadProper(InputStream, Properties...)}. 'ch' is not closed.
+ * @param ch The channel e.g. a FileChannel or a socket
+ * @param defProps Option: Default properties
+ * @return Properties container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadProper(ReadableByteChannel ch,Properties... defProps) throws IOException
+{
+    return loadProper(Channels.newInputStream(ch),defProps);
+} //---------------------------------------------------- end of loadProper()
+
+/**
+ * Loads a .properties file as {@link #loadProper(Path, Properties...)} - keys and short values are deduplicated
+ * via 'pool'. Use one pool for many similar files, e.g. per tenant configs.
+ * @param propfile Path name to properties file
+ * @param pool The string pool shared by the loads
+ * @param defProps Option: Default properties
+ * @return Properties container
+ * @throws IOException On error, e.g. bad key name or invalid unicode sequence or 'propfile' does not exist
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadProper(Path propfile,StringPool pool,Properties... defProps) throws IOException
+{ 
+    Properties props = null;
+    if (defProps.length > 0) props = new Properties(defProps[0]); 
+    else                     props = new Properties();   
+
+    final Properties target = props;
+    long[] hits = new long[1];
+    loadProper(propfile,pool.interning((k,v) -> target.setProperty(k,v),hits));
+    metrics.count("loadProper",propfile.toString(),"poolHits",hits[0]);
+    return props;
 } //---------------------------------------------------- end of loadProper()
 
 /**
@@ -246,43 +436,83 @@ try
 public static Properties loadFromIniFile(Path inifile) throws IOException 
 {    
     Properties props = new Properties();  
-    BufferedReader br = null;   
-    Charset cs;
-    String line="",key,val,category="root";
-    int pos,linno = 0;   char c;
-try
-{
-    cs =  CharsetUtils.getCharset(inifile); 
+    loadFromIniFile(inifile,(k,v) -> props.setProperty(k,v));
+    return props;
+} //--------------------------------------- end of loadIniFile()
 
-    br = Files.newBufferedReader(inifile,cs);
-    while ((line = br.readLine()) != null)   
-    {   
-        linno++;
-        if (line.isEmpty()) continue; 
-        c = line.charAt(0); 
-        if (c == ';' || c == '#' || c == '/') continue; 
-        if (c == '[')
-        {
-            if ( (pos = line.indexOf(']')) == -1)
-            {  logger.log(Level.INFO,"Missing closing ] in line {0}: {1}",new Object[]{linno,line});
-               continue; //category = line.substring(1).trim();  
-            }   
-            category = line.substring(1,pos).trim();
-            continue;
-        }
-        if ( (pos = line.indexOf('=')) == -1) continue;
-                  
-        key = line.substring(0,pos).trim();
-        val = line.substring(pos+1);
-        props.setProperty(category + "." + key,val);
-    }  
-    br.close();  
+/**
+ * Streaming version of {@link #loadFromIniFile(Path)}: Each key (prefixed by its capture name) and value 
+ * is passed to 'handler' in the order of the file. A GZIP compressed file is decompressed transparently.
+ * @param inifile The pathname 
+ * @param handler Receives each key/value pair
+ * @return Number of key/value pairs read
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static long loadFromIniFile(Path inifile,EntryHandler handler) throws IOException 
+{    
+    String[] line = new String[] { "" };
+    ParseContext ctx = new ParseContext("loadFromIniFile",inifile);
+try (InputStream in = Files.newInputStream(inifile))
+{
+    long many = readIni(newReader(ctx.count(in),ctx),handler,line,ctx);
+    ctx.publish();
+    return many;
     
 } catch (Exception e)  // IOException oder FileNotFoundException
 {  
-    try { br.close(); } catch (IOException e2) { } // NEW: 2017.03.17 
-    throw new IOException("loadIniFile(): " + e.getMessage() + " (file '" + inifile + "), line: " + line);
+    throw new IOException("loadIniFile(): " + e.getMessage() + " (file '" + inifile + "), line: " + line[0]);
 }
+} //--------------------------------------- end of loadIniFile()
+
+/**
+ * Loads a .ini file from a stream as {@link #loadFromIniFile(Path)}. The charset is detected on the 
+ * (decompressed) stream itself, GZIP input is decompressed transparently. 'in' is not closed.
+ * @param in The input stream
+ * @return Properties container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadFromIniFile(InputStream in) throws IOException 
+{    
+    Properties props = new Properties();  
+    String[] line = new String[] { "" };
+    try
+    {   ParseContext ctx = new ParseContext("loadFromIniFile","stream");
+        readIni(newReader(ctx.count(in),ctx),(k,v) -> props.setProperty(k,v),line,ctx);
+        ctx.publish();
+    } catch (Exception e)
+    {   throw new IOException("loadIniFile(): " + e.getMessage() + ", line: " + line[0]);
+    }
+    return props;
+} //--------------------------------------- end of loadIniFile()
+
+/**
+ * Loads a .ini file from a channel as {@link #loadFromIniFile(InputStream)}. 'ch' is not closed.
+ * @param ch The channel
+ * @return Properties container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadFromIniFile(ReadableByteChannel ch) throws IOException 
+{    
+    return loadFromIniFile(Channels.newInputStream(ch));
+} //--------------------------------------- end of loadIniFile()
+
+/**
+ * Loads a .ini file as {@link #loadFromIniFile(Path)} - keys and short values are deduplicated via 'pool'.
+ * @param inifile The pathname 
+ * @param pool The string pool shared by the loads
+ * @return Properties container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadFromIniFile(Path inifile,StringPool pool) throws IOException 
+{    
+    Properties props = new Properties();  
+    long[] hits = new long[1];
+    loadFromIniFile(inifile,pool.interning((k,v) -> props.setProperty(k,v),hits));
+    metrics.count("loadFromIniFile",inifile.toString(),"poolHits",hits[0]);
     return props;
 } //--------------------------------------- end of loadIniFile()
 
@@ -302,50 +532,71 @@ try
  */
 public static Properties loadTextfile(Path file) throws IOException
 { 
-    BufferedReader br = null;
-try
-{  
-    String line,key,val;   char c;  int pos,len,linno=0;    
-    Charset cs =  getCharset(file);
-    String tmp = cs.name();
-    if (tmp.startsWith("UTF-32")) throw new IOException("Charset " + cs + " is not supported");
-
-    br = Files.newBufferedReader(file,cs); 
-    
     Properties cfg = new Properties();   
-    
-    while ((line = br.readLine()) != null)   
-    {   
-        linno++;
-        if (line.isEmpty()) continue; 
-        c = line.charAt(0);
-        if (c == '#') continue;  
-        if ( (pos = line.indexOf('=')) == -1) continue;        
-        key = line.substring(0,pos).trim(); // if (key.isEmpty()) continue;   
-        
-        val = line.substring(pos+1).trim(); // key = value
-        len = val.length();
-        if (len >= 2 && val.charAt(0) == '"') // sonst wuerde auch der wert mit nur einem  "  falsch interpretiert wreden
-        {                   
-            if (val.charAt(len-1) == '"')  val = val.substring(1,len-1);  
-            else  
-             logger.log(Level.WARNING,"Value in line {0} starts with a \" however not closed with a \": \"{1}\" , file: {2}",
-                    new Object[] {linno,line,file});
-        }
-        cfg.setProperty(key,val);
-    }
-    br.close();  
+    loadTextfile(file,(k,v) -> cfg.setProperty(k,v));
     return cfg;
+} //--------------------- end of loadTextFile()
+
+/**
+ * Streaming version of {@link #loadTextfile(Path)}: Each key/value pair is passed to 'handler' 
+ * in the order of the file. A GZIP compressed file is decompressed transparently.
+ * @param file Path name to the file
+ * @param handler Receives each key/value pair
+ * @return Number of key/value pairs read
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static long loadTextfile(Path file,EntryHandler handler) throws IOException
+{ 
+    ParseContext ctx = new ParseContext("loadTextfile",file);
+try (InputStream in = Files.newInputStream(file))
+{  
+    long many = readTextfile(newReader(ctx.count(in),ctx),handler,ctx);
+    ctx.publish();
+    return many;
 
 } catch (Exception e)
 {  
-    try { br.close(); } catch (IOException e2) { }   
     throw new IOException("loadTextFile: " + e.getMessage() + " (File: '" + file + "')");
 }
 } //--------------------- end of loadTextFile()
 
 /**
- * Wrapper for Properties.store() to store a properties container in encoding UTF-8
+ * Loads a textfile from a stream as {@link #loadTextfile(Path)}. The charset is detected on the 
+ * (decompressed) stream itself, GZIP input is decompressed transparently. 'in' is not closed.
+ * @param in The input stream
+ * @return Properties container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadTextfile(InputStream in) throws IOException
+{ 
+    Properties cfg = new Properties();   
+    try
+    {   ParseContext ctx = new ParseContext("loadTextfile","stream");
+        readTextfile(newReader(ctx.count(in),ctx),(k,v) -> cfg.setProperty(k,v),ctx);
+        ctx.publish();
+    } catch (Exception e)
+    {   throw new IOException("loadTextFile: " + e.getMessage());
+    }
+    return cfg;
+} //--------------------- end of loadTextFile()
+
+/**
+ * Loads a textfile from a channel as {@link #loadTextfile(InputStream)}. 'ch' is not closed.
+ * @param ch The channel
+ * @return Properties container
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadTextfile(ReadableByteChannel ch) throws IOException
+{ 
+    return loadTextfile(Channels.newInputStream(ch));
+} //--------------------- end of loadTextFile()
+
+/**
+ * Wrapper for Properties.store() to store a properties container in encoding UTF-8.
+ * For reproducible output see {@link #setStoreOptions(int)}.
  * @param props The Properties container
  * @param outfile The output file
  * @param comment A comment, may be null or empty
@@ -353,15 +604,38 @@ try
  * @since Last change: 2019.09.22 
  */
 public static void storeWrapper(Properties props,Path outfile,String comment) throws IOException
+{ 
+    storeWrapper(props,outfile,comment,storeOptions,storeTimestamp);
+} //--------------------- end of storeWrapper()
+
+/**
+ * Stores a properties container as {@link #storeWrapper(Properties, Path, String)} with the given options instead of
+ * the defaults of {@link #setStoreOptions(int)} and {@link #setStoreTimestamp(String)}.
+ * @param props The Properties container
+ * @param outfile The output file
+ * @param comment A comment, may be null or empty
+ * @param options 0 or any combination of STORE_DETERMINISTIC and STORE_IF_CHANGED
+ * @param timestamp The date comment in mode STORE_DETERMINISTIC, null omits it
+ * @throws IOException on error
+ * @since Last change: 2026.10.19
+ */
+public static void storeWrapper(Properties props,Path outfile,String comment,int options,String timestamp) throws IOException
 { 
     BufferedWriter bw = null;
+    ParseContext ctx = new ParseContext("storeWrapper",outfile);
+    Path target = (options & STORE_IF_CHANGED) != 0 ? tempFor(outfile) : outfile;
 try
-{   bw = Files.newBufferedWriter(outfile,StandardCharsets.UTF_8);   
-    props.store(bw,comment);
+{   bw = Files.newBufferedWriter(target,StandardCharsets.UTF_8);   
+    if ((options & STORE_DETERMINISTIC) != 0) storeSorted(props,bw,comment,timestamp);
+    else                                      props.store(bw,comment);
     bw.close();
+    if (target != outfile) replaceIfChanged(target,outfile,ctx);
+    ctx.entries = props.size();
+    ctx.publish();
 } catch (Exception e)
 {   
     try { bw.close(); } catch (Exception ee ) {}
+    if (target != outfile) try { Files.deleteIfExists(target); } catch (Exception ee ) {}
     String msg;   if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
     throw new IOException("Prop.storeWrapper(): " + msg + " (file: " + outfile + ")"); 
 }    
@@ -372,80 +646,159 @@ try
 /**
  * Stores a Properties container to an UTF-8 .properties file.
  * storeProper() is the counterpart to loadProper(): It ensures that no control characters are included in the keynames.
- * Optionally - the output may be sorted by key.
+ * Optionally - the output may be sorted by key. For reproducible output see {@link #setStoreOptions(int)}.
  * @param props The Properties container, must not be null
  * @param propfile The output file, must not be null
  * @param title A comment, may be null or empty
  * @param sort Option: sort If true the output is sorted by key
  * @throws IOException On error
- * @since Last change: 2019.09.22
+ * @since Last change: 2026.10.19
  */
 public static void storeProper(Properties props,Path propfile,String title,boolean... sort) throws IOException
+{ 
+    storeProper(props,propfile,title,Compression.NONE,sort);
+} //--------------------- end of storeProper()
+
+/**
+ * Stores a Properties container to an UTF-8 .properties file as {@link #storeProper(Properties, Path, String, boolean...)}
+ * - optionally compressed.
+ * @param props The Properties container, must not be null
+ * @param propfile The output file, must not be null
+ * @param title A comment, may be null or empty
+ * @param comp The compression of the output file e.g. Compression.GZIP
+ * @param sort Option: sort If true the output is sorted by key
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void storeProper(Properties props,Path propfile,String title,Compression comp,boolean... sort) throws IOException
+{ 
+    storeProper(props,propfile,title,comp,false,storeOptions,storeTimestamp,sort);
+} //--------------------- end of storeProper()
+
+/**
+ * Stores a Properties container as {@link #storeProper(Properties, Path, String, Compression, boolean...)} with the
+ * given options instead of the defaults of {@link #setStoreOptions(int)} and {@link #setStoreTimestamp(String)}.
+ * @param props The Properties container, must not be null
+ * @param propfile The output file, must not be null
+ * @param title A comment, may be null or empty
+ * @param comp The compression of the output file e.g. Compression.NONE
+ * @param options 0 or any combination of STORE_DETERMINISTIC and STORE_IF_CHANGED
+ * @param timestamp The date comment in mode STORE_DETERMINISTIC, null omits it
+ * @param sort Option: sort If true the output is sorted by key
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static void storeProper(Properties props,Path propfile,String title,Compression comp,int options,String timestamp,boolean... sort) throws IOException
+{ 
+    storeProper(props,propfile,title,comp,false,options,timestamp,sort);
+} //--------------------- end of storeProper()
+
+/**
+ * Stores a Properties container to an ASCII-only .properties file as {@link #storeProper(Properties, Path, String, boolean...)}:
+ * all chars of the values beyond 0x7E and the control chars are written as \\uXXXX (chars beyond 0xFFFF as surrogate pair)
+ * - e.g. for tools which cannot handle UTF-8. The keys must be ASCII.
+ * @param props The Properties container, must not be null
+ * @param propfile The output file, must not be null
+ * @param title A comment, may be null or empty, must be ASCII
+ * @param comp The compression of the output file e.g. Compression.NONE
+ * @param sort Option: sort If true the output is sorted by key
+ * @throws IOException On error, e.g. a key is not ASCII
+ * @since Last change: 2026.10.18
+ */
+public static void storeProperAscii(Properties props,Path propfile,String title,Compression comp,boolean... sort) throws IOException
+{ 
+    storeProper(props,propfile,title,comp,true,storeOptions,storeTimestamp,sort);
+} //--------------------- end of storeProperAscii()
+
+//Invoked from storeProper() and storeProperAscii()
+private static void storeProper(Properties props,Path propfile,String title,Compression comp,boolean ascii,int options,String timestamp,boolean... sort) throws IOException
 { 
     boolean sortit = false; if (sort.length > 0) sortit = sort[0];   
     final String EOL = System.getProperty("line.separator","\n");
     BufferedWriter bw = null;
+    ParseContext ctx = new ParseContext("storeProper",propfile);
+    if ((options & STORE_DETERMINISTIC) != 0) sortit = true;
+    Path target = (options & STORE_IF_CHANGED) != 0 ? tempFor(propfile) : propfile;
   
 try
 {    
-    bw = Files.newBufferedWriter(propfile,StandardCharsets.UTF_8);
+    bw = comp.newWriter(target);
     if (title != null && !title.isEmpty())  bw.write("#" + title + EOL);
 
-    Date date; //SimpleDateFormat sdf; String datestr;
-    try
-    {   date = new Date();  //sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm"); datestr = sdf.format(date);  
-        bw.write("#" + date + EOL);   
-    } catch (Exception e) { /*datestr = "1970-01-01 00:00";*/ }
+    String date = dateComment(options,timestamp); //SimpleDateFormat sdf; String datestr;
+    if (date != null) bw.write("#" + date + EOL);
 
     Set<String> keys = props.stringPropertyNames(); 
     List<String> keylist = new ArrayList<String>();    
     keylist.addAll(keys);
     if (sortit) java.util.Collections.sort(keylist); 
-    String v;  char c;   int len; boolean changed;
-    StringBuffer sb = new StringBuffer();
-
     for (String k : keylist)   
     {    
-        if (k.contains("=")) throw new IOException("Invalid key, contains a '=' char: '"+k+"'");
-        if (k.contains("\\")) throw new IOException("Invalid key, contains a '\\' char: '"+k+"'");
-        len = k.length();
-        for (int i=0;i < len;i++)
-        { if (Character.isISOControl(k.charAt(i))) throw new IOException("Invalid key, contains a Control character: '"+k+"'");
-        }
-        v = props.getProperty(k,"");
-        changed = false; 
-        sb.setLength(0);
-        for (int i =0;i < v.length();i++)
-        {
-           c = v.charAt(i);
-           switch(c)
-           {
-           case '\\': sb.append("\\\\"); changed = true; break;
-           case '\n': sb.append("\\n"); changed = true; break;
-           case '\r': sb.append("\\r"); changed = true; break;  
-           case '\f': sb.append("\\f"); changed = true; break; 
-           case '\t': sb.append("\\t"); changed = true; break;
-           case '=': sb.append("\\="); changed = true; break; // Compatibility to Properties.store()
-           case ':': sb.append("\\:"); changed = true; break; // Compatibility to Properties.store()
-           default:  sb.append(c);
-           }
-        }
-        if (changed) v = sb.toString();
-      
-        if (v.length() > 0)
-        { c = v.charAt(0);
-          if (c == ' '  || c == '\t') v = "\\" + v; // blanks and tabs at the beginning of a value must be escaped
-        }
-        bw.write(k + "=" + v + EOL);
+        bw.write(formatProper(k,props.getProperty(k,""),ascii) + EOL);
     }
+    ctx.entries = keylist.size();
     keylist.clear();    // // IMPORTANT: Beliebter fehler keys.clear() damit wird die map leer !!!
+    bw.close();
+    if (target != propfile) replaceIfChanged(target,propfile,ctx);
   
 } catch (Exception e)
-{  throw new IOException("storeProper(): " + e.getMessage() + " (outfile: " + propfile + ")");    
+{  if (target != propfile) try { bw.close(); Files.deleteIfExists(target); } catch (Exception ee) {}
+   throw new IOException("storeProper(): " + e.getMessage() + " (outfile: " + propfile + ")");    
 } finally
 { try { bw.close(); } catch (Exception ee) {}  
 }
-} //--------------------- end of storeProper() 
+    ctx.publish();
+} //--------------------- end of storeProper()
+
+/**
+ * Stores a Properties container sorted by key as {@link #storeProper(Properties, Path, String, boolean...)} -
+ * for containers too large to sort in memory: Sorted runs are spilled to temp files and merged when
+ * 'memBudget' is exceeded. The output is the same, but only the container's own entries are stored,
+ * not its default properties.
+ * @param props The Properties container, must not be null
+ * @param propfile The output file, must not be null
+ * @param title A comment, may be null or empty
+ * @param memBudget Approx. heap bytes used for sorting e.g. 64L &lt;&lt; 20
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void storeProper(Properties props,Path propfile,String title,long memBudget) throws IOException
+{
+    storeProper(props,propfile,title,memBudget,storeOptions,storeTimestamp);
+} //--------------------- end of storeProper()
+
+/**
+ * Stores a Properties container as {@link #storeProper(Properties, Path, String, long)} with the given options
+ * instead of the defaults of {@link #setStoreOptions(int)} and {@link #setStoreTimestamp(String)}.
+ * @param props The Properties container, must not be null
+ * @param propfile The output file, must not be null
+ * @param title A comment, may be null or empty
+ * @param memBudget Approx. heap bytes used for sorting e.g. 64L &lt;&lt; 20
+ * @param options 0 or any combination of STORE_DETERMINISTIC and STORE_IF_CHANGED
+ * @param timestamp The date comment in mode STORE_DETERMINISTIC, null omits it
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static void storeProper(Properties props,Path propfile,String title,long memBudget,int options,String timestamp) throws IOException
+{
+    ParseContext ctx = new ParseContext("storeProper",propfile);
+    Path target = (options & STORE_IF_CHANGED) != 0 ? tempFor(propfile) : propfile;
+try
+{
+    try (PropConvert.ProperWriter bw = new PropConvert.ProperWriter(target,title,dateComment(options,timestamp));
+         ExternalSorter sorter = new ExternalSorter(null,memBudget,null))
+    {
+        forEachEntry(props,sorter);
+        ctx.entries = sorter.finish(bw);
+    }
+    if (target != propfile) replaceIfChanged(target,propfile,ctx);
+
+} catch (Exception e)
+{  if (target != propfile) try { Files.deleteIfExists(target); } catch (Exception ee) {}
+   throw new IOException("storeProper(): " + e.getMessage() + " (outfile: " + propfile + ")");
+}
+    ctx.publish();
+} //--------------------- end of storeProper()
 
 /**
  * Stores a properties container to a .ini file. The container should be created via loadIniFile().
@@ -458,63 +811,87 @@ try
  * @since Last change: 2019.05.29  
  */
 public static void storeInifile(Properties props,Path inifile) throws IOException
+{
+    storeInifile(props,inifile,Compression.NONE);
+} //--------------- end of storeIniFile()
+
+/**
+ * Stores a properties container to a .ini file as {@link #storeInifile(Properties, Path)} - optionally compressed.
+ * @param props The properties to be stored
+ * @param inifile The output .ini file to be created
+ * @param comp The compression of the output file e.g. Compression.GZIP
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void storeInifile(Properties props,Path inifile,Compression comp) throws IOException
 {
     if (props == null) return; //throw new IllegalArgumentException(fn + ": Invalid arg. 'inifile' (null or empty)");
+    ParseContext ctx = new ParseContext("storeInifile",inifile);
       
-    BufferedWriter ofs = null; 
-    String val,cur_category,category;  int pos;
-    Properties noCapture = new Properties();
-    List<String> out = new ArrayList<>();
+    try (PropConvert.IniWriter ofs = new PropConvert.IniWriter(comp.newWriter(inifile)))
+    {              
+        Set<String> keys = props.stringPropertyNames(); 
+        List<String> keylist = new ArrayList<String>();    
+        keylist.addAll(keys);
+        keylist.sort(PropConvert.INI_ORDER); // keys without a capture are stored at the end in [root]
+        
+        for (String key : keylist) ofs.entry(key,props.getProperty(key,""));
+        ctx.entries = keylist.size();
+        keylist.clear();
+        
+    } catch (Exception e)
+    {
+        throw new IOException("storeIniFile() failed: " + e.toString() + ", (file: "+ inifile + ")");
+    }    
+    ctx.publish();
+} //--------------- end of storeIniFile()
+
+/**
+ * Stores a properties container to a .ini file as {@link #storeInifile(Properties, Path)} - for containers
+ * too large to sort in memory: Sorted runs are spilled to temp files and merged when 'memBudget' is exceeded.
+ * The output is the same, but only the container's own entries are stored, not its default properties.
+ * @param props The properties to be stored
+ * @param inifile The output .ini file to be created
+ * @param memBudget Approx. heap bytes used for sorting e.g. 64L &lt;&lt; 20
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void storeInifile(Properties props,Path inifile,long memBudget) throws IOException
+{
+    storeInifile(props,inifile,memBudget,0);
+} //--------------- end of storeIniFile()
+
+/**
+ * Stores a properties container to a .ini file as {@link #storeInifile(Properties, Path, long)} with the given
+ * options. The output is sorted and has no date comment, so STORE_DETERMINISTIC changes nothing.
+ * @param props The properties to be stored
+ * @param inifile The output .ini file to be created
+ * @param memBudget Approx. heap bytes used for sorting e.g. 64L &lt;&lt; 20
+ * @param options 0 or STORE_IF_CHANGED, see {@link #setStoreOptions(int)}
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static void storeInifile(Properties props,Path inifile,long memBudget,int options) throws IOException
+{
+    if (props == null) return;
+    ParseContext ctx = new ParseContext("storeInifile",inifile);
+    Path target = (options & STORE_IF_CHANGED) != 0 ? tempFor(inifile) : inifile;
+    
     try
-    {              
-        Set<String> keys = props.stringPropertyNames(); 
-        List<String> keylist = new ArrayList<String>();    
-        keylist.addAll(keys);
-        java.util.Collections.sort(keylist); 
-        
-        cur_category = "";
-        for (String key : keylist)
+    {   try (PropConvert.IniWriter ofs = new PropConvert.IniWriter(target);
+             ExternalSorter sorter = new ExternalSorter(PropConvert.INI_ORDER,memBudget,null))
         {
-           val = props.getProperty(key,"");   
-           if ( (pos = key.indexOf('.')) == -1) // will stored as [root]
-           {       noCapture.setProperty(key,val); 
-                   continue;
-           }
-           category = key.substring(0,pos);    
-           if (!cur_category.equals(category))  // a category was found
-           {             
-               out.add("[" + category + "]");
-               cur_category = category;
-           }
-         //  ofs.write(key.substring(pos+1) + "="  + val + EOL);   
-           out.add(key.substring(pos+1) + "="  + val);
-        } 
-        keylist.clear();
-        
-        if (noCapture.size() > 0) 
-        {
-            out.add("[root]");
-            keys = noCapture.stringPropertyNames(); //// alle keys in keylist ablegen und sortieren
-            keylist.clear();    
-            keylist.addAll(keys);
-            java.util.Collections.sort(keylist); 
-            for (String key : keylist)
-            {
-                out.add(key+"="+noCapture.getProperty(key,""));
-            }
-            keylist.clear();
-        }      
-        ofs = Files.newBufferedWriter(inifile,StandardCharsets.UTF_8); 
-        
-        for (String s : out) ofs.write(s + "\r\n");
-        ofs.close(); 
-        out.clear();
+            forEachEntry(props,sorter);
+            ctx.entries = sorter.finish(ofs);
+        }
+        if (target != inifile) replaceIfChanged(target,inifile,ctx);
         
     } catch (Exception e)
     {
-        try { ofs.close(); } catch (IOException e2) {}   // NEW: 2017.03.17          
+        if (target != inifile) try { Files.deleteIfExists(target); } catch (Exception ee) {}
         throw new IOException("storeIniFile() failed: " + e.toString() + ", (file: "+ inifile + ")");
     }    
+    ctx.publish();
 } //--------------- end of storeIniFile()
 
 
@@ -557,26 +934,21 @@ public static boolean getPropertyAsBool(Properties props,String key,boolean defb
  * @param xmlfile The input file
  * @return The properties container
  * @throws IOException on error
- * @since Last change: 2016.12.01 
+ * @see PropXml#load(Path, Properties...) Streaming version for large files
+ * @since Last change: 2026.10.18
  */
 public static Properties loadFromXMLWrapper(Path xmlfile) throws IOException
-{ 
-    /*Buffered*/InputStream ifs=null; // hier kann kein Writer objekt verwendet werden
-try
-{  
+{
+try (InputStream ifs = new BufferedInputStream(Files.newInputStream(xmlfile))) // hier kann kein Writer objekt verwendet werden
+{
     Properties props = new Properties();
-    ifs = new BufferedInputStream(new FileInputStream(xmlfile.toString()));      
-    
     props.loadFromXML(ifs); // leider byte basierend
     return props;
 }
 catch (Exception e)
-{ 
-    throw new IOException("Props.loadFromXMLWrapper(): " + e.getMessage() + " (xmlfile: '" + xmlfile + "')"); 
+{
+    throw new IOException("Props.loadFromXMLWrapper(): " + e.getMessage() + " (xmlfile: '" + xmlfile + "')");
 }
-finally
-{  try { ifs.close(); } catch ( Exception e ) { } 
-}      
 } //--------------------- end of loadFromXMLWrapper()
 
 
@@ -588,20 +960,17 @@ finally
  * @param outfile The output file
  * @param comment A comment, may be null or empty
  * @throws IOException on error
- * @since Last change: 2017.06.03 
+ * @see PropXml#store(Properties, Path, String, boolean...) Streaming version for large containers
+ * @since Last change: 2026.10.18
  */
 public static void storeToXMLWrapper(Properties props,Path outfile,String comment) throws IOException
-{ 
-    /*Buffered*/OutputStream ofs=null; // hier kann kein Writer objekt verwendet werden
-try
-{  
-    ofs = new BufferedOutputStream(new FileOutputStream(outfile.toString()));  
-    props.storeToXML(ofs,comment,"UTF-8"); 
-    ofs.close();
-    
+{
+try (OutputStream ofs = new BufferedOutputStream(Files.newOutputStream(outfile))) // hier kann kein Writer objekt verwendet werden
+{
+    props.storeToXML(ofs,comment,"UTF-8");
+
 } catch (Exception e)
-{   try { ofs.close(); } catch (Exception ee) {}
-    String msg;
+{   String msg;
     if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
     throw new IOException("Prop.storeToXMLWrapper(): " + msg + ", (outfile: " + outfile + ")"); 
 }    
@@ -625,6 +994,22 @@ try
 * @since Last change: 2018.06.10
 */
 public static int syncResourceBundle(Path propFileMaster,Path propFileClient) throws IOException
+{
+    return syncResourceBundle(propFileMaster,propFileClient,storeOptions,storeTimestamp);
+} //-------------------------- end of syncResourceBundle()
+
+/**
+ * Syncronizes a resource bundle client file as {@link #syncResourceBundle(Path, Path)} - the client file is written
+ * with the given options instead of the defaults of {@link #setStoreOptions(int)} and {@link #setStoreTimestamp(String)}.
+ * @param propFileMaster Message file e.g. us.properties
+ * @param propFileClient Message file e.g. de.properties
+ * @param options 0 or any combination of STORE_DETERMINISTIC and STORE_IF_CHANGED
+ * @param timestamp The date comment in mode STORE_DETERMINISTIC, null omits it
+ * @return Number of changes done
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static int syncResourceBundle(Path propFileMaster,Path propFileClient,int options,String timestamp) throws IOException
 {
 int changes = 0;
 try
@@ -665,7 +1050,8 @@ try
   } 
   if (changes > 0) 
   { 
-     Prop.storeWrapper(clientprops,propFileClient,"# Updated by syncResourceBundle() + " + MyTime.getCurrentTime());
+     String ts = (options & STORE_DETERMINISTIC) == 0 ? MyTime.getCurrentTime() : null; // deterministic: storeWrapper() writes 'timestamp'
+     Prop.storeWrapper(clientprops,propFileClient,"# Updated by syncResourceBundle()" + (ts != null ? " + " + ts : ""),options,timestamp);
   }
   return changes;
   
@@ -716,16 +1102,34 @@ try
  * @since Last change: 2019.07.12 
  */
 public static void report(Properties props,Path textfile,String title,boolean... csvformat) throws IOException
+{ 
+    report(props,textfile,title,Compression.NONE,csvformat);
+} //--------------------- end of report()
+
+/**
+ * Exports the properties container as textfile as {@link #report(Properties, Path, String, boolean...)}
+ * - optionally compressed.
+ * @param props The Properties container, must not be null
+ * @param textfile The output file, not in .properties format, must not be null
+ * @param title A comment, may be null or empty
+ * @param comp The compression of the output file e.g. Compression.GZIP
+ * @param csvformat Option: Default is false and output format is: key=value, 
+ * if true output format is: key;value;
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void report(Properties props,Path textfile,String title,Compression comp,boolean... csvformat) throws IOException
 { 
     final String fn="report()";
 
     boolean csv = false; if (csvformat.length > 0) csv = csvformat[0];
     final String EOL = "\r\n"; // System.getProperty("line.separator","\n");  
     String v;
+    ParseContext ctx = new ParseContext("report",textfile);
 BufferedWriter bw = null;
 try
 {
-    bw = Files.newBufferedWriter(textfile,StandardCharsets.UTF_8); 
+    bw = comp.newWriter(textfile); 
     
     if (props == null || props.isEmpty()) bw.write("# The Properties container passed is null or empty" + EOL);
     else
@@ -734,65 +1138,16 @@ try
         List<String> keylist = new ArrayList<String>();    
         keylist.addAll(keys);
         java.util.Collections.sort(keylist); 
-        StringBuffer sb = new StringBuffer();
-        boolean changed=false; char c;
-      
         for (String k : keylist)  
         {   
               v = props.getProperty(k,""); // replace dangerous control chars 
-              //------------- fix the key
-              changed = false; 
-              sb.setLength(0);
-              for (int i =0;i < k.length();i++)
-              {
-                 c = k.charAt(i);
-                 switch(c)
-                 {
-    //             case '\\': sb.append("\\\\"); changed = true;
-    //                        break;
-                 case '=': sb.append("\\="); changed = true;
-                            break;
-                 case '\n': sb.append("\\n"); changed = true;
-                            break;
-                 case '\r': sb.append("\\r"); changed = true;
-                            break;  
-                 case '\f': sb.append("\\f"); changed = true;
-                            break;     
-                 case '\t': sb.append("\\t"); changed = true;
-                            break; 
-                 default:   sb.append(c);
-                 }
-              }
-              if (changed) k = sb.toString();
-              //------------- fix the value
-              changed = false; 
-              sb.setLength(0);
-              for (int i =0;i < v.length();i++)
-              {
-                 c = v.charAt(i);
-                 switch(c)
-                 {
-                 case '\\': sb.append("\\\\"); changed = true;
-                            break;
-                 case '\n': sb.append("\\n"); changed = true;
-                            break;
-                 case '\r': sb.append("\\r"); changed = true;
-                            break;  
-                 case '\f': sb.append("\\f"); changed = true;
-                            break;     
-                 case '\t': sb.append("\\t"); changed = true;
-                            break; 
-                 default:   sb.append(c);
-                 }
-              }
-              if (changed) v = sb.toString();
-              
-              if (!csv) bw.write(k + "=" + v + EOL);     
-              else      bw.write(k + ';' + v + EOL);    
+              bw.write(formatReport(k,v,csv) + EOL);
         }
+        ctx.entries = keylist.size();
         keylist.clear(); //keys.clear();
     }
     bw.close();
+    ctx.publish();
     
 } catch (Exception e)
 {
@@ -801,6 +1156,57 @@ try
 }          
 } //--------------------- end of report()
 
+/**
+ * Exports the properties container as {@link #report(Properties, Path, String, boolean...)} - for containers
+ * too large to sort in memory: Sorted runs are spilled to temp files and merged when 'memBudget' is exceeded.
+ * The output is the same, but only the container's own entries are reported, not its default properties.
+ * @param props The Properties container
+ * @param textfile The output file, not in .properties format, must not be null
+ * @param title A comment, may be null or empty
+ * @param csv If false output format is: key=value, if true output format is: key;value;
+ * @param memBudget Approx. heap bytes used for sorting e.g. 64L &lt;&lt; 20
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void report(Properties props,Path textfile,String title,boolean csv,long memBudget) throws IOException
+{
+    report(props,textfile,title,csv,memBudget,0);
+} //--------------------- end of report()
+
+/**
+ * Exports the properties container as {@link #report(Properties, Path, String, boolean, long)} with the given
+ * options. The output is sorted and has no date comment, so STORE_DETERMINISTIC changes nothing.
+ * @param props The Properties container
+ * @param textfile The output file, not in .properties format, must not be null
+ * @param title A comment, may be null or empty
+ * @param csv If false output format is: key=value, if true output format is: key;value;
+ * @param memBudget Approx. heap bytes used for sorting e.g. 64L &lt;&lt; 20
+ * @param options 0 or STORE_IF_CHANGED, see {@link #setStoreOptions(int)}
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static void report(Properties props,Path textfile,String title,boolean csv,long memBudget,int options) throws IOException
+{
+    ParseContext ctx = new ParseContext("report",textfile);
+    Path target = (options & STORE_IF_CHANGED) != 0 ? tempFor(textfile) : textfile;
+try
+{
+    try (PropConvert.ReportWriter bw = new PropConvert.ReportWriter(target,csv);
+         ExternalSorter sorter = new ExternalSorter(null,memBudget,null))
+    {
+        forEachEntry(props,sorter);
+        ctx.entries = sorter.finish(bw);
+    }
+    if (target != textfile) replaceIfChanged(target,textfile,ctx);
+
+} catch (Exception e)
+{
+    if (target != textfile) try { Files.deleteIfExists(target); } catch (Exception ee) {}
+    throw new IOException("report(): " + e.getMessage() + " (file: " + textfile +")");
+}
+    ctx.publish();
+} //--------------------- end of report()
+
 
 
 
@@ -829,12 +1235,28 @@ try
 * @since Last change: 2019.09.28
 */
 public static int expandProperties(/*IO*/Properties props) throws IOException
+{  
+  return expandProperties(props,null);
+} //--------------------- end of expandProperties()
+
+/**
+ * Expands the properties as {@link #expandProperties(Properties)}. A {@link PropTrace} records the expanded values as
+ * EXPAND events of 'source' - e.g. the file 'props' was loaded from, so a trace of that file shows them.
+ * @param props The Properties container
+ * @param source The name for the trace, null: "expandProperties"
+ * @return Number of properties expanded
+ * @throws IOException If a property cannot be expanded - e.g. missing variable without a default value
+ * @since Last change: 2026.10.19
+ */
+public static int expandProperties(/*IO*/Properties props,Path source) throws IOException
 {  
   if (props == null) return 0; //  throw new IllegalArgumentException("Arg. 'Properties props' (null) passed to expandProperties()");
   
   Set<String> keys = props.stringPropertyNames();
   int many=0;
   String newval,val,key=""; 
+  ParseContext ctx = new ParseContext("expandProperties",source != null ? source : "expandProperties");
+  int[] placeholders = new int[2];
   try
   {
       for (String k : keys)
@@ -842,17 +1264,22 @@ public static int expandProperties(/*IO*/Properties props) throws IOException
           if ( (val = props.getProperty(k)) == null) continue;   
           if (!val.contains("${") && !val.contains("$%") && !val.contains("$[")) continue;
           key = k;        
-          if ( (newval = expandHelper(k,val,props)) != null)
+          if ( (newval = expandHelper(k,val,props,placeholders)) != null)
           { 
-               logger.log(Level.FINER,"The expanded value of \"{0}\" is \"{1}\"",new Object[] {k,newval} );
+               if (ctx.finer) logger.log(Level.FINER,"The expanded value of \"{0}\" is \"{1}\"",new Object[] {k,newval} );
+               if (ctx.trace != null) ctx.trace.add(ctx.source,0,PropTrace.Kind.EXPAND,k,newval);
                props.setProperty(key,newval);  
                many++;
+               ctx.record("placeholders",placeholders[0]);
+               ctx.record("depth",placeholders[1]);
           } 
       } //------------------- for all keys   
   
   } catch (IOException e)
   { throw new IOException("expandProperties(): Cannot expand key '"+key+"': " + e.getMessage()); }
   
+  ctx.entries = many;
+  ctx.publish();
   return many;
 } //--------------------- end of expandProperties()
 
@@ -860,37 +1287,368 @@ public static int expandProperties(/*IO*/Properties props) throws IOException
 // Now: PRIVATE methods 
 /////////////////////////////////////////////////////////////////////////////////
 
-//Invoked from loadProper()
-private static String[] parseLineProper(String line) throws IOException
+//Invoked from loadProper(): reads the logical lines of 'br' (BOM already skipped) and passes each key/value to 'handler'
+//'ctx' counts the natural lines, continuation lines, escape sequences and entries
+static long readProper(BufferedReader br,EntryHandler handler,ParseContext ctx) throws IOException
+{
+    char c; int len,st; long many = 0; // st=startpos
+    String line="",contline;
+try
+{
+    while((line = br.readLine()) != null)
+    {
+       ctx.lines++;
+       //--- STEP: 1) Read a natural line, ignore empty or comment lines
+       if ( (len = line.length()) == 0) continue;
+       st = 0;
+       c = 'x';
+       for ( ;st < len;st++) // STEP: 1.1) Skip white spaces in front of the key - if any
+       {   c = line.charAt(st);
+           if (c != ' ' && c != '\t' /* && c != '\f'*/ ) break; // \f \u000c and ALT-12 (FORMFEED) does not work as specifid by oracle
+       }                                                        // formmeed terminates a key, and will not be trimmed
+       if (st >= len || c == '#' || c == '!') continue; // empty line or comment line found
+       if (st > 0) line = line.substring(st);
+       ctx.lineno = ctx.lines;   ctx.column0 = st;
+
+       //--- STEP: 2) Read more continuation line(s) -if any
+       while(hasContLine(line))
+       {
+          line = line.substring(0,line.length()-1); // truncate the last backslash
+          if ( (contline = br.readLine()) == null) break; // end of file
+          ctx.lines++;   ctx.contLines++;
+          if (ctx.trace != null) ctx.trace.add(ctx.source,ctx.lines,PropTrace.Kind.CONTLINE,null,contline);
+          for (st=0; st < contline.length(); st++)  //--- skip the front of the contline
+          {  c = contline.charAt(st);
+             if (c != ' ' && c != '\t') break;
+          }
+          line += contline.substring(st);
+       }
+       //======================================
+       //--- STEP: 3) Parse the logical line
+       //======================================
+       if (ctx.trace != null) ctx.trace.add(ctx.source,ctx.lineno,PropTrace.Kind.LINE,null,line);
+       String[] keyAndValue = parseLineProper(line,ctx); // throws IOEx.
+       if (keyAndValue == null) continue; // lenient mode: the problem is recorded in ctx
+
+       if (ctx.finer) logger.log(Level.FINER,"Key: \"{0}\" , Value: \"{1}\"",new Object[] { keyAndValue[0],keyAndValue[1] });
+       if (ctx.trace != null) ctx.trace.add(ctx.source,ctx.lineno,PropTrace.Kind.ENTRY,keyAndValue[0],keyAndValue[1]);
+
+       //--- STEP: 4) Pass the key and value
+       handler.entry(keyAndValue[0],keyAndValue[1]);
+       many++;
+    }  //------------------------------- next line
+    ctx.entries = many;
+    return many;
+
+} catch (Exception e)
+{
+    String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+    throw new IOException(msg + ", line: '" + line + "'");
+}
+} //---------------------------------------------------- end of readProper()
+
+//Invoked from loadFromIniFile(): 'line' OUT: the current line for error messages
+static long readIni(BufferedReader br,EntryHandler handler,String[] line,ParseContext ctx) throws IOException
+{
+    String key,val,category="root";
+    int pos,linno = 0;   char c;  long many = 0;
+
+    while ((line[0] = br.readLine()) != null)
+    {
+        linno++;
+        if (line[0].isEmpty()) continue;
+        c = line[0].charAt(0);
+        if (c == ';' || c == '#' || c == '/') continue;
+        if (c == '[')
+        {
+            if ( (pos = line[0].indexOf(']')) == -1)
+            {  logger.log(Level.INFO,"Missing closing ] in line {0}: {1}",new Object[]{linno,line[0]});
+               continue; //category = line.substring(1).trim();
+            }
+            category = line[0].substring(1,pos).trim();
+            continue;
+        }
+        if ( (pos = line[0].indexOf('=')) == -1) continue;
+
+        key = line[0].substring(0,pos).trim();
+        val = line[0].substring(pos+1);
+        ctx.lineno = linno;
+        if (ctx.trace != null) ctx.trace.add(ctx.source,linno,PropTrace.Kind.ENTRY,category + "." + key,val);
+        handler.entry(category + "." + key,val);
+        many++;
+    }
+    ctx.lines = linno;   ctx.entries = many;
+    return many;
+} //--------------------------------------- end of readIni()
+
+//Invoked from loadTextfile(): 'ctx' counts the lines and entries, its source is used for logging
+static long readTextfile(BufferedReader br,EntryHandler handler,ParseContext ctx) throws IOException
+{
+    String line,key,val;   char c;  int pos,len,linno=0;   long many = 0;
+
+    while ((line = br.readLine()) != null)
+    {
+        linno++;
+        if (line.isEmpty()) continue;
+        c = line.charAt(0);
+        if (c == '#') continue;
+        if ( (pos = line.indexOf('=')) == -1) continue;
+        key = line.substring(0,pos).trim(); // if (key.isEmpty()) continue;
+
+        val = line.substring(pos+1).trim(); // key = value
+        len = val.length();
+        if (len >= 2 && val.charAt(0) == '"') // sonst wuerde auch der wert mit nur einem  "  falsch interpretiert wreden
+        {
+            if (val.charAt(len-1) == '"')  val = val.substring(1,len-1);
+            else
+             logger.log(Level.WARNING,"Value in line {0} starts with a \" however not closed with a \": \"{1}\" , file: {2}",
+                    new Object[] {linno,line,ctx.source});
+        }
+        if (ctx.trace != null) ctx.trace.add(ctx.source,linno,PropTrace.Kind.ENTRY,key,val);
+        handler.entry(key,val);
+        many++;
+    }
+    ctx.lines = linno;   ctx.entries = many;
+    return many;
+} //--------------------- end of readTextfile()
+
+/*
+ * Passes the own String entries of 'props' to 'handler' - without copying the keys as stringPropertyNames() does.
+ * Defaults are not included. 'props' may be null.
+ */
+static void forEachEntry(Properties props,EntryHandler handler) throws IOException
+{
+    if (props == null) return;
+    for (Map.Entry<Object,Object> e : props.entrySet())
+    {
+        if (e.getKey() instanceof String && e.getValue() instanceof String)
+           handler.entry((String)e.getKey(),(String)e.getValue());
+    }
+} //---------------------------------------------------- end of forEachEntry()
+
+/*
+ * Validates the key and escapes the value of a .properties line as written by storeProper()
+ * @return The line "key=value" without EOL
+ * @throws IOException If the key contains a '=', a backslash or a control character
+ */
+static String formatProper(String k,String v) throws IOException
+{
+    return formatProper(k,v,false);
+} //---------------------------------------------------- end of formatProper()
+
+/*
+ * As formatProper(k,v) - if 'ascii' is true all chars of the value beyond 0x7E and the other control chars are written 
+ * as \\uXXXX. Throws an IOException if the key is not ASCII.
+ */
+static String formatProper(String k,String v,boolean ascii) throws IOException
+{
+    if (k.contains("=")) throw new IOException("Invalid key, contains a '=' char: '"+k+"'");
+    if (k.contains("\\")) throw new IOException("Invalid key, contains a '\\' char: '"+k+"'");
+    int len = k.length();
+    for (int i=0;i < len;i++)
+    { if (Character.isISOControl(k.charAt(i))) throw new IOException("Invalid key, contains a Control character: '"+k+"'");
+      if (ascii && k.charAt(i) > 0x7e) throw new IOException("Invalid key, contains a non ASCII character: '"+k+"'");
+    }
+    boolean changed = false;   char c;
+    int i = ascii ? indexOfSpecialOrNonAscii(v,0,PROPER_SPECIAL) : indexOfSpecial(v,0,PROPER_SPECIAL);
+    if (i == -1) // fast path: nothing to escape
+    {   if (v.length() > 0 && v.charAt(0) == ' ') return k + "=\\" + v; // a blank at the beginning must be escaped
+        return k + "=" + v;
+    }
+    StringBuilder sb = new StringBuilder(v.length() + 16);
+    sb.append(v,0,i); // the prefix without special chars
+    for ( ;i < v.length();i++)
+    {
+       c = v.charAt(i);
+       switch(c)
+       {
+       case '\\': sb.append("\\\\"); changed = true; break;
+       case '\n': sb.append("\\n"); changed = true; break;
+       case '\r': sb.append("\\r"); changed = true; break;
+       case '\f': sb.append("\\f"); changed = true; break;
+       case '\t': sb.append("\\t"); changed = true; break;
+       case '=': sb.append("\\="); changed = true; break; // Compatibility to Properties.store()
+       case ':': sb.append("\\:"); changed = true; break; // Compatibility to Properties.store()
+       default:  
+           if (ascii && (c < ' ' || c > 0x7e))
+           {   sb.append('\\').append('u').append(HEX_DIGITS[c >> 12]).append(HEX_DIGITS[(c >> 8) & 0xF])
+                 .append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+               changed = true;
+           } else
+               sb.append(c);
+       }
+    }
+    if (changed) v = sb.toString();
+
+    if (v.length() > 0)
+    { c = v.charAt(0);
+      if (c == ' '  || c == '\t') v = "\\" + v; // blanks and tabs at the beginning of a value must be escaped
+    }
+    return k + "=" + v;
+} //---------------------------------------------------- end of formatProper()
+
+/*
+ * Escapes key and value of a line as written by report()
+ * @return The line "key=value" or "key;value" without EOL
+ */
+static String formatReport(String k,String v,boolean csv)
+{
+    int ki = indexOfSpecial(k,0,REPORT_KEY_SPECIAL), vi = indexOfSpecial(v,0,REPORT_VALUE_SPECIAL);
+    if (ki == -1 && vi == -1) return csv ? k + ';' + v : k + "=" + v; // fast path: nothing to escape
+
+    StringBuilder sb = new StringBuilder();
+    boolean changed=false; char c;
+    //------------- fix the key
+    if (ki == -1) ki = k.length();
+    sb.append(k,0,ki);
+    for (int i = ki;i < k.length();i++)
+    {
+       c = k.charAt(i);
+       switch(c)
+       {
+//     case '\\': sb.append("\\\\"); changed = true;
+//                break;
+       case '=': sb.append("\\="); changed = true;
+                  break;
+       case '\n': sb.append("\\n"); changed = true;
+                  break;
+       case '\r': sb.append("\\r"); changed = true;
+                  break;
+       case '\f': sb.append("\\f"); changed = true;
+                  break;
+       case '\t': sb.append("\\t"); changed = true;
+                  break;
+       default:   sb.append(c);
+       }
+    }
+    if (changed) k = sb.toString();
+    //------------- fix the value
+    changed = false;
+    sb.setLength(0);
+    if (vi == -1) vi = v.length();
+    sb.append(v,0,vi);
+    for (int i = vi;i < v.length();i++)
+    {
+       c = v.charAt(i);
+       switch(c)
+       {
+       case '\\': sb.append("\\\\"); changed = true;
+                  break;
+       case '\n': sb.append("\\n"); changed = true;
+                  break;
+       case '\r': sb.append("\\r"); changed = true;
+                  break;
+       case '\f': sb.append("\\f"); changed = true;
+                  break;
+       case '\t': sb.append("\\t"); changed = true;
+                  break;
+       default:   sb.append(c);
+       }
+    }
+    if (changed) v = sb.toString();
+
+    if (!csv) return k + "=" + v;
+    else      return k + ';' + v;
+} //---------------------------------------------------- end of formatReport()
+
+//The chars escaped by formatProper() and formatReport() - all are ASCII
+private static final boolean[] PROPER_SPECIAL = specials("\\\n\r\f\t=:"),
+                               REPORT_KEY_SPECIAL = specials("=\n\r\f\t"),
+                               REPORT_VALUE_SPECIAL = specials("\\\n\r\f\t");
+
+private static boolean[] specials(String chars)
+{
+    boolean[] table = new boolean[128];
+    for (int i=0;i < chars.length();i++) table[chars.charAt(i)] = true;
+    return table;
+} //---------------------------------------------------- end of specials()
+
+/*
+ * Scans 's' for the first char marked in 'table' - one compare and one table lookup per char, no switch
+ * @return The index of the first special char at or after 'from' or -1
+ */
+private static int indexOfSpecial(String s,int from,boolean[] table)
+{
+    int len = s.length();   char c;
+    for (int i=from;i < len;i++)
+    {   if ( (c = s.charAt(i)) < 128 && table[c]) return i;
+    }
+    return -1;
+} //---------------------------------------------------- end of indexOfSpecial()
+
+//As indexOfSpecial() - also stops at control chars and chars beyond 0x7E
+private static int indexOfSpecialOrNonAscii(String s,int from,boolean[] table)
+{
+    int len = s.length();   char c;
+    for (int i=from;i < len;i++)
+    {   if ( (c = s.charAt(i)) < ' ' || c > 0x7e || table[c]) return i;
+    }
+    return -1;
+} //---------------------------------------------------- end of indexOfSpecialOrNonAscii()
+
+//The value of each hex digit or -1 - for the ASCII chars
+private static final byte[] HEX = new byte[128];
+private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+static
+{
+    java.util.Arrays.fill(HEX,(byte)-1);
+    for (int i=0;i < 16;i++)
+    {   HEX[HEX_DIGITS[i]] = (byte)i;
+        HEX[Character.toLowerCase(HEX_DIGITS[i])] = (byte)i;
+    }
+}
+
+/*
+ * Table driven decoding of 'digits' hex digits at 'pos' of 's' - no substring, no exception
+ * @return The value or -1 if there are not enough chars or a char is not a hex digit
+ */
+private static int decodeHex(String s,int pos,int digits)
+{
+    if (pos + digits > s.length()) return -1;
+    int v = 0, d;   char c;
+    for (int i=pos;i < pos + digits;i++)
+    {   if ( (c = s.charAt(i)) >= 128 || (d = HEX[c]) < 0) return -1;
+        v = (v << 4) | d;
+    }
+    return v;
+} //---------------------------------------------------- end of decodeHex()
+
+//Invoked from readProper(): 'ctx' counts the escape sequences. In lenient mode (ctx.diagnostics != null) the problems
+//are recorded instead of thrown, null is returned for a line without a valid key
+private static String[] parseLineProper(String line,ParseContext ctx) throws IOException
 {   
  String[] keyAndValue = new String[] { "","" }; // the return value
- logger.log(Level.FINER,"Logical line is: \"{0}\"",line); 
+ if (ctx.finer) logger.log(Level.FINER,"Logical line is: \"{0}\"",line); 
  //======================================
  //--- STEP: 1) Parse the line to the first = to find the key
  //======================================   
  String key = "",tmpval=""; 
  char c;
  int len = line.length();
- int pos = 0;
+ int pos = 0, vpos0 = 0, badPos = -1; // vpos0: start of the value in 'line', badPos: lenient mode, first invalid char of the key
  for (; pos < len;pos++) 
  {  
     c = line.charAt(pos); 
     if (c == '=')
     {   key = line.substring(0,pos).trim();
         tmpval = line.substring(pos+1);
+        vpos0 = pos+1;
         break;
     }
-    if (Character.isISOControl(c))
-       throw new IOException("Invalid key, Control character at pos " + pos + ": 0x" + Integer.toHexString((int)c) + ", key: '"+key+"'");
-    if (c == '\\')
-       throw new IOException("Invalid key, a backslash is not allowed, key: '"+key+"'");
-    if (c < '\u0020' || c  > '\u007e') // isASCII
-       throw new IOException("Invalid key, Character " + c + " not allowed (ASCII char expected), key: '"+key+"'");     
-    if (c == '\\')
-       throw new IOException("Invalid key, a backslash is not allowed, key: '"+key+"'");
+    if (c >= '\u0020' && c <= '\u007e' && c != '\\') continue; // isASCII, the usual case
+    if (ctx.diagnostics == null) throw new IOException(invalidKey(c,pos,key));
+    if (badPos < 0) badPos = pos;
  }   
  if (pos >= len)
-   throw new IOException("Line contains no '=' key/value separator, line: '" + line + "'");  
+ { ctx.problem(PropValidator.Kind.MISSING_SEPARATOR,0,null,"Line contains no '=' key/value separator, line: '" + line + "'");
+   return null;
+ }
+ if (badPos >= 0)
+ { c = line.charAt(badPos);
+   ctx.problem(c == '\\' ? PropValidator.Kind.KEY_BACKSLASH : Character.isISOControl(c) ? PropValidator.Kind.KEY_CONTROL_CHAR
+             : PropValidator.Kind.KEY_NOT_ASCII,badPos,key,invalidKey(c,badPos,key));
+   return null;
+ }
 
  keyAndValue[0] = key;
  //logger.log(Level.FINER,"The validated key is \"{0}\"",key);
@@ -906,72 +1664,107 @@ private static String[] parseLineProper(String line) throws IOException
  {   c = tmpval.charAt(pos); 
      if (c != ' ' && c != '\t') break; 
  } 
- StringBuffer sbuf = new StringBuffer();
- char uc,prev = 'x'; int many; String codepointStr;
+ //----- STEP: 2.2) Fast path: most values contain no backslash at all - then they are taken verbatim
+ int bs = tmpval.indexOf('\\',pos); // String.indexOf() is a JIT intrinsic (vectorized)
+ if (bs == -1)
+ {   keyAndValue[1] = (pos == 0) ? tmpval : tmpval.substring(pos);
+     return keyAndValue;
+ }
+ //----- STEP: 2.3) Copy the chars between the escape sequences as blocks and decode each escape sequence
+ StringBuilder sbuf = new StringBuilder(len - pos);
+ char uc; int many,cp; String codepointStr;
 
- //pos points to the first char in tmpval
- for ( ;pos < len;pos++) // now scan the value tmpval
+ //pos points to the first char in tmpval, bs to the next backslash
+ while (bs != -1)
  {   
-     c = tmpval.charAt(pos); 
+     sbuf.append(tmpval,pos,bs);
+     pos = bs + 1;
+     if (pos >= len) break; // a single backslash at the end is dropped
+     ctx.unescapes++;
+     c = tmpval.charAt(pos++);
      switch(c)
-     { case '\\':
-           if (prev == '\\') 
-           { sbuf.append(c); // an escaped backslash was found
-             prev = 'x'; 
-           } else prev = c;
-           break;
-       case 't':   // other escape sequences e.g backslash-b for backspace     
-           if (prev == '\\') sbuf.append('\t');     else sbuf.append(c);   
-           prev = c;
-           break;
-       case 'r':        
-           if (prev == '\\') sbuf.append('\r');     else sbuf.append(c);   
-           prev = c;
-           break;
-       case 'n':        
-           if (prev == '\\') sbuf.append('\n');     else sbuf.append(c);   
-           prev = c;
-           break;
-       case 'f':        // formfeed is an unvisible char, displayed aa a box 
-           if (prev == '\\') sbuf.append('\f');     else sbuf.append(c);   
-           prev = c;
+     { case 't':   sbuf.append('\t');  break; // other escape sequences e.g backslash-b for backspace 
+       case 'r':   sbuf.append('\r');  break;
+       case 'n':   sbuf.append('\n');  break;
+       case 'f':   sbuf.append('\f');  break; // formfeed is an unvisible char, displayed aa a box 
+       case 'u':   // a unicode escape sequence follows
+           if ( (cp = decodeHex(tmpval,pos,4)) >= 0) // 12F4   
+           {   uc = (char)cp;
+               pos += 4; // points behind the 4 digits                       
+               if (ctx.checkSurrogates && Character.isSurrogate(uc) && !isPaired(uc,tmpval,pos,sbuf))
+                  ctx.problem(PropValidator.Kind.MALFORMED_UNICODE,vpos0 + bs,key,"Unpaired surrogate \\u" + tmpval.substring(pos-4,pos)
+                              + ", string: '" + tmpval + "' at key: '" +key + "'");
+               sbuf.append(uc);
+               break;
+           }
+           many = Math.min(len-pos,4); // error: convertUnicode() creates the message
+           codepointStr = tmpval.substring(pos,pos+many);     
+           try
+           {   sbuf.append(convertUnicode(codepointStr)); 
+               pos += 4;
+           } catch (Exception e)
+           { ctx.problem(PropValidator.Kind.MALFORMED_UNICODE,vpos0 + bs,key,
+                         e.getMessage() + ", string: '" + tmpval + "' at key: '" +key + "'");
+             sbuf.append(c); // lenient mode: the malformed sequence is kept without its backslash
+           }
            break;
-       case 'u':
-           if (prev == '\\') // a unicode escape sequence follows
-           {                  
-               pos++; // skip u
-               many = Math.min(len-pos,4);
-               codepointStr = tmpval.substring(pos,pos+many);     
-               try
-               {   uc = convertUnicode(codepointStr); // 12F4   
-                   sbuf.append(uc);
-                   pos += 3; // points to the last of the 4 digits                       
-               } catch (Exception e)
-               { throw new IOException(e.getMessage() + ", string: '" + tmpval + "' at key: '" +key + "'"); }
-               
-           } else 
-              sbuf.append(c);
-           prev = c;
+       case 'U':   // 8 digit escape sequence e.g. \U0001F41D - if enabled
+           if (!ctx.longEscapes) { sbuf.append(c); break; }
+           if ( (cp = decodeHex(tmpval,pos,8)) >= 0 && Character.isValidCodePoint(cp) && (cp > 0xFFFF || !Character.isSurrogate((char)cp)))
+           {   sbuf.appendCodePoint(cp);
+               pos += 8;
+               break;
+           }
+           ctx.problem(PropValidator.Kind.MALFORMED_UNICODE,vpos0 + bs,key,"Malformed \\Uxxxxxxxx encoding: '" 
+                       + tmpval.substring(pos,Math.min(len,pos+8)) + "', string: '" + tmpval + "' at key: '" +key + "'");
+           sbuf.append(c); // lenient mode: the malformed sequence is kept without its backslash
            break;
-       default: sbuf.append(c); prev = c;           
+       default: sbuf.append(c); // an escaped backslash or any other char: taken as is
      } //---------------------------------------- end of switch  
+     bs = tmpval.indexOf('\\',pos);
  } //------------ parse the value  
+ if (bs == -1) sbuf.append(tmpval,pos,len);
  
  keyAndValue[1] = sbuf.toString();
  //logger.log(Level.FINER,"The final value is: \"{0}\"",keyAndValue[1]);
  return keyAndValue;   
 } //----------------------------------------- end of parseLineProper()  
 
+//Invoked from parseLineProper(): true if the surrogate 'uc' decoded from an escape sequence before 'pos' has its partner:
+//a high surrogate must be followed by a low one (escaped or not), a low surrogate must follow a high one
+private static boolean isPaired(char uc,String s,int pos,CharSequence decoded)
+{
+    int lo;
+    if (Character.isHighSurrogate(uc))
+       return (pos < s.length() && Character.isLowSurrogate(s.charAt(pos)))
+           || (pos + 1 < s.length() && s.charAt(pos) == '\\' && s.charAt(pos+1) == 'u' && (lo = decodeHex(s,pos+2,4)) >= 0
+               && Character.isLowSurrogate((char)lo));
+    int n = decoded.length();
+    return n > 0 && Character.isHighSurrogate(decoded.charAt(n-1));
+} //----------------------------------------- end of isPaired()
+
+//Invoked from parseLineProper(): the message for an invalid char 'c' at 'pos' of a key
+private static String invalidKey(char c,int pos,String key)
+{
+    if (Character.isISOControl(c))
+       return "Invalid key, Control character at pos " + pos + ": 0x" + Integer.toHexString((int)c) + ", key: '"+key+"'";
+    if (c == '\\')
+       return "Invalid key, a backslash is not allowed, key: '"+key+"'";
+    return "Invalid key, Character " + c + " not allowed (ASCII char expected), key: '"+key+"'";
+} //----------------------------------------- end of invalidKey()
+
 
 /**
-* Expands a value 'val' of 'key'.
+* Expands a value 'val' of 'key'. Invoked from expandProperties() and PropInclude.
 * @param key The nanme of the value, e.g. a property name
 * @param val The value of 'key'
  * @param props The container to find ${ } properties
+ * @param placeholders OUT: [0] the number of placeholders replaced - including nested ones, [1] the nesting depth:
+ * 1 if no replacement contained a placeholder, 2 if one did, and so on
 * @return The expanded value or null if nothing to expand was found in 'val'
  * @throws IOException If a referenced variable does not exist and and contains no default value
 */
-private static String expandHelper(String key,String val,Properties props) throws IOException
+static String expandHelper(String key,String val,Properties props,/*OUT*/int[] placeholders) throws IOException
 {  
     final String expType[] =  new String[] {"System property", "Environment vaiable", "Property"};
     final String beginarr[] = new String[] {"$[",                  "$%",        "${"}; 
@@ -984,6 +1777,7 @@ private static String expandHelper(String key,String val,Properties props) throw
     StringBuffer sbval = new StringBuffer(val);
     
     int start = 0, cnt=0;
+    int[] ends = new int[8]; int nends = 0, maxDepth = 0; // the ends of the enclosing replacements, innermost last
     while ( (pos_b = indexOfAny(sbval.toString(), start,/*OUT*/idxFound, beginarr)) != -1)  
     {    
         kind = idxFound[0];   
@@ -997,6 +1791,8 @@ private static String expandHelper(String key,String val,Properties props) throw
             start = pos_b + beginStr.length();
             continue;
         }
+        while (nends > 0 && pos_b >= ends[nends-1]) nends--; // behind the replacement
+        if (nends + 1 > maxDepth) maxDepth = nends + 1;
         toExpand = sbval.substring(pos_b,pos_e + endStr.length()); // looks like: $%TEMP|C:\\temp%  or $%TEMP%    
         //logger.log(Level.FINER,"Variable to expand: {0}",toExpand);
         
@@ -1034,11 +1830,18 @@ private static String expandHelper(String key,String val,Properties props) throw
         //logger.log(Level.FINER,"Variable \"{0}\" is: \"{1}\"",new Object[] {varname,expVar});
         
         sbval.replace(pos_b,pos_e + endStr.length(),expVar);
+        for (int i=0;i < nends;i++) ends[i] += expVar.length() - toExpand.length();
+        if (!expVar.isEmpty()) // a placeholder found inside 'expVar' is one level deeper
+        {   if (nends == ends.length) ends = Arrays.copyOf(ends,nends * 2);
+            ends[nends++] = pos_b + expVar.length();
+        }
         
         start = pos_b; // DONT CHANGE !
         cnt++;
     } // ----------------- end of: looking 
 
+    placeholders[0] = cnt;
+    if (placeholders.length > 1) placeholders[1] = maxDepth;
     if (cnt == 0) return null; // nothing to expand
     return sbval.toString(); 
 } //------------------------------- end of expandHelper()
@@ -1062,6 +1865,82 @@ private static boolean hasContLine(String line)
  return hasCont;
 } //--------------------------- end of hasContLine()
 
+/*
+ * The date comment written by the store methods of .properties files - without the '#'
+ * @return The current date, in mode STORE_DETERMINISTIC 'timestamp' or null (no date comment)
+ */
+static String dateComment(int options,String timestamp)
+{
+    if ((options & STORE_DETERMINISTIC) != 0) return timestamp;
+    return new Date().toString();
+} //--------------------------- end of dateComment()
+
+//Mode STORE_IF_CHANGED: the temp file in the directory of 'outfile', so it can be moved atomically
+static Path tempFor(Path outfile)
+{
+    return outfile.resolveSibling(outfile.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+} //--------------------------- end of tempFor()
+
+/*
+ * Mode STORE_IF_CHANGED: Moves 'tmp' to 'outfile' if the contents differ, else deletes 'tmp' and the existing file is
+ * not touched. The files are compared streaming, starting with their sizes.
+ * @return false if 'outfile' was unchanged
+ */
+static boolean replaceIfChanged(Path tmp,Path outfile,ParseContext ctx) throws IOException
+{
+    if (Files.isRegularFile(outfile) && Files.size(outfile) == Files.size(tmp) && Files.mismatch(tmp,outfile) == -1)
+    {   Files.delete(tmp);
+        if (ctx.enabled()) ctx.metrics.count(ctx.op,ctx.source,"unchanged",1);
+        return false;
+    }
+    try
+    {   Files.move(tmp,outfile,java.nio.file.StandardCopyOption.REPLACE_EXISTING,java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+    } catch (java.nio.file.AtomicMoveNotSupportedException e)
+    {   Files.move(tmp,outfile,java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    }
+    return true;
+} //--------------------------- end of replaceIfChanged()
+
+/*
+ * Invoked from storeWrapper() in mode STORE_DETERMINISTIC: writes as Properties.store() - however sorted by key and
+ * the date comment is replaced by the fixed timestamp or omitted.
+ */
+private static void storeSorted(Properties props,BufferedWriter bw,String comment,String timestamp) throws IOException
+{
+    StringWriter head = new StringWriter();
+    new Properties().store(head,comment); // the comment lines escaped by store(), followed by the date line
+    String h = head.toString();
+    bw.write(h,0,h.lastIndexOf('#'));
+    if (timestamp != null) { bw.write("#" + timestamp);   bw.newLine(); }
+
+    final TreeMap<Object,Object> sorted = new TreeMap<Object,Object>(props);
+    Properties ordered = new Properties()
+    {   private static final long serialVersionUID = 1L;
+        @Override
+        public Set<Map.Entry<Object,Object>> entrySet() { return sorted.entrySet(); } // store() iterates entrySet()
+    };
+    Writer skipDate = new FilterWriter(bw) // the first line written by store() is the date
+    {   boolean skip = true;
+        @Override
+        public void write(int c) throws IOException
+        {   if (!skip) out.write(c); else if (c == '\n') skip = false;
+        }
+        @Override
+        public void write(char[] cbuf,int off,int len) throws IOException
+        {   int i = 0;
+            while (skip && i < len) if (cbuf[off + i++] == '\n') skip = false;
+            if (i < len) out.write(cbuf,off + i,len - i);
+        }
+        @Override
+        public void write(String s,int off,int len) throws IOException
+        {   if (skip) write(s.substring(off,off + len).toCharArray(),0,len); else out.write(s,off,len);
+        }
+        @Override
+        public void close() throws IOException { flush(); } // 'bw' is closed by the caller
+    };
+    ordered.store(skipDate,null);
+} //--------------------------- end of storeSorted()
+
 /**
  * Converts the 4 hex digits of an unicode escape sequence like \u263A to a unicode char. On error an
  * IllegalArgumentException is thrown, e.g. "Malformed \\uxxxx encoding: '263J', Char 'J' is not allowed        
@@ -1103,9 +1982,18 @@ private static char convertUnicode(String codepointStr)
  * @param file The existing textfile to be read
  * @return The determined Charset or StandardCharsets.ISO_8859_1 as fall back
  * @throws IOException On error, e.g. file does not exist
- * @since Last change: 2019.09.26
+ * @since Last change: 2026.10.18
  */
-private static Charset getCharset(Path file) throws IOException
+static Charset getCharset(Path file) throws IOException
+{
+    Charset cs = detectCharset(file);
+    PropMetrics m = metrics;
+    if (m != PropMetrics.NOOP) m.count("getCharset",file.toString(),"charset." + cs.name(),1);
+    return cs;
+} //--------------------------------------- end of getCharset()
+
+//Invoked from getCharset(Path)
+private static Charset detectCharset(Path file) throws IOException
 { 
     Charset cs = StandardCharsets.UTF_8;  // UTF-8 file may or may not contains a BOM
     BufferedReader br = null;
@@ -1125,8 +2013,69 @@ private static Charset getCharset(Path file) throws IOException
     cs = getBOMsCharset(file);  
     if (cs != null) return cs;          
     return StandardCharsets.ISO_8859_1;
+} //--------------------------------------- end of detectCharset()
+
+/**
+ * Detects the char encoding of a stream as {@link #getCharset(Path)} does for a file: The first 8 KB are
+ * examined via mark() and reset() - so nothing has to be read twice.
+ * @param bin The stream, positioned at the start of the content
+ * @return The determined Charset or StandardCharsets.ISO_8859_1 as fall back
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+static Charset getCharset(BufferedInputStream bin) throws IOException
+{
+    final int PROBE = 8192;
+    byte[] buf = new byte[PROBE];
+    int n = 0, r;
+    bin.mark(PROBE);
+    while (n < PROBE && (r = bin.read(buf,n,PROBE-n)) != -1) n += r;
+    bin.reset();
+    return getCharset(buf,n,n < PROBE);
+} //--------------------------------------- end of getCharset()
+
+/**
+ * Detects the char encoding by the first bytes of a file: UTF-8 if they can be decoded as UTF-8,
+ * else the charset of the BOM, else ISO-8859-1
+ * @param buf The first bytes
+ * @param n Number of valid bytes in 'buf'
+ * @param eof true if 'buf' contains the whole file - then an incomplete UTF-8 sequence at the end is an error
+ * @return The determined Charset or StandardCharsets.ISO_8859_1 as fall back
+ * @since Last change: 2026.10.18
+ */
+static Charset getCharset(byte[] buf,int n,boolean eof)
+{
+    if (n > 0)
+    {   CharsetDecoder dec = StandardCharsets.UTF_8.newDecoder(); // reports malformed input
+        if (!dec.decode(ByteBuffer.wrap(buf,0,n),CharBuffer.allocate(n),eof).isError()) return StandardCharsets.UTF_8;
+    }
+    Charset cs = getBOMsCharset(buf,n);
+    if (cs != null) return cs;
+    return StandardCharsets.ISO_8859_1;
 } //--------------------------------------- end of getCharset()
 
+/*
+ * Opens a reader on the (GZIP decompressed) stream 'in' with the detected charset and skips the BOM.
+ * Malformed input is reported as with Files.newBufferedReader(). The charset is stored in 'ctx', its source is
+ * used for logging.
+ */
+static BufferedReader newReader(InputStream in,ParseContext ctx) throws IOException
+{
+    BufferedInputStream bin = Compression.autoDecode(in);
+    Charset cs = getCharset(bin);
+    if (cs.name().startsWith("UTF-32")) throw new IOException("Charset " + cs + " is not supported");
+    ctx.charset = cs;
+
+    if (ctx.finer) logger.log(Level.FINER,"The file will be read using encoding {0} : {1}",new Object[] {cs,ctx.source});
+
+    BufferedReader br = new BufferedReader(new InputStreamReader(bin,cs.newDecoder()),1 << 14);
+    if (cs != StandardCharsets.ISO_8859_1)
+    {   br.mark(4); // each BOM results in codepoint 0xFEFF which is one java char (2 bytes)
+        if ('\uFEFF' != br.read())  br.reset(); // SKIP THE BOM OR REWIND
+    }
+    return br;
+} //--------------------------------------- end of newReader()
+
 /**
  * Returns the Charset as described by BOM or null if no BOM exists
  * @param file The existing file to be examined. 
@@ -1149,6 +2098,20 @@ private static Charset getBOMsCharset(Path file) throws IOException
     } finally
     {   try { ifs.close(); } catch (Exception ee) {} }   
     
+    return getBOMsCharset(bytes,4);
+} //------------------------------ end of getBOMsCharset()
+
+/**
+ * Returns the Charset as described by the BOM in the first bytes of a file or null if no BOM exists
+ * @param bytes The first bytes of the file
+ * @param n Number of valid bytes in 'bytes'
+ * @return The Charset or null if no BOM exists
+ * @since Last change: 2026.10.18
+ */
+static Charset getBOMsCharset(byte[] bytes,int n)
+{  
+    if (n < 4) return null;
+
     byte i1 = bytes[0],i2 = bytes[1],i3 = bytes[2],i4 = bytes[3]; 
    
     //--- STEP: 2) Check the first byte if there is a BOM
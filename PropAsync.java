@@ -0,0 +1,192 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h3>Asynchronous API for the load and store methods of Prop</h3>
+ * Each method returns at once with a CompletableFuture, the blocking file I/O runs on the executor - so the
+ * methods can be called from event loop threads. The future completes exceptionally with the IOException of
+ * the underlying Prop method.<br>
+ * The default executor uses virtual threads if the JVM supports them (Java 21+), else a bounded pool of
+ * daemon threads: then many files are pipelined through a few platform threads instead of one thread per file.
+ * Example:<br>
+ * PropAsync.getDefault().loadProper(file).thenAccept(props -&gt; ...);
+ * @since Last change: 2026.10.18
+ */
+public class PropAsync
+{
+    private final Executor executor;
+
+/**
+ * Uses the default executor: virtual threads if available, else a shared bounded pool of daemon threads
+ */
+public PropAsync()
+{
+    this(Holder.EXECUTOR);
+}
+
+/**
+ * @param executor Runs the blocking I/O, e.g. a dedicated thread pool
+ */
+public PropAsync(Executor executor)
+{
+    this.executor = Objects.requireNonNull(executor,"executor");
+}
+
+/**
+ * @return An instance with the default executor
+ * @since Last change: 2026.10.18
+ */
+public static PropAsync getDefault() { return Holder.DEFAULT; }
+
+/**
+ * @return The executor running the blocking I/O
+ */
+public Executor executor() { return executor; }
+
+/**
+ * Asynchronous {@link Prop#loadProper(Path, Properties...)}
+ * @param propfile Path name to properties file
+ * @param defProps Option: Default properties
+ * @return Completes with the Properties container
+ * @since Last change: 2026.10.18
+ */
+public CompletableFuture<Properties> loadProper(Path propfile,Properties... defProps)
+{
+    return supply(() -> Prop.loadProper(propfile,defProps));
+} //--------------------- end of loadProper()
+
+/**
+ * Asynchronous {@link Prop#loadProper(Path, EntryHandler)} - 'handler' is called on the executor's thread
+ * @param propfile Path name to properties file
+ * @param handler Receives each key/value pair
+ * @return Completes with the number of key/value pairs read
+ * @since Last change: 2026.10.18
+ */
+public CompletableFuture<Long> loadProper(Path propfile,EntryHandler handler)
+{
+    return supply(() -> Prop.loadProper(propfile,handler));
+} //--------------------- end of loadProper()
+
+/**
+ * Asynchronous {@link Prop#loadFromIniFile(Path)}
+ * @param inifile The pathname
+ * @return Completes with the Properties container
+ * @since Last change: 2026.10.18
+ */
+public CompletableFuture<Properties> loadFromIniFile(Path inifile)
+{
+    return supply(() -> Prop.loadFromIniFile(inifile));
+} //--------------------- end of loadFromIniFile()
+
+/**
+ * Loads many .properties files - all are submitted at once and read concurrently by the executor
+ * @param files The files
+ * @return Completes with the Properties per file in the order of 'files' - or exceptionally with the
+ * first failure
+ * @since Last change: 2026.10.18
+ */
+public CompletableFuture<Map<Path,Properties>> loadProperAll(Collection<Path> files)
+{
+    Map<Path,CompletableFuture<Properties>> futures = new LinkedHashMap<Path,CompletableFuture<Properties>>();
+    for (Path f : files) futures.put(f,loadProper(f));
+
+    CompletableFuture<Map<Path,Properties>> result = new CompletableFuture<Map<Path,Properties>>();
+    CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).whenComplete((v,e) ->
+    {
+        if (e != null) { result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e); return; }
+        Map<Path,Properties> map = new LinkedHashMap<Path,Properties>();
+        for (Map.Entry<Path,CompletableFuture<Properties>> f : futures.entrySet()) map.put(f.getKey(),f.getValue().join());
+        result.complete(map);
+    });
+    return result;
+} //--------------------- end of loadProperAll()
+
+/**
+ * Asynchronous {@link Prop#storeProper(Properties, Path, String, boolean...)}. 'props' must not be changed
+ * until the future is complete.
+ * @param props The Properties container
+ * @param propfile The output file
+ * @param title A comment, may be null or empty
+ * @param sort Option: If true the output is sorted by key
+ * @return Completes when the file is written
+ * @since Last change: 2026.10.18
+ */
+public CompletableFuture<Void> storeProper(Properties props,Path propfile,String title,boolean... sort)
+{
+    return supply(() -> { Prop.storeProper(props,propfile,title,sort); return null; });
+} //--------------------- end of storeProper()
+
+/**
+ * Asynchronous {@link Prop#syncResourceBundle(Path, Path)}
+ * @param propFileMaster Message file e.g. us.properties
+ * @param propFileClient Message file e.g. de.properties
+ * @return Completes with the number of changes done
+ * @since Last change: 2026.10.18
+ */
+public CompletableFuture<Integer> syncResourceBundle(Path propFileMaster,Path propFileClient)
+{
+    return supply(() -> Prop.syncResourceBundle(propFileMaster,propFileClient));
+} //--------------------- end of syncResourceBundle()
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Runs 'task' on the executor, the future completes exceptionally with the exception thrown by 'task' (not wrapped)
+private <T> CompletableFuture<T> supply(Callable<T> task)
+{
+    CompletableFuture<T> f = new CompletableFuture<T>();
+    try
+    {   executor.execute(() ->
+        {   try { f.complete(task.call()); }
+            catch (Throwable e) { f.completeExceptionally(e); }
+        });
+    } catch (RejectedExecutionException e)
+    {   f.completeExceptionally(e);
+    }
+    return f;
+} //--------------------- end of supply()
+
+//Created on first use
+private static final class Holder
+{
+    static final Executor EXECUTOR = defaultExecutor();
+    static final PropAsync DEFAULT = new PropAsync(EXECUTOR);
+
+    //Virtual threads via reflection (Java 21+), else a bounded pool of daemon threads
+    private static Executor defaultExecutor()
+    {
+        try
+        {   return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Throwable e) { /* Java 17: not available */ }
+
+        int n = Math.max(4,2 * Runtime.getRuntime().availableProcessors());
+        AtomicInteger cnt = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(n,n,30,TimeUnit.SECONDS,new LinkedBlockingQueue<Runnable>(),r ->
+        {   Thread t = new Thread(r,"PropAsync-" + cnt.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    } //--------------------- end of defaultExecutor()
+} //--------------------- end of class Holder
+
+} //------------------------------------- end of class
@@ -0,0 +1,459 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <h3>Corpora and a quick benchmark driver for the load/store/expand methods</h3>
+ * The measurements are made by the JMH benchmarks of the 'bench' module (see pom.xml), they use the corpora of this
+ * class: mvn -B package, then java -jar bench/target/benchmarks.jar -prof gc<br>
+ * main() runs the same operations in a simple loop - a quick check without the build, not a measurement.<br>
+ * Usage: java de.noschu.shsutils.PropBench [options]<br>
+ * <ul>
+ * <li> --sizes 1000,100000  Number of keys of the generated corpora (1k - 10M)
+ * <li> --iters 5            Measured iterations per benchmark (after 2 warm up rounds)
+ * <li> --only regex         Runs only the benchmarks whose name matches
+ * <li> --samples dir        Directory of the properties_worst_case*.properties files (default: .)
+ * </ul>
+ * The corpora are generated in a temp directory from the values of the properties_worst_case*.properties
+ * files: ascii (ISO-8859-1), utf8, utf16 (with BOM), cont (a continuation line every 16 chars),
+ * uescape (letters and non-ASCII chars as \\uXXXX) - and plain (ASCII values without any escape sequence) and
+ * escapes (an escape sequence every 2nd char) to compare the fast path and the slow path of the escape handling.<br>
+ * Reported are the average time per operation, the bytes allocated by the benchmark thread per operation
+ * (the same figure as gc.alloc.rate.norm of JMH's -prof gc) and the number of GC runs during the measurement.
+ * The "intern" benchmarks report the heap retained by many similar configs instead - without and with a
+ * {@link StringPool}.
+ * @since Last change: 2026.10.19
+ */
+public class PropBench
+{
+    @FunctionalInterface
+    interface Op { void run() throws Exception; }
+
+    static final String[] KINDS = { "ascii", "utf8", "utf16", "cont", "uescape", "plain", "escapes" };
+
+    private static Pattern only = null;
+
+/**
+ * Runs the benchmarks
+ * @param args Options, see the class description
+ * @throws Exception On error
+ */
+public static void main(String[] args) throws Exception
+{
+    int[] sizes = { 1000, 100000 };
+    int iters = 5;
+    Path samples = Paths.get(".");
+
+    for (int i=0;i < args.length-1;i += 2)
+    {
+        switch (args[i])
+        {
+        case "--sizes":   sizes = Arrays.stream(args[i+1].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray(); break;
+        case "--iters":   iters = Integer.parseInt(args[i+1]); break;
+        case "--only":    only = Pattern.compile(args[i+1]); break;
+        case "--samples": samples = Paths.get(args[i+1]); break;
+        default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+        }
+    }
+    List<String> templates = templates(samples);
+
+    Path dir = Files.createTempDirectory("propbench");
+try
+{
+    System.out.printf("%-40s %10s %12s %14s %5s%n","Benchmark","keys","ms/op","B/op","gc");
+    for (int size : sizes)
+    {
+        benchLoad(templates,size,dir,iters);
+        benchStore(templates,size,dir,iters);
+        benchExpand(templates,size,dir,iters);
+        benchSync(templates,size,dir,iters);
+        benchIntern(templates,size,dir);
+    }
+} finally
+{   deleteAll(dir);
+}
+} //--------------------- end of main()
+
+//loadWrapper, loadProper, getCharset for each corpus - and the other loaders
+static void benchLoad(List<String> templates,int size,Path dir,int iters) throws Exception
+{
+    for (String kind : KINDS)
+    {
+        final Path file = dir.resolve("corpus_" + kind + "_" + size + ".properties");
+        writeCorpus(file,kind,templates,size);
+        run("loadWrapper/" + kind,size,iters,() -> Prop.loadWrapper(file));
+        run("loadProper/" + kind,size,iters,() -> Prop.loadProper(file));
+        run("getCharset/" + kind,size,iters,() -> Prop.getCharset(file));
+    }
+    Properties props = generate(templates,size);
+
+    final Path inifile = dir.resolve("corpus_" + size + ".ini");
+    Prop.storeInifile(props,inifile);
+    run("loadFromIniFile",size,iters,() -> Prop.loadFromIniFile(inifile));
+
+    final Path textfile = dir.resolve("corpus_" + size + ".txt");
+    writeTextfile(props,textfile);
+    run("loadTextfile",size,iters,() -> Prop.loadTextfile(textfile));
+
+    final Path xmlfile = dir.resolve("corpus_" + size + ".xml");
+    PropXml.store(generate(xmlTemplates(templates),size),xmlfile,"PropBench");
+    final long[] cnt = new long[1];
+    run("loadFromXMLWrapper",size,iters,() -> Prop.loadFromXMLWrapper(xmlfile));
+    run("PropXml.load",size,iters,() -> PropXml.load(xmlfile));
+    run("PropXml.load(handler)",size,iters,() -> PropXml.load(xmlfile,(k,v) -> cnt[0]++));
+} //--------------------- end of benchLoad()
+
+//All store methods
+static void benchStore(List<String> templates,int size,Path dir,int iters) throws Exception
+{
+    final Properties props = generate(templates,size);
+    final Path out = dir.resolve("out_" + size);
+    run("storeWrapper",size,iters,() -> Prop.storeWrapper(props,out,"PropBench"));
+    run("storeProper",size,iters,() -> Prop.storeProper(props,out,"PropBench"));
+    run("storeProper/sorted",size,iters,() -> Prop.storeProper(props,out,"PropBench",true));
+    run("storeProper/external",size,iters,() -> Prop.storeProper(props,out,"PropBench",ExternalSorter.DEFAULT_BUDGET));
+    run("storeProper/gzip",size,iters,() -> Prop.storeProper(props,out,"PropBench",Compression.GZIP,true));
+    final Properties plain = generate(PLAIN,size), escapes = generate(ESCAPES,size);
+    run("storeProper/plain",size,iters,() -> Prop.storeProper(plain,out,"PropBench"));
+    run("storeProper/escapes",size,iters,() -> Prop.storeProper(escapes,out,"PropBench"));
+    run("report/plain",size,iters,() -> Prop.report(plain,out,"PropBench"));
+    run("report/escapes",size,iters,() -> Prop.report(escapes,out,"PropBench"));
+    run("storeInifile",size,iters,() -> Prop.storeInifile(props,out));
+    run("report",size,iters,() -> Prop.report(props,out,"PropBench"));
+    run("report/csv",size,iters,() -> Prop.report(props,out,"PropBench",true));
+    final Properties xmlprops = generate(xmlTemplates(templates),size);
+    run("storeToXMLWrapper",size,iters,() -> Prop.storeToXMLWrapper(xmlprops,out,"PropBench"));
+    run("PropXml.store",size,iters,() -> PropXml.store(xmlprops,out,"PropBench"));
+} //--------------------- end of benchStore()
+
+//expandProperties with 1 and 8 ${...} placeholders per value, the time per placeholder is printed too
+static void benchExpand(List<String> templates,int size,Path dir,int iters) throws Exception
+{
+    for (int per : new int[] { 1, 8 })
+    {
+        final Properties base = expandCorpus(templates,size,per);
+        int many = size / 2;
+        final Properties[] copy = new Properties[1];
+        double ms = run("expandProperties/" + per + "ph",size,iters,
+                        () -> { copy[0] = new Properties(); copy[0].putAll(base); },
+                        () -> Prop.expandProperties(copy[0]));
+        if (ms > 0) System.out.printf("%-40s %10d %12.1f ns/placeholder%n","  per placeholder",size,ms * 1e6 / ((size-many) * (double)per));
+    }
+} //--------------------- end of benchExpand()
+
+//syncResourceBundle with a master and a client file, which differ in 10% of the keys
+static void benchSync(List<String> templates,int size,Path dir,int iters) throws Exception
+{
+    final Path masterfile = dir.resolve("msg_" + size + ".properties");
+    final Path clientsrc  = dir.resolve("msg_de_src_" + size + ".properties");
+    final Path clientfile = dir.resolve("msg_de_" + size + ".properties");
+    writeSyncCorpus(templates,size,masterfile,clientsrc);
+    run("syncResourceBundle",size,iters,
+        () -> Files.copy(clientsrc,clientfile,java.nio.file.StandardCopyOption.REPLACE_EXISTING),
+        () -> Prop.syncResourceBundle(masterfile,clientfile));
+} //--------------------- end of benchSync()
+
+//The heap retained by 20 tenant configs sharing 95% of their values - loaded without and with a StringPool
+static void benchIntern(List<String> templates,int size,Path dir) throws Exception
+{
+    final int TENANTS = 20;
+    Properties base = generate(templates,size);
+    final List<Path> files = new ArrayList<>(), inifiles = new ArrayList<>();
+    for (int t=0;t < TENANTS;t++)
+    {
+        Properties p = new Properties();   int i = 0;
+        for (String k : base.stringPropertyNames()) p.setProperty(k,i++ % 20 == 0 ? "tenant" + t : base.getProperty(k));
+        Path f = dir.resolve("tenant" + t + "_" + size + ".properties");
+        Prop.storeProper(p,f,"PropBench");
+        files.add(f);
+        f = dir.resolve("tenant" + t + "_" + size + ".ini");
+        Prop.storeInifile(p,f);
+        inifiles.add(f);
+    }
+    retained("intern/loadProper/off",size,() -> { List<Properties> l = new ArrayList<>(); for (Path f : files) l.add(Prop.loadProper(f)); return l; });
+    final StringPool pool = new StringPool(2 * size);
+    retained("intern/loadProper/pool",size,() -> { List<Properties> l = new ArrayList<>(); for (Path f : files) l.add(Prop.loadProper(f,pool)); return l; });
+    if (only == null || only.matcher("intern/loadProper/pool").find()) System.out.printf("%-40s %s%n","  ",pool);
+
+    retained("intern/loadFromIniFile/off",size,() -> { List<Properties> l = new ArrayList<>(); for (Path f : inifiles) l.add(Prop.loadFromIniFile(f)); return l; });
+    pool.clear();
+    retained("intern/loadFromIniFile/pool",size,() -> { List<Properties> l = new ArrayList<>(); for (Path f : inifiles) l.add(Prop.loadFromIniFile(f,pool)); return l; });
+    if (only == null || only.matcher("intern/loadFromIniFile/pool").find()) System.out.printf("%-40s %s%n","  ",pool);
+} //--------------------- end of benchIntern()
+
+/**
+ * Runs 'load' once and prints the time and the heap retained by its result (used heap after a full GC, before and after)
+ * @param name Name of the operation
+ * @param size Number of keys, printed only
+ * @param load Returns the object graph to be measured
+ * @throws Exception If 'load' fails
+ */
+static void retained(String name,int size,java.util.concurrent.Callable<Object> load) throws Exception
+{
+    if (only != null && !only.matcher(name).find()) return;
+
+    long before = usedHeap(), t0 = System.nanoTime();
+    Object keep = load.call();
+    double ms = (System.nanoTime() - t0) / 1e6;
+    long after = usedHeap();
+    System.out.printf("%-40s %10d %12.3f %14d retained B%n",name,size,ms,after - before);
+    java.lang.ref.Reference.reachabilityFence(keep);
+} //--------------------- end of retained()
+
+//The used heap after a full GC
+static long usedHeap()
+{
+    Runtime rt = Runtime.getRuntime();
+    for (int i=0;i < 3;i++) System.gc();
+    return rt.totalMemory() - rt.freeMemory();
+} //--------------------- end of usedHeap()
+
+/**
+ * Runs 'op' 2 times to warm up and 'iters' times measured - and prints the result
+ * @param name Name of the operation
+ * @param size Number of keys, printed only
+ * @param iters Measured iterations
+ * @param op The operation
+ * @return Average milliseconds per operation or -1 if skipped by --only
+ * @throws Exception If 'op' fails
+ */
+static double run(String name,int size,int iters,Op op) throws Exception
+{
+    return run(name,size,iters,null,op);
+}
+
+/**
+ * Runs 'setup' and 'op' 2 times to warm up and 'iters' times measured - and prints the result.
+ * Only 'op' is measured.
+ * @param name Name of the operation
+ * @param size Number of keys, printed only
+ * @param iters Measured iterations
+ * @param setup Runs before each 'op', may be null
+ * @param op The operation
+ * @return Average milliseconds per operation or -1 if skipped by --only
+ * @throws Exception If 'op' fails
+ */
+static double run(String name,int size,int iters,Op setup,Op op) throws Exception
+{
+    if (only != null && !only.matcher(name).find()) return -1;
+
+    for (int i=0;i < 2;i++) { if (setup != null) setup.run(); op.run(); }
+    System.gc();
+
+    long nanos = 0, alloc = 0, gcs = gcCount(), t0, a0;
+    for (int i=0;i < iters;i++)
+    {
+        if (setup != null) setup.run();
+        a0 = allocatedBytes();
+        t0 = System.nanoTime();
+        op.run();
+        nanos += System.nanoTime() - t0;
+        alloc += allocatedBytes() - a0;
+    }
+    gcs = gcCount() - gcs;
+    double ms = nanos / 1e6 / iters;
+
+    System.out.printf("%-40s %10d %12.3f %14s %5d%n",name,size,ms,
+                      allocatedBytes() < 0 ? "n/a" : String.valueOf(alloc / iters),gcs);
+    return ms;
+} //--------------------- end of run()
+
+//Bytes allocated by the current thread or a negative value if not supported
+static long allocatedBytes()
+{
+    try
+    {   java.lang.management.ThreadMXBean tb = ManagementFactory.getThreadMXBean();
+        if (tb instanceof com.sun.management.ThreadMXBean)
+           return ((com.sun.management.ThreadMXBean)tb).getThreadAllocatedBytes(Thread.currentThread().getId());
+    } catch (Throwable e) {}
+    return -1;
+} //--------------------- end of allocatedBytes()
+
+static long gcCount()
+{
+    long cnt = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) cnt += Math.max(0,gc.getCollectionCount());
+    return cnt;
+} //--------------------- end of gcCount()
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: the corpora
+/////////////////////////////////////////////////////////////////////////////////
+
+/**
+ * Collects the values of the properties_worst_case*.properties files in 'samples' as templates.
+ * If none of the files exist, some built-in values are used.
+ * @param samples The directory
+ * @return The value templates, never empty
+ */
+static List<String> templates(Path samples)
+{
+    Set<String> vals = new LinkedHashSet<>();
+    for (String name : new String[] { "properties_worst_case.properties","properties_worst_case_UTF8.properties",
+                                      "properties_worst_case_UTF16.properties" })
+    {
+        Path file = samples.resolve(name);
+        if (!Files.exists(file)) continue;
+        try
+        {   Properties p = Prop.loadWrapper(file);
+            for (String k : new TreeSet<>(p.stringPropertyNames())) vals.add(p.getProperty(k));
+        } catch (IOException e) { Prop.logger.warning(e.getMessage()); }
+    }
+    if (vals.isEmpty())
+       vals.addAll(Arrays.asList("value","C:\\temp\\test.log","A Smiley: \u263A","umlaut \u00e4","honey bee \ud83d\udc1d",
+                                 "  leading blanks","tabs\tand\nnewlines","key = value : colon"));
+    return new ArrayList<>(vals);
+} //--------------------- end of templates()
+
+//The templates without control chars, which cannot be stored in XML 1.0 (but TAB, CR and LF), and without
+//chars beyond 0xFFFF, which cannot be read by Properties.loadFromXML()
+static List<String> xmlTemplates(List<String> templates)
+{
+    List<String> list = new ArrayList<>();
+    for (String v : templates)
+        if (v.chars().noneMatch(c -> (c < ' ' && c != '\t' && c != '\n' && c != '\r') || Character.isSurrogate((char)c))) list.add(v);
+    if (list.isEmpty()) list.add("value");
+    return list;
+} //--------------------- end of xmlTemplates()
+
+//Values without any char to be escaped - and values with a char to be escaped every 2nd char
+static final List<String> PLAIN = Arrays.asList("true","0","db01.example.com","Welcome to the application","C:/temp/logs/app.log",
+                                                "The quick brown fox jumps over the lazy dog, 1234567890 times");
+static final List<String> ESCAPES = Arrays.asList("C:\\temp\\logs\\app.log","a\tb\tc\td\te","line1\nline2\r\nline3",
+                                                  "k=v:w=x:y=z","\\\\server\\share\\d\\e","\t\t\f\n\r\\=:");
+
+//Creates 'size' keys with the template values - the keys are .ini compatible (section.key)
+static Properties generate(List<String> templates,int size)
+{
+    Properties props = new Properties();
+    for (int i=0;i < size;i++)
+        props.setProperty("section" + (i % 100) + ".key" + i,templates.get(i % templates.size()));
+    return props;
+} //--------------------- end of generate()
+
+/**
+ * Writes a .properties corpus which can be read by loadProper() and loadWrapper()
+ * @param file The output file
+ * @param kind One of {@link #KINDS}
+ * @param templates The values
+ * @param size Number of keys
+ * @throws IOException On error
+ */
+static void writeCorpus(Path file,String kind,List<String> templates,int size) throws IOException
+{
+    Charset cs = StandardCharsets.UTF_8;
+    if (kind.equals("ascii")) cs = StandardCharsets.ISO_8859_1;
+    if (kind.equals("utf16")) cs = StandardCharsets.UTF_16; // big endian with BOM
+
+    try (BufferedWriter bw = Files.newBufferedWriter(file,cs))
+    {
+        bw.write("# PropBench corpus: " + kind + "\r\n");
+        StringBuilder sb = new StringBuilder();
+        for (int i=0;i < size;i++)
+        {
+            sb.setLength(0);
+            sb.append("section").append(i % 100).append(".key").append(i).append(" = ");
+            if (kind.equals("plain")) sb.append(PLAIN.get(i % PLAIN.size()));
+            else escape(templates.get(i % templates.size()),kind,sb);
+            sb.append("\r\n");
+            bw.write(sb.toString());
+        }
+    }
+} //--------------------- end of writeCorpus()
+
+//A text file for loadTextfile() - without the values which contain a line break
+static void writeTextfile(Properties props,Path file) throws IOException
+{
+    try (PropConvert.EntryWriter w = PropConvert.writer(file,PropConvert.Format.TEXT,"PropBench"))
+    {   for (String k : props.stringPropertyNames())
+        {   String v = props.getProperty(k);
+            if (v.indexOf('\n') == -1 && v.indexOf('\r') == -1) w.entry(k,v);
+        }
+    }
+} //--------------------- end of writeTextfile()
+
+//For expandProperties(): size/2 plain values and size/2 values with 'per' ${...} placeholders each
+static Properties expandCorpus(List<String> templates,int size,int per)
+{
+    Properties base = new Properties();
+    int many = size / 2;
+    for (int i=0;i < many;i++) base.setProperty("base." + i,templates.get(i % templates.size()));
+    StringBuilder sb = new StringBuilder();
+    for (int i=0;i < size-many;i++)
+    {   sb.setLength(0);
+        for (int j=0;j < per;j++) sb.append("x ${base.").append((i + j) % many).append("} ");
+        base.setProperty("exp." + i,sb.toString());
+    }
+    return base;
+} //--------------------- end of expandCorpus()
+
+//For syncResourceBundle(): a master and a client file, which differ in 10% of the keys
+static void writeSyncCorpus(List<String> templates,int size,Path masterfile,Path clientfile) throws IOException
+{
+    Properties master = generate(templates,size), client = new Properties();
+    int i = 0;
+    for (String k : master.stringPropertyNames())
+    {   if (i++ % 10 != 0) client.setProperty(k,master.getProperty(k));
+        else               client.setProperty(k + ".old","obsolete");
+    }
+    Prop.storeWrapper(master,masterfile,"master");
+    Prop.storeWrapper(client,clientfile,"client");
+} //--------------------- end of writeSyncCorpus()
+
+private static void escape(String v,String kind,StringBuilder sb)
+{
+    boolean uescape = kind.equals("uescape"), ascii = kind.equals("ascii") || uescape, cont = kind.equals("cont");
+    char c;
+    for (int i=0;i < v.length();i++)
+    {
+        c = v.charAt(i);
+        if (cont && i > 0 && i % 16 == 0) sb.append("\\\r\n        ");
+        if (kind.equals("escapes") && (i & 1) == 0) sb.append("\\t");
+        switch (c)
+        {
+        case '\\': sb.append("\\\\"); continue;
+        case '\n': sb.append("\\n");  continue;
+        case '\r': sb.append("\\r");  continue;
+        case '\t': sb.append("\\t");  continue;
+        case '\f': sb.append("\\f");  continue;
+        case ' ':  if (i == 0) { sb.append("\\ "); continue; } break;
+        default:
+        }
+        if ((ascii && c > 0x7e) || (uescape && Character.isLetter(c)) || c < ' ')
+           sb.append(String.format("\\u%04X",(int)c));
+        else
+           sb.append(c);
+    }
+} //--------------------- end of escape()
+
+static void deleteAll(Path dir)
+{
+    try (java.util.stream.Stream<Path> s = Files.walk(dir))
+    {   s.sorted(Comparator.reverseOrder()).forEach(p -> { try { Files.delete(p); } catch (IOException e) {} });
+    } catch (IOException e) {}
+} //--------------------- end of deleteAll()
+
+} //------------------------------------- end of class
@@ -0,0 +1,378 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * <h3>ResourceBundle.Control which loads the bundles with Prop</h3>
+ * The .properties bundles are loaded by {@link Prop#loadProper(InputStream, Properties...)}: the charset is detected
+ * (UTF-8, ISO-8859-1, UTF-16 with BOM) and the keys are validated - PropertyResourceBundle reads neither UTF-16 nor
+ * a BOM. Example:<br>
+ * ResourceBundle rb = ResourceBundle.getBundle("i18n.messages",Locale.GERMANY,PropBundleControl.getDefault());<br>
+ * <ul>
+ * <li> Only the format java.properties is searched - no class lookup per candidate
+ * <li> On the first request of a family (e.g. i18n/messages*.properties) the directory or jar of the base bundle is
+ *      listed and all its locales are loaded in parallel. A candidate which is not in the family is looked up once
+ *      by the class loader - e.g. in a language pack jar - a miss is cached, so it is skipped afterwards.
+ * <li> The parsed bundles are cached per resource and shared by all ResourceBundle instances and parent chains. A
+ *      cached bundle whose resource changed is parsed again.
+ * <li> The candidate locale list is computed once per locale
+ * <li> With a TTL the ResourceBundle cache checks the resources after expiry, a changed resource is reloaded
+ * </ul>
+ * The bundles may also be read from a directory instead of the class path, see {@link #PropBundleControl(Path, long)}.
+ * As any Control, it cannot be passed to ResourceBundle.getBundle() from a named module.
+ * @since Last change: 2026.10.19
+ */
+public class PropBundleControl extends ResourceBundle.Control
+{
+/**
+ * A ResourceBundle of a .properties file loaded by {@link Prop#loadProper(InputStream, Properties...)}
+ */
+public static class Bundle extends ResourceBundle
+{
+    private final Map<String,String> map;
+
+    /**
+     * @param in The .properties content, not closed
+     * @throws IOException On error, e.g. bad key name or invalid unicode sequence
+     */
+    public Bundle(InputStream in) throws IOException { this(toMap(Prop.loadProper(in))); }
+
+    /**
+     * @param propfile The .properties file
+     * @throws IOException On error, e.g. bad key name or invalid unicode sequence
+     */
+    public Bundle(Path propfile) throws IOException { this(toMap(Prop.loadProper(propfile))); }
+
+    //'map' is shared, never modified
+    Bundle(Map<String,String> map) { this.map = map; }
+
+    @Override
+    protected Object handleGetObject(String key) { return map.get(Objects.requireNonNull(key,"key")); }
+
+    @Override
+    protected Set<String> handleKeySet() { return map.keySet(); }
+
+    @Override
+    public Enumeration<String> getKeys()
+    {   if (parent == null) return Collections.enumeration(map.keySet());
+        Set<String> keys = new HashSet<String>(map.keySet());
+        keys.addAll(parent.keySet());
+        return Collections.enumeration(keys);
+    }
+} //--------------------- end of class Bundle
+
+    //One parsed resource, shared by all bundles created from it
+    private static final class Loaded
+    {
+        final URL url;
+        final long loadTime = System.currentTimeMillis();
+        final CompletableFuture<Map<String,String>> map;
+        Loaded(URL url,CompletableFuture<Map<String,String>> map) { this.url = url; this.map = map; }
+    }
+
+    //The bundles of a base name: listed from the directory or jar of the base bundle, plus those found by the class
+    //loader on other class path entries. 'missing': resource names found nowhere. Both empty: cannot be listed.
+    private static final class Family
+    {
+        final ConcurrentHashMap<String,URL> urls;
+        final Set<String> missing = ConcurrentHashMap.newKeySet();
+        Family(Map<String,URL> listed) { this.urls = new ConcurrentHashMap<String,URL>(listed); }
+    }
+
+    private final Path dir;
+    private final long ttl;
+    private final Executor executor;
+    private final ConcurrentHashMap<String,Loaded> loaded = new ConcurrentHashMap<String,Loaded>();
+    private final ConcurrentHashMap<Locale,List<Locale>> candidates = new ConcurrentHashMap<Locale,List<Locale>>();
+    //class loader -> base name -> the bundles of the family
+    private final Map<ClassLoader,ConcurrentHashMap<String,Family>> families = new WeakHashMap<ClassLoader,ConcurrentHashMap<String,Family>>();
+
+/**
+ * Loads the bundles from the class path, without expiration: as the default ResourceBundle cache
+ */
+public PropBundleControl()
+{
+    this(null,TTL_NO_EXPIRATION_CONTROL);
+}
+
+/**
+ * Loads the bundles from the class path
+ * @param ttlMillis Time to live of a cached bundle, after expiry it is reloaded if its resource changed.
+ * TTL_NO_EXPIRATION_CONTROL: no check, TTL_DONT_CACHE: no caching by ResourceBundle
+ */
+public PropBundleControl(long ttlMillis)
+{
+    this(null,ttlMillis);
+}
+
+/**
+ * Loads the bundles from a directory instead of the class loader: the base name i18n.messages is dir/i18n/messages.properties
+ * @param dir The root directory, null: the class path
+ * @param ttlMillis Time to live of a cached bundle, see {@link #PropBundleControl(long)}
+ */
+public PropBundleControl(Path dir,long ttlMillis)
+{
+    this(dir,ttlMillis,PropAsync.getDefault().executor());
+}
+
+/**
+ * @param dir The root directory, null: the class path
+ * @param ttlMillis Time to live of a cached bundle, see {@link #PropBundleControl(long)}
+ * @param executor Loads the locales of a family in parallel
+ */
+public PropBundleControl(Path dir,long ttlMillis,Executor executor)
+{
+    if (ttlMillis < 0 && ttlMillis != TTL_NO_EXPIRATION_CONTROL && ttlMillis != TTL_DONT_CACHE)
+       throw new IllegalArgumentException("Invalid TTL: " + ttlMillis);
+    this.dir = dir;
+    this.ttl = ttlMillis;
+    this.executor = Objects.requireNonNull(executor,"executor");
+}
+
+/**
+ * @return A shared instance for the class path without expiration
+ * @since Last change: 2026.10.19
+ */
+public static PropBundleControl getDefault() { return Holder.DEFAULT; }
+
+@Override
+public List<String> getFormats(String baseName)
+{
+    Objects.requireNonNull(baseName,"baseName");
+    return FORMAT_PROPERTIES;
+}
+
+@Override
+public List<Locale> getCandidateLocales(String baseName,Locale locale)
+{
+    Objects.requireNonNull(baseName,"baseName");
+    List<Locale> list = candidates.get(locale);
+    if (list == null)
+    {   list = Collections.unmodifiableList(new ArrayList<Locale>(super.getCandidateLocales(baseName,locale)));
+        candidates.putIfAbsent(locale,list);
+    }
+    return new ArrayList<Locale>(list);
+}
+
+@Override
+public long getTimeToLive(String baseName,Locale locale)
+{
+    Objects.requireNonNull(baseName,"baseName");   Objects.requireNonNull(locale,"locale");
+    return ttl;
+}
+
+/**
+ * Loads a bundle - from the shared cache, which is filled for all locales of the family on its first use
+ * @since Last change: 2026.10.19
+ */
+@Override
+public ResourceBundle newBundle(String baseName,Locale locale,String format,ClassLoader loader,boolean reload)
+       throws IllegalAccessException, InstantiationException, IOException
+{
+    if (!"java.properties".equals(format)) return null;
+    String name = toResourceName(toBundleName(baseName,locale),"properties");
+    URL url = lookup(baseName,name,loader);
+    if (url == null) return null;
+
+    Loaded l = reload ? null : loaded.get(url.toString());
+    if (l != null && lastModified(url) > l.loadTime) l = null; // changed, e.g. with TTL_DONT_CACHE needsReload() is not called
+    if (l == null)
+    {   l = new Loaded(url,CompletableFuture.completedFuture(load(url)));
+        loaded.put(url.toString(),l);
+    }
+    try
+    {   return new Bundle(l.map.join());
+    } catch (CompletionException e)
+    {   loaded.remove(url.toString(),l); // a failed load is not cached
+        Throwable c = e.getCause();
+        if (c instanceof IOException) throw (IOException)c;
+        throw new IOException("newBundle(): " + c,c);
+    }
+} //--------------------- end of newBundle()
+
+/**
+ * Checks the last modification time of the resource, a changed resource is removed from the shared cache
+ * @since Last change: 2026.10.19
+ */
+@Override
+public boolean needsReload(String baseName,Locale locale,String format,ClassLoader loader,ResourceBundle bundle,long loadTime)
+{
+    Objects.requireNonNull(bundle,"bundle");
+    String name = toResourceName(toBundleName(baseName,locale),"properties");
+    URL url = lookup(baseName,name,loader);
+    if (url == null) return true; // removed
+    Loaded l = loaded.get(url.toString());
+    long modified = lastModified(url);
+    if (modified <= loadTime && (l == null || modified <= l.loadTime)) return false;
+    loaded.remove(url.toString());
+    synchronized (families)
+    {   Map<String,Family> m = families.get(dir != null ? null : loader);
+        if (m != null) m.remove(baseName); // new locales are found by the next listing
+    }
+    return true;
+} //--------------------- end of needsReload()
+
+/**
+ * Removes all parsed bundles, family listings and candidate lists. ResourceBundle.clearCache() must be called too.
+ */
+public void clear()
+{
+    loaded.clear();   candidates.clear();
+    synchronized (families) { families.clear(); }
+} //--------------------- end of clear()
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+private static final class Holder
+{
+    static final PropBundleControl DEFAULT = new PropBundleControl();
+}
+
+//The URL of the resource 'name' of the family of 'baseName', null if it does not exist. A name which is not in the
+//listing is looked up by the class loader once - the bundles of a family may be spread over several class path
+//entries, e.g. a language pack jar. A directory 'dir' is listed completely.
+private URL lookup(String baseName,String name,ClassLoader loader)
+{
+    Family family = family(baseName,loader);
+    if (family.urls.isEmpty()) return resource(loader,name); // cannot be listed: one lookup per candidate
+    URL url = family.urls.get(name);
+    if (url != null || dir != null || family.missing.contains(name)) return url;
+    if ( (url = resource(loader,name)) == null) family.missing.add(name);
+    else                                        family.urls.put(name,url);
+    return url;
+} //--------------------- end of lookup()
+
+//Returns the family of 'baseName', listed once and loaded in parallel - empty if it cannot be listed
+private Family family(String baseName,ClassLoader loader)
+{
+    ConcurrentHashMap<String,Family> m;
+    synchronized (families) { m = families.computeIfAbsent(dir != null ? null : loader,k -> new ConcurrentHashMap<String,Family>()); }
+    Family family = m.get(baseName);
+    if (family != null) return family;
+
+    String base = toResourceName(toBundleName(baseName,Locale.ROOT),"properties");
+    try
+    {   family = new Family(list(resource(loader,base),base));
+    } catch (Exception e)
+    {   Prop.logger.log(java.util.logging.Level.FINE,"Cannot list the bundles of " + base,e);
+        family = new Family(Collections.<String,URL>emptyMap());
+    }
+    Family prev = m.putIfAbsent(baseName,family);
+    if (prev != null) return prev;
+    for (URL url : family.urls.values()) // load all locales in parallel, the requested one is joined by newBundle()
+    {   loaded.computeIfAbsent(url.toString(),k -> new Loaded(url,CompletableFuture.supplyAsync(() ->
+        {   try { return load(url); } catch (IOException e) { throw new CompletionException(e); }
+        },executor)));
+    }
+    return family;
+} //--------------------- end of family()
+
+//Lists base.properties and its siblings base_*.properties in the directory or jar of 'url'
+private static Map<String,URL> list(URL url,String base) throws Exception
+{
+    if (url == null) return Collections.emptyMap();
+    int pos = base.lastIndexOf('/');
+    String folder = base.substring(0,pos+1), prefix = base.substring(pos+1,base.length() - ".properties".length()) + "_";
+    Map<String,URL> family = new HashMap<String,URL>();
+    family.put(base,url);
+    if ("file".equals(url.getProtocol()))
+    {   Path parent = Paths.get(url.toURI()).getParent();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(parent,prefix + "*.properties"))
+        {   for (Path p : ds) if (Files.isRegularFile(p)) family.put(folder + p.getFileName(),p.toUri().toURL());
+        }
+        return family;
+    }
+    if ("jar".equals(url.getProtocol()))
+    {   URLConnection c = url.openConnection();
+        c.setUseCaches(false);
+        String root = url.toString().substring(0,url.toString().indexOf("!/") + 2);
+        try (JarFile jar = ((JarURLConnection)c).getJarFile())
+        {   for (Enumeration<JarEntry> en = jar.entries();en.hasMoreElements();)
+            {   String n = en.nextElement().getName();
+                if (n.startsWith(folder + prefix) && n.endsWith(".properties") && n.indexOf('/',folder.length()) < 0)
+                   family.put(n,new URL(root + n));
+            }
+        }
+        return family;
+    }
+    return Collections.emptyMap(); // unknown protocol: one lookup per candidate
+} //--------------------- end of list()
+
+//The URL of a resource: in 'dir' or from the class loader
+private URL resource(ClassLoader loader,String name)
+{
+    try
+    {   if (dir != null)
+        {   Path p = dir.resolve(name);
+            return Files.isRegularFile(p) ? p.toUri().toURL() : null;
+        }
+        return loader.getResource(name);
+    } catch (IOException e)
+    {   return null;
+    }
+} //--------------------- end of resource()
+
+//Parses a resource with loadProper(), no URL caching so a reload sees the new content
+private static Map<String,String> load(URL url) throws IOException
+{
+    try
+    {   if ("file".equals(url.getProtocol())) return toMap(Prop.loadProper(Paths.get(url.toURI())));
+        URLConnection c = url.openConnection();
+        c.setUseCaches(false);
+        try (InputStream in = c.getInputStream())
+        {   return toMap(Prop.loadProper(in));
+        }
+    } catch (Exception e)
+    {   String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropBundleControl: " + msg + " (Resource: " + url + ")");
+    }
+} //--------------------- end of load()
+
+private static long lastModified(URL url)
+{
+    try
+    {   if ("file".equals(url.getProtocol())) return Files.getLastModifiedTime(Paths.get(url.toURI())).toMillis();
+        URLConnection c = url.openConnection();
+        c.setUseCaches(false);
+        long t = c.getLastModified();
+        c.getInputStream().close();
+        return t;
+    } catch (Exception e)
+    {   return Long.MAX_VALUE; // unreadable: reload, the load reports the error
+    }
+} //--------------------- end of lastModified()
+
+//An unsynchronized copy, sized for the entries
+static Map<String,String> toMap(Properties props)
+{
+    Map<String,String> map = new HashMap<String,String>(Math.max(16,(int)(props.size() / 0.75f) + 1));
+    for (Map.Entry<Object,Object> e : props.entrySet()) map.put((String)e.getKey(),(String)e.getValue());
+    return map;
+} //--------------------- end of toMap()
+
+} //------------------------------------- end of class
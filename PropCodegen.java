@@ -0,0 +1,493 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <h3>Build-time generator of typed config classes from .properties files</h3>
+ * Reads a .properties file with {@link Prop#loadProper(Path, Properties...)} and writes a Java class with one typed
+ * field and accessor per key, initialized with the values of the file. A config read on the hot path is then a plain
+ * field load - no hash lookup, no parsing. Runtime overrides (e.g. System properties or a local file) are bound once:<br>
+ * AppConfig cfg = AppConfig.bind(System.getProperties());   or   AppConfig cfg = AppConfig.load(Paths.get("local.properties"));<br>
+ * int n = cfg.poolSize();   Duration t = cfg.dbTimeout();<br>
+ * The types are inferred from the values or declared with --type / --types:
+ * <ul>
+ * <li> int, long    An integer without leading zeros, e.g. 8080 - a value like 007 stays a String
+ * <li> boolean      true false yes no on off (ignoring case), 1 and 0 are accepted when binding
+ * <li> Duration     A number with unit ms s m h d, e.g. 30s, or ISO-8601 e.g. PT1M30S - a plain number is ms
+ * <li> double       Only if declared
+ * <li> String       All other values
+ * </ul>
+ * Usage: java de.noschu.shsutils.PropCodegen [options] file.properties<br>
+ * <ul>
+ * <li> --package p        The package of the class, default: none
+ * <li> --class Name       The class name, default: derived from the file name, e.g. app-config.properties: AppConfig
+ * <li> --out dir          The source root, the file is written to dir/package/Name.java - only if its content changed
+ * <li> --type key=type    Declares the type of a key, may be repeated
+ * <li> --types file       A .properties file with key=type lines
+ * <li> --expand           Applies {@link Prop#expandProperties(Properties)} to the defaults at build time
+ * <li> --unicode n        The unicode options of {@link Prop#loadProper(Path, int, Properties...)} for the file and
+ *                         for load() of the generated class, default: {@link Prop#getUnicodeOptions()}
+ * </ul>
+ * The generated class depends on this package for {@link Prop#loadProper(Path, EntryHandler)} and the parse methods.
+ * @since Last change: 2026.10.19
+ */
+public class PropCodegen
+{
+    /** The maximum number of keys of a generated class: each key costs bytecode in the constructor and in set() */
+    public static final int MAX_KEYS = 2000;
+
+    private static final Pattern INT = Pattern.compile("-?(0|[1-9][0-9]*)");
+    private static final Pattern DURATION = Pattern.compile("[0-9]+ ?(ms|s|m|min|h|d)|P(?:[0-9]+D)?(?:T(?:[0-9]+H)?(?:[0-9]+M)?(?:[0-9.]+S)?)?",Pattern.CASE_INSENSITIVE);
+    private static final Set<String> BOOLS = new HashSet<String>(Arrays.asList("true","false","yes","no","on","off"));
+    private static final Set<String> TYPES = new HashSet<String>(Arrays.asList("String","int","long","double","boolean","Duration"));
+    private static final Set<String> RESERVED = new HashSet<String>(Arrays.asList(
+        "abstract","assert","boolean","break","byte","case","catch","char","class","const","continue","default","do",
+        "double","else","enum","extends","final","finally","float","for","goto","if","implements","import","instanceof",
+        "int","interface","long","native","new","package","private","protected","public","return","short","static",
+        "strictfp","super","switch","synchronized","this","throw","throws","transient","try","void","volatile","while",
+        "true","false","null","var","yield","record","_",
+        "toString","hashCode","getClass","clone","finalize","notify","notifyAll","wait","toProperties",
+        // type names used in the generated expressions: a field of this name would obscure the type
+        "String","Double","Duration","Properties","Path","IOException","EntryHandler","Prop","PropCodegen"));
+
+/**
+ * Returns the type of a value as chosen by the generator without declaration
+ * @param value The value
+ * @return String, int, long, boolean or Duration
+ */
+public static String infer(String value)
+{
+    if (INT.matcher(value).matches())
+    {   try { Integer.parseInt(value); return "int"; } catch (NumberFormatException e) {}
+        try { Long.parseLong(value); return "long"; } catch (NumberFormatException e) {}
+        return "String";
+    }
+    if (BOOLS.contains(value.toLowerCase(Locale.ROOT))) return "boolean";
+    if (value.length() > 1 && DURATION.matcher(value).matches())
+    {   try { durationValue("",value); return "Duration"; } catch (IllegalArgumentException e) {}
+    }
+    return "String";
+} //--------------------- end of infer()
+
+/**
+ * Generates the source of a typed config class
+ * @param props The keys and default values
+ * @param pkg The package, may be null or empty
+ * @param className The simple class name
+ * @param types Declared types per key (String int long double boolean Duration), may be null - other keys are inferred
+ * @param source The name of the source file for the class comment, may be null
+ * @return The Java source
+ * @throws IllegalArgumentException If a declared type is unknown, refers to a missing key, or does not match the value
+ * @since Last change: 2026.10.19
+ */
+public static String generate(Properties props,String pkg,String className,Map<String,String> types,String source)
+{
+    return generate(props,pkg,className,types,source,Prop.getUnicodeOptions());
+} //--------------------- end of generate()
+
+/**
+ * Generates the source of a typed config class as {@link #generate(Properties, String, String, Map, String)}
+ * @param props The keys and default values
+ * @param pkg The package, may be null or empty
+ * @param className The simple class name
+ * @param types Declared types per key, may be null
+ * @param source The name of the source file for the class comment, may be null
+ * @param unicodeOptions The unicode options of load() in the generated class, see {@link Prop#setUnicodeOptions(int)}
+ * @return The Java source
+ * @throws IllegalArgumentException If a declared type is unknown, refers to a missing key, or does not match the value
+ * @since Last change: 2026.10.19
+ */
+public static String generate(Properties props,String pkg,String className,Map<String,String> types,String source,int unicodeOptions)
+{
+    if (types == null) types = Collections.emptyMap();
+    TreeMap<String,String> entries = new TreeMap<String,String>();
+    for (String k : props.stringPropertyNames()) entries.put(k,props.getProperty(k));
+    if (entries.size() > MAX_KEYS) throw new IllegalArgumentException("generate(): " + entries.size() + " keys, a class supports " + MAX_KEYS);
+    for (String k : types.keySet())
+    {   if (!entries.containsKey(k)) throw new IllegalArgumentException("generate(): Type declared for the missing key '" + k + "'");
+    }
+    //--- STEP: 1) Type, field and constant name per key
+    List<String[]> fields = new ArrayList<String[]>(); // key, value, type, field, constant
+    Set<String> used = new HashSet<String>(), usedConstants = new HashSet<String>(), usedTypes = new TreeSet<String>();
+    for (Map.Entry<String,String> e : entries.entrySet())
+    {
+        String type = types.containsKey(e.getKey()) ? typeName(types.get(e.getKey())) : infer(e.getValue());
+        String base = fieldName(e.getKey()), name = base;
+        for (int n=2;used.contains(name);n++) name = base + n;
+        used.add(name);
+        String cbase = constantName(name), constant = cbase; // e.g. a.b and AB: aB and AB, both KEY_A_B
+        for (int n=2;usedConstants.contains(constant);n++) constant = cbase + "_" + n;
+        usedConstants.add(constant);
+        fields.add(new String[] { e.getKey(), e.getValue(), type, name, constant });
+        usedTypes.add(type);
+    }
+    //--- STEP: 2) The class
+    StringBuilder sb = new StringBuilder(4096 + entries.size() * 400);
+    if (pkg != null && !pkg.isEmpty()) sb.append("package ").append(pkg).append(";\n\n");
+    sb.append("import java.io.IOException;\nimport java.nio.file.Path;\n");
+    if (usedTypes.contains("Duration")) sb.append("import java.time.Duration;\n");
+    sb.append("import java.util.Properties;\n\nimport de.noschu.shsutils.EntryHandler;\nimport de.noschu.shsutils.Prop;\n");
+    sb.append("import de.noschu.shsutils.PropCodegen;\n\n");
+    sb.append("/**\n * Typed config").append(source != null ? " of " + comment(source) : "")
+      .append(" - generated by de.noschu.shsutils.PropCodegen, do not edit.\n");
+    sb.append(" * The fields are initialized with the values of the file, bind() and load() overlay runtime overrides.\n");
+    sb.append(" * An instance is not thread safe while it is bound, publish it when it is complete.\n */\n");
+    sb.append("public final class ").append(className).append(" implements EntryHandler\n{\n");
+    for (String[] f : fields)
+       sb.append("    public static final String ").append(f[4]).append(" = ").append(quote(f[0])).append(";\n");
+    sb.append('\n');
+    for (String[] f : fields)
+       sb.append("    private ").append(f[2]).append(' ').append(f[3]).append(" = ").append(literal(f[0],f[1],f[2])).append(";\n");
+    sb.append("\n    /** Creates the config with the values of the file */\n    public ").append(className).append("() {}\n");
+    for (String[] f : fields)
+    {   sb.append("\n    /** @return ").append(comment(f[0])).append(" */\n");
+        sb.append("    public ").append(f[2]).append(' ').append(f[3]).append("() { return this.").append(f[3]).append("; }\n");
+    }
+    sb.append("\n    /**\n     * @param overrides Overlaid in the given order, unknown keys are ignored\n");
+    sb.append("     * @return A new config: the values of the file overlaid by 'overrides'\n");
+    sb.append("     * @throws IllegalArgumentException If a value does not match the type of its key\n     */\n");
+    sb.append("    public static ").append(className).append(" bind(Properties... overrides)\n    {\n");
+    sb.append("        ").append(className).append(" c = new ").append(className).append("();\n");
+    sb.append("        for (Properties p : overrides) c.overlay(p);\n        return c;\n    }\n");
+    sb.append("\n    /**\n     * @param propfile Loaded with Prop.loadProper() and overlaid, unknown keys are ignored\n");
+    sb.append("     * @return A new config: the values of the file overlaid by 'propfile'\n");
+    sb.append("     * @throws IOException If the file cannot be loaded or a value does not match the type of its key\n     */\n");
+    sb.append("    public static ").append(className).append(" load(Path propfile) throws IOException\n    {\n");
+    sb.append("        ").append(className).append(" c = new ").append(className).append("();\n");
+    sb.append("        Prop.loadProper(propfile,").append(unicodeOptions).append(",c);\n        return c;\n    }\n");
+    sb.append("\n    /**\n     * @param p The overrides, unknown keys are ignored\n     * @return this\n     */\n");
+    sb.append("    public ").append(className).append(" overlay(Properties p)\n    {\n");
+    sb.append("        for (String k : p.stringPropertyNames()) set(k,p.getProperty(k));\n        return this;\n    }\n");
+    sb.append("\n    @Override\n    public void entry(String key,String value) { set(key,value); }\n");
+    sb.append("\n    /**\n     * Sets one value\n     * @param key The key\n     * @param value The value as in a .properties file\n");
+    sb.append("     * @return false if the key is unknown\n");
+    sb.append("     * @throws IllegalArgumentException If 'value' does not match the type of 'key'\n     */\n");
+    sb.append("    public boolean set(String key,String value)\n    {\n        switch (key)\n        {\n");
+    for (String[] f : fields)
+       sb.append("        case ").append(quote(f[0])).append(": this.").append(f[3]).append(" = ").append(parse(f)).append("; return true;\n");
+    sb.append("        default: return false;\n        }\n    }\n");
+    sb.append("\n    /** @return The current values, Duration as ISO-8601 */\n");
+    sb.append("    public Properties toProperties()\n    {\n        Properties p = new Properties();\n");
+    for (String[] f : fields)
+       sb.append("        p.setProperty(").append(f[4]).append(',').append(f[2].equals("String") ? "this." + f[3] : "String.valueOf(this." + f[3] + ")").append(");\n");
+    sb.append("        return p;\n    }\n}\n");
+    return sb.toString();
+} //--------------------- end of generate()
+
+/**
+ * Generates the typed config class of a .properties file and writes it to 'outDir'/package/className.java - only if
+ * the content changed, so an incremental build does not recompile it
+ * @param propfile The .properties file, loaded with {@link Prop#loadProper(Path, Properties...)}
+ * @param outDir The source root
+ * @param pkg The package, may be null or empty
+ * @param className The class name, null: derived from the file name
+ * @param types Declared types per key, may be null
+ * @param expand true: {@link Prop#expandProperties(Properties)} is applied to the values
+ * @return The written file
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static Path generate(Path propfile,Path outDir,String pkg,String className,Map<String,String> types,boolean expand) throws IOException
+{
+    return generate(propfile,outDir,pkg,className,types,expand,Prop.getUnicodeOptions());
+} //--------------------- end of generate()
+
+/**
+ * Generates the typed config class of a .properties file as {@link #generate(Path, Path, String, String, Map, boolean)}
+ * @param propfile The .properties file, loaded with {@link Prop#loadProper(Path, int, Properties...)}
+ * @param outDir The source root
+ * @param pkg The package, may be null or empty
+ * @param className The class name, null: derived from the file name
+ * @param types Declared types per key, may be null
+ * @param expand true: {@link Prop#expandProperties(Properties)} is applied to the values
+ * @param unicodeOptions The unicode options for 'propfile' and for load() of the generated class
+ * @return The written file
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public static Path generate(Path propfile,Path outDir,String pkg,String className,Map<String,String> types,boolean expand,int unicodeOptions) throws IOException
+{
+    Properties props = Prop.loadProper(propfile,unicodeOptions);
+    if (expand) Prop.expandProperties(props,propfile);
+    if (className == null) className = className(propfile);
+    String src;
+    try
+    {   src = generate(props,pkg,className,types,propfile.getFileName().toString(),unicodeOptions);
+    } catch (IllegalArgumentException e)
+    {   throw new IOException(e.getMessage() + " (File: " + propfile + ")");
+    }
+    Path dir = (pkg == null || pkg.isEmpty()) ? outDir : outDir.resolve(pkg.replace('.',File.separatorChar));
+    Files.createDirectories(dir);
+    Path out = dir.resolve(className + ".java"), tmp = Prop.tempFor(out);
+    try
+    {   Files.write(tmp,src.getBytes(StandardCharsets.UTF_8));
+        Prop.replaceIfChanged(tmp,out,new ParseContext("PropCodegen",out));
+    } finally
+    {   Files.deleteIfExists(tmp);
+    }
+    return out;
+} //--------------------- end of generate()
+
+/**
+ * Runs the generator
+ * @param args Options and the .properties file, see the class description
+ * @throws IOException On error
+ */
+public static void main(String[] args) throws IOException
+{
+    String pkg = null, cls = null;   Path out = Paths.get("."), file = null;   boolean expand = false;
+    int unicode = Prop.getUnicodeOptions();
+    Map<String,String> types = new HashMap<String,String>();
+    for (int i=0;i < args.length;i++)
+    {
+        if ("--package".equals(args[i]) && i+1 < args.length) pkg = args[++i];
+        else if ("--class".equals(args[i]) && i+1 < args.length) cls = args[++i];
+        else if ("--out".equals(args[i]) && i+1 < args.length) out = Paths.get(args[++i]);
+        else if ("--expand".equals(args[i])) expand = true;
+        else if ("--unicode".equals(args[i]) && i+1 < args.length) unicode = Integer.parseInt(args[++i]);
+        else if ("--type".equals(args[i]) && i+1 < args.length)
+        {   String t = args[++i];   int pos = t.indexOf('=');
+            if (pos <= 0) throw new IllegalArgumentException("--type key=type expected: " + t);
+            types.put(t.substring(0,pos).trim(),t.substring(pos+1).trim());
+        }
+        else if ("--types".equals(args[i]) && i+1 < args.length)
+        {   Properties p = Prop.loadProper(Paths.get(args[++i]));
+            for (String k : p.stringPropertyNames()) types.put(k,p.getProperty(k).trim());
+        }
+        else file = Paths.get(args[i]);
+    }
+    if (file == null)
+    {   System.err.println("Usage: java de.noschu.shsutils.PropCodegen [--package p] [--class Name] [--out dir] [--type key=type]... [--types file] [--expand] [--unicode n] file.properties");
+        System.exit(2);
+    }
+    long mtime = 0;
+    Path target = (pkg == null || pkg.isEmpty()) ? out : out.resolve(pkg.replace('.',File.separatorChar));
+    target = target.resolve((cls != null ? cls : className(file)) + ".java");
+    if (Files.exists(target)) mtime = Files.getLastModifiedTime(target).toMillis();
+    Path written = generate(file,out,pkg,cls,types,expand,unicode);
+    System.err.println(written + (Files.getLastModifiedTime(written).toMillis() == mtime ? " unchanged" : " written"));
+} //--------------------- end of main()
+
+/**
+ * Parses an int value for binding
+ * @param key The key for the error message
+ * @param value The value
+ * @return The value
+ * @throws IllegalArgumentException If 'value' is not an int
+ */
+public static int intValue(String key,String value)
+{
+    try { return Integer.parseInt(value.trim()); } catch (NumberFormatException e) { throw invalid(key,value,"int"); }
+} //--------------------- end of intValue()
+
+/**
+ * Parses a long value for binding
+ * @param key The key for the error message
+ * @param value The value
+ * @return The value
+ * @throws IllegalArgumentException If 'value' is not a long
+ */
+public static long longValue(String key,String value)
+{
+    try { return Long.parseLong(value.trim()); } catch (NumberFormatException e) { throw invalid(key,value,"long"); }
+} //--------------------- end of longValue()
+
+/**
+ * Parses a double value for binding
+ * @param key The key for the error message
+ * @param value The value
+ * @return The value
+ * @throws IllegalArgumentException If 'value' is not a double
+ */
+public static double doubleValue(String key,String value)
+{
+    try { return Double.parseDouble(value.trim()); } catch (NumberFormatException e) { throw invalid(key,value,"double"); }
+} //--------------------- end of doubleValue()
+
+/**
+ * Parses a boolean value for binding: true yes on 1 - false no off 0, ignoring case as {@link Prop#getPropertyAsBool}
+ * @param key The key for the error message
+ * @param value The value
+ * @return The value
+ * @throws IllegalArgumentException If 'value' is not a boolean
+ */
+public static boolean boolValue(String key,String value)
+{
+    switch (value.trim().toLowerCase(Locale.ROOT))
+    {
+    case "true": case "yes": case "on": case "1":  return true;
+    case "false": case "no": case "off": case "0": return false;
+    default: throw invalid(key,value,"boolean");
+    }
+} //--------------------- end of boolValue()
+
+/**
+ * Parses a Duration value for binding: a number with the unit ms s m (or min) h d, a plain number is ms - or ISO-8601
+ * as accepted by Duration.parse(), e.g. PT1M30S
+ * @param key The key for the error message
+ * @param value The value
+ * @return The value
+ * @throws IllegalArgumentException If 'value' is not a Duration
+ */
+public static Duration durationValue(String key,String value)
+{
+    String s = value.trim();
+    int pos = 0, len = s.length();
+    while (pos < len && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') pos++;
+    try
+    {   if (pos == 0) return Duration.parse(s);
+        long n = Long.parseLong(s.substring(0,pos));
+        switch (s.substring(pos).trim().toLowerCase(Locale.ROOT))
+        {
+        case "": case "ms": return Duration.ofMillis(n);
+        case "s":           return Duration.ofSeconds(n);
+        case "m": case "min": return Duration.ofMinutes(n);
+        case "h":           return Duration.ofHours(n);
+        case "d":           return Duration.ofDays(n);
+        default:
+        }
+    } catch (RuntimeException e) {}
+    throw invalid(key,value,"Duration");
+} //--------------------- end of durationValue()
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+private static IllegalArgumentException invalid(String key,String value,String type)
+{
+    return new IllegalArgumentException("Key '" + key + "': invalid " + type + " value: '" + value + "'");
+} //--------------------- end of invalid()
+
+//Declared type name to Java type, e.g. bool -> boolean
+private static String typeName(String declared)
+{
+    String t = declared.trim();
+    if (t.equalsIgnoreCase("bool") || t.equalsIgnoreCase("boolean")) return "boolean";
+    if (t.equalsIgnoreCase("string")) return "String";
+    if (t.equalsIgnoreCase("duration")) return "Duration";
+    t = t.toLowerCase(Locale.ROOT);
+    if (!TYPES.contains(t)) throw new IllegalArgumentException("generate(): Unknown type '" + declared + "', supported: " + TYPES);
+    return t;
+} //--------------------- end of typeName()
+
+//The default value as Java expression, checked at build time
+private static String literal(String key,String value,String type)
+{
+    switch (type)
+    {
+    case "int":      return Integer.toString(intValue(key,value));
+    case "long":     return longValue(key,value) + "L";
+    case "boolean":  return Boolean.toString(boolValue(key,value));
+    case "double":
+        double d = doubleValue(key,value);
+        return Double.isFinite(d) ? Double.toString(d) : "Double.parseDouble(" + quote(Double.toString(d)) + ")";
+    case "Duration":
+        Duration t = durationValue(key,value);
+        return t.getNano() == 0 ? "Duration.ofSeconds(" + t.getSeconds() + "L)" : "Duration.ofSeconds(" + t.getSeconds() + "L," + t.getNano() + ")";
+    default:         return quote(value);
+    }
+} //--------------------- end of literal()
+
+//The expression in set() which converts 'value' to the type of field f
+private static String parse(String[] f)
+{
+    switch (f[2])
+    {
+    case "int":      return "PropCodegen.intValue(key,value)";
+    case "long":     return "PropCodegen.longValue(key,value)";
+    case "double":   return "PropCodegen.doubleValue(key,value)";
+    case "boolean":  return "PropCodegen.boolValue(key,value)";
+    case "Duration": return "PropCodegen.durationValue(key,value)";
+    default:         return "value";
+    }
+} //--------------------- end of parse()
+
+//db.pool-size -> dbPoolSize, 2nd.key -> _2ndKey, class -> class_
+private static String fieldName(String key)
+{
+    StringBuilder sb = new StringBuilder(key.length());
+    boolean upper = false;
+    for (int i=0;i < key.length();i++)
+    {   char c = key.charAt(i);
+        if (c < 0x80 && Character.isLetterOrDigit(c))
+        {   sb.append(upper && sb.length() > 0 ? Character.toUpperCase(c) : c);
+            upper = false;
+        }
+        else upper = true;
+    }
+    if (sb.length() == 0 || Character.isDigit(sb.charAt(0))) sb.insert(0,'_');
+    String s = sb.toString();
+    return RESERVED.contains(s) ? s + "_" : s;
+} //--------------------- end of fieldName()
+
+//dbPoolSize -> KEY_DB_POOL_SIZE, _2ndKey -> KEY_2ND_KEY, class_ -> KEY_CLASS
+private static String constantName(String field)
+{
+    StringBuilder sb = new StringBuilder("KEY_");
+    for (int i=0;i < field.length();i++)
+    {   char c = field.charAt(i);
+        if (c == '_') continue;
+        if (Character.isUpperCase(c) && sb.length() > 4) sb.append('_');
+        sb.append(Character.toUpperCase(c));
+    }
+    return sb.toString();
+} //--------------------- end of constantName()
+
+//app-config.properties -> AppConfig
+private static String className(Path propfile)
+{
+    String name = propfile.getFileName().toString();
+    int pos = name.lastIndexOf('.');
+    if (pos > 0) name = name.substring(0,pos);
+    String s = fieldName(name);
+    if (s.startsWith("_")) return "C" + s;
+    return Character.toUpperCase(s.charAt(0)) + s.substring(1).replace("_","");
+} //--------------------- end of className()
+
+//Java string literal, non ASCII chars as \\uXXXX
+private static String quote(String s)
+{
+    StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+    for (int i=0;i < s.length();i++)
+    {   char c = s.charAt(i);
+        switch (c)
+        {
+        case '"':  sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default:
+            if (c < 0x20 || c > 0x7e) sb.append(String.format("\\u%04x",(int)c)); else sb.append(c);
+        }
+    }
+    return sb.append('"').toString();
+} //--------------------- end of quote()
+
+//Text for a generated comment: no end of comment, no unicode escape
+private static String comment(String s)
+{
+    return s.replace("*/","*&#47;").replace("\\","&#92;");
+} //--------------------- end of comment()
+
+} //------------------------------------- end of class
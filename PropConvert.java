@@ -0,0 +1,338 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * <h3>Streaming conversion between the file formats supported by Prop</h3>
+ * A reader passes the entries of a file to a writer - without building a Properties container.<br>
+ * Unordered conversions keep nothing in memory but the current entry: a key, which appears more than
+ * once in the input is written more than once (loading the output gives the same result, the last one wins).
+ * Ordered conversions are sorted by the order of the writer e.g. the same order as storeProper(..., true)
+ * and storeInifile(). Above a memory budget sorted runs are spilled to temp files and merged.
+ * Example:<br>
+ * PropConvert.convert(PropConvert.reader(in,Format.INI),PropConvert.writer(out,Format.PROPERTIES,"converted"),64L &lt;&lt; 20);
+ * @since Last change: 2026.10.18
+ */
+public class PropConvert
+{
+/**
+ * The supported formats
+ */
+public enum Format
+{
+    /** .properties file as read by loadProper() and written by storeProper() */
+    PROPERTIES,
+    /** .ini file as read by loadFromIniFile() and written by storeInifile() */
+    INI,
+    /** properties .xml file (properties.dtd) as read and written by PropXml */
+    XML,
+    /** textfile as read by loadTextfile() */
+    TEXT,
+    /** key=value report as written by report() - no reader */
+    REPORT,
+    /** key;value report as written by report(...,true) - no reader */
+    CSV;
+
+    /**
+     * Determines the format by the file extension: .properties .ini .xml .txt .csv - a compression extension
+     * like .gz is skipped
+     * @param file The file
+     * @return The format
+     * @throws IllegalArgumentException If the extension is unknown
+     */
+    public static Format of(Path file)
+    {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (Compression.of(file) != Compression.NONE) name = name.substring(0,name.lastIndexOf('.'));
+        if (name.endsWith(".properties")) return PROPERTIES;
+        if (name.endsWith(".ini")) return INI;
+        if (name.endsWith(".xml")) return XML;
+        if (name.endsWith(".txt")) return TEXT;
+        if (name.endsWith(".csv")) return CSV;
+        throw new IllegalArgumentException("Unknown file format: " + file);
+    }
+} //--------------------- end of enum Format
+
+/**
+ * Source of a conversion: passes all entries to a handler
+ */
+@FunctionalInterface
+public interface EntryReader
+{
+    /**
+     * @param handler Receives each key/value pair
+     * @return Number of entries read
+     * @throws IOException On error
+     */
+    long read(EntryHandler handler) throws IOException;
+}
+
+/**
+ * Sink of a conversion: receives the entries, {@link #close()} completes the output
+ */
+public interface EntryWriter extends EntryHandler,Closeable
+{
+    /** @return The key order used for ordered conversions */
+    default Comparator<String> order() { return Comparator.naturalOrder(); }
+}
+
+/**
+ * Key order of .ini files as written by storeInifile(): keys with a capture (a dot) first, then the keys of [root]
+ */
+static final Comparator<String> INI_ORDER = (a,b) ->
+{
+    boolean ra = a.indexOf('.') == -1, rb = b.indexOf('.') == -1;
+    if (ra != rb) return ra ? 1 : -1;
+    return a.compareTo(b);
+};
+
+    private PropConvert() {}
+
+/**
+ * Creates a reader for a file
+ * @param file The input file
+ * @param fmt The input format
+ * @return The reader
+ * @throws IllegalArgumentException If there is no reader for 'fmt' (REPORT,CSV)
+ */
+public static EntryReader reader(Path file,Format fmt)
+{
+    switch (fmt)
+    {
+    case PROPERTIES: return h -> Prop.loadProper(file,h);
+    case INI:        return h -> Prop.loadFromIniFile(file,h);
+    case XML:        return h -> PropXml.load(file,h);
+    case TEXT:       return h -> Prop.loadTextfile(file,h);
+    default: throw new IllegalArgumentException("No reader for format " + fmt);
+    }
+} //--------------------- end of reader()
+
+/**
+ * Creates a writer for a file. The file is created immediately.
+ * @param file The output file, always UTF-8 encoded - compressed if the extension is .gz .zz or .deflate
+ * @param fmt The output format
+ * @param title A comment, may be null or empty - ignored by INI REPORT and CSV as with storeInifile() and report()
+ * @return The writer, must be closed
+ * @throws IOException On error
+ */
+public static EntryWriter writer(Path file,Format fmt,String title) throws IOException
+{
+    BufferedWriter bw = Compression.of(file).newWriter(file);
+    try
+    {   switch (fmt)
+        {
+        case PROPERTIES: return new ProperWriter(bw,title);
+        case INI:        return new IniWriter(bw);
+        case XML:
+            final PropXml.Writer xw = new PropXml.Writer(bw,title);
+            return new EntryWriter()
+            {   public void entry(String k,String v) throws IOException { xw.entry(k,v); }
+                public void close() throws IOException { xw.close(); }
+            };
+        case TEXT:       return new TextWriter(bw,title);
+        case REPORT:     return new ReportWriter(bw,false);
+        case CSV:        return new ReportWriter(bw,true);
+        default: throw new IllegalArgumentException("No writer for format " + fmt);
+        }
+    } catch (IOException | RuntimeException e) // e.g. the header of XML or the title cannot be written
+    {   try { bw.close(); } catch (IOException ee) { e.addSuppressed(ee); }
+        throw e;
+    }
+} //--------------------- end of writer()
+
+/**
+ * Unordered conversion: each entry is written as soon as it is read. 'sink' is closed.
+ * @param source The reader
+ * @param sink The writer
+ * @return Number of entries written
+ * @throws IOException On error
+ */
+public static long convert(EntryReader source,EntryWriter sink) throws IOException
+{
+    try (EntryWriter w = sink)
+    {   return source.read(w);
+    }
+} //--------------------- end of convert()
+
+/**
+ * Ordered conversion: entries are sorted by key in the order of 'sink' - with a memory budget.
+ * If a key is read more than once only the last value is written. 'sink' is closed.
+ * @param source The reader
+ * @param sink The writer
+ * @param memBudget Approx. heap bytes used for sorting, above that sorted runs are spilled to temp files
+ * @return Number of entries written
+ * @throws IOException On error
+ */
+public static long convert(EntryReader source,EntryWriter sink,long memBudget) throws IOException
+{
+    try (EntryWriter w = sink; ExternalSorter sorter = new ExternalSorter(sink.order(),memBudget,null))
+    {   source.read(sorter);
+        return sorter.finish(w);
+    }
+} //--------------------- end of convert()
+
+/**
+ * Converts a file, the formats are determined by the file extensions.
+ * @param in The input file
+ * @param out The output file
+ * @param sorted If true the output is sorted (budget: 64 MB)
+ * @return Number of entries written
+ * @throws IOException On error
+ * @see Format#of(Path)
+ */
+public static long convert(Path in,Path out,boolean sorted) throws IOException
+{
+    EntryReader r = reader(in,Format.of(in));
+    EntryWriter w = writer(out,Format.of(out),"Converted from " + in.getFileName());
+    if (sorted) return convert(r,w,ExternalSorter.DEFAULT_BUDGET);
+    return convert(r,w);
+} //--------------------- end of convert()
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: the writers
+/////////////////////////////////////////////////////////////////////////////////
+
+//Writes the .properties format of storeProper()
+static class ProperWriter implements EntryWriter
+{
+    final String EOL = System.getProperty("line.separator","\n");
+    final BufferedWriter bw;
+
+    //'date': the date comment, null: none
+    ProperWriter(Path file,String title,String date) throws IOException
+    {
+        this(Files.newBufferedWriter(file,StandardCharsets.UTF_8),title,date);
+    }
+
+    //The date comment of the default store options
+    ProperWriter(BufferedWriter bw,String title) throws IOException
+    {
+        this(bw,title,Prop.dateComment(Prop.getStoreOptions(),Prop.getStoreTimestamp()));
+    }
+
+    ProperWriter(BufferedWriter bw,String title,String date) throws IOException
+    {
+        this.bw = bw;
+        if (title != null && !title.isEmpty())  bw.write("#" + title + EOL);
+        if (date != null) bw.write("#" + date + EOL);
+    }
+
+    public void entry(String k,String v) throws IOException { bw.write(Prop.formatProper(k,v) + EOL); }
+    public void close() throws IOException { bw.close(); }
+} //--------------------- end of class ProperWriter
+
+//Writes the .ini format of storeInifile(): a capture is written each time it changes
+static class IniWriter implements EntryWriter
+{
+    final BufferedWriter bw;
+    String cur_category = "";
+    boolean inRoot = false;
+
+    IniWriter(Path file) throws IOException
+    {
+        this(Files.newBufferedWriter(file,StandardCharsets.UTF_8));
+    }
+
+    IniWriter(BufferedWriter bw) { this.bw = bw; }
+
+    public Comparator<String> order() { return INI_ORDER; }
+
+    public void entry(String key,String val) throws IOException
+    {
+        int pos = key.indexOf('.');
+        if (pos == -1) // will stored as [root]
+        {   if (!inRoot) { bw.write("[root]\r\n"); inRoot = true; cur_category = ""; }
+            bw.write(key + "=" + val + "\r\n");
+            return;
+        }
+        String category = key.substring(0,pos);
+        if (inRoot || !cur_category.equals(category))  // a category was found
+        {   bw.write("[" + category + "]\r\n");
+            cur_category = category;
+            inRoot = false;
+        }
+        bw.write(key.substring(pos+1) + "="  + val + "\r\n");
+    }
+
+    public void close() throws IOException { bw.close(); }
+} //--------------------- end of class IniWriter
+
+//Writes the format of loadTextfile(): values with leading/trailing white spaces or quotes are enclosed with quotes
+static class TextWriter implements EntryWriter
+{
+    final String EOL = System.getProperty("line.separator","\n");
+    final BufferedWriter bw;
+
+    TextWriter(Path file,String title) throws IOException
+    {
+        this(Files.newBufferedWriter(file,StandardCharsets.UTF_8),title);
+    }
+
+    TextWriter(BufferedWriter bw,String title) throws IOException
+    {
+        this.bw = bw;
+        if (title != null && !title.isEmpty())  bw.write("#" + title + EOL);
+    }
+
+    public void entry(String k,String v) throws IOException
+    {
+        if (k.indexOf('=') != -1 || k.startsWith("#") || !k.trim().equals(k) || containsEOL(k))
+           throw new IOException("Key cannot be stored in a textfile: '" + k + "'");
+        if (containsEOL(v))
+           throw new IOException("Value of key '" + k + "' contains a line break and cannot be stored in a textfile");
+        if (!v.trim().equals(v) || v.startsWith("\"")) v = '"' + v + '"';
+        bw.write(k + "=" + v + EOL);
+    }
+
+    public void close() throws IOException { bw.close(); }
+
+    private static boolean containsEOL(String s) { return s.indexOf('\n') != -1 || s.indexOf('\r') != -1; }
+} //--------------------- end of class TextWriter
+
+//Writes the format of report()
+static class ReportWriter implements EntryWriter
+{
+    final String EOL = "\r\n";
+    final BufferedWriter bw;
+    final boolean csv;
+    long many = 0;
+
+    ReportWriter(Path file,boolean csv) throws IOException
+    {
+        this(Files.newBufferedWriter(file,StandardCharsets.UTF_8),csv);
+    }
+
+    ReportWriter(BufferedWriter bw,boolean csv) { this.bw = bw; this.csv = csv; }
+
+    public void entry(String k,String v) throws IOException
+    {
+        bw.write(Prop.formatReport(k,v,csv) + EOL);
+        many++;
+    }
+
+    public void close() throws IOException
+    {
+        try { if (many == 0) bw.write("# The Properties container passed is null or empty" + EOL); }
+        finally { bw.close(); }
+    }
+} //--------------------- end of class ReportWriter
+
+} //------------------------------------- end of class
@@ -0,0 +1,312 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * <h3>Differential correctness and performance harness for the .properties loaders</h3>
+ * Generates random and adversarial .properties files and loads each one with all registered engines: the reference
+ * {@link Prop#loadWrapper(Path, Properties...)} (Properties.load() of the JDK) and loadProper(), its stream and
+ * channel variants, PropConvert, OffHeapProperties and PropValidator. Each result must equal the reference - a file
+ * rejected by the reference must be rejected by the engine too. Then each engine loads one large file per corpus, the
+ * time, allocated bytes and GC runs are reported as by {@link PropBench} - so all engines run on identical data.<br>
+ * A new parser is checked by adding it to {@link #ENGINES}. The generated keys are valid for loadProper(), the values
+ * use the full grammar. Usage: java de.noschu.shsutils.PropFuzz [options]<br>
+ * <ul>
+ * <li> --seed 1          Seed of the generator, the same seed generates the same files
+ * <li> --files 500       Number of small files per corpus for the differential check
+ * <li> --size 100000     Number of keys of the large file per corpus, 0 skips the performance part
+ * <li> --iters 5         Measured iterations per engine
+ * <li> --only regex      Runs only the corpora and engines whose name "corpus/engine" matches
+ * <li> --keep dir        Copies each file with a mismatch to 'dir'
+ * </ul>
+ * Corpora: random (UTF-8), latin1, bom (UTF-8 with BOM), utf16le and utf16be (with BOM), deepcont (long chains of
+ * continuation lines), backslash (runs of backslashes, odd and even, at the end of lines), surrogates (escaped and raw
+ * pairs, lone escaped surrogates), unicode (\\uXXXX escapes). The exit code is 1 if a mismatch was found.
+ * @since Last change: 2026.10.19
+ */
+public class PropFuzz
+{
+    /** A loader under test: returns the loaded entries */
+    @FunctionalInterface
+    public interface Engine { Map<String,String> load(Path file) throws Exception; }
+
+    /** The engines compared with the reference "loadWrapper", in the order of the report */
+    public static final Map<String,Engine> ENGINES = new LinkedHashMap<String,Engine>();
+    static
+    {
+        ENGINES.put("loadProper",f -> map(Prop.loadProper(f)));
+        ENGINES.put("loadProper(handler)",f -> { Map<String,String> m = new TreeMap<String,String>(); Prop.loadProper(f,(k,v) -> m.put(k,v)); return m; });
+        ENGINES.put("loadProper(stream)",f -> { try (InputStream in = Files.newInputStream(f)) { return map(Prop.loadProper(in)); } });
+        ENGINES.put("loadProper(channel)",f -> { try (FileChannel ch = FileChannel.open(f)) { return map(Prop.loadProper(ch)); } });
+        ENGINES.put("PropConvert",f -> { Map<String,String> m = new TreeMap<String,String>(); PropConvert.reader(f,PropConvert.Format.PROPERTIES).read((k,v) -> m.put(k,v)); return m; });
+        ENGINES.put("OffHeapProperties",f -> map(OffHeapProperties.load(f)));
+        ENGINES.put("PropValidator",f ->
+        {   List<PropValidator.Diagnostic> d = new ArrayList<PropValidator.Diagnostic>();
+            Properties p = PropValidator.loadLenient(f,d);
+            d.removeIf(x -> x.kind == PropValidator.Kind.DUPLICATE_KEY);
+            if (!d.isEmpty()) throw new IOException(d.get(0).toString());
+            return map(p);
+        });
+    }
+
+    static final String[] CORPORA = { "random", "latin1", "bom", "utf16le", "utf16be", "deepcont", "backslash", "surrogates", "unicode" };
+
+    private static final String KEY_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789._-";
+
+/**
+ * Runs the harness
+ * @param args Options, see the class description
+ * @throws Exception On error
+ */
+public static void main(String[] args) throws Exception
+{
+    long seed = 1;   int files = 500, size = 100000, iters = 5;   Pattern only = null;   Path keep = null;
+    for (int i=0;i < args.length-1;i += 2)
+    {
+        switch (args[i])
+        {
+        case "--seed":  seed = Long.parseLong(args[i+1]); break;
+        case "--files": files = Integer.parseInt(args[i+1]); break;
+        case "--size":  size = Integer.parseInt(args[i+1]); break;
+        case "--iters": iters = Integer.parseInt(args[i+1]); break;
+        case "--only":  only = Pattern.compile(args[i+1]); break;
+        case "--keep":  keep = Paths.get(args[i+1]); Files.createDirectories(keep); break;
+        default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+        }
+    }
+    Path dir = Files.createTempDirectory("propfuzz");
+    long mismatches = 0;
+try
+{
+    System.out.printf("%-40s %8s %10s%n","Differential check","files","mismatch");
+    for (String corpus : CORPORA)
+    {
+        Map<String,Integer> bad = new LinkedHashMap<String,Integer>();
+        Random rnd = new Random(seed * 31 + corpus.hashCode());
+        int checked = 0;
+        for (int n=0;n < files;n++)
+        {
+            Path file = dir.resolve(corpus + "_" + n + ".properties");
+            write(file,corpus,rnd,5 + rnd.nextInt(60));
+            Map<String,String> ref = null;   String refError = null;
+            try { ref = map(Prop.loadWrapper(file)); } catch (Exception e) { refError = e.getMessage(); }
+            checked++;
+            for (Map.Entry<String,Engine> en : ENGINES.entrySet())
+            {
+                String name = corpus + "/" + en.getKey();
+                if (only != null && !only.matcher(name).find()) continue;
+                String problem = compare(ref,refError,en.getValue(),file);
+                if (problem == null) continue;
+                int cnt = bad.merge(name,1,Integer::sum);
+                if (cnt <= 3) System.out.println("  MISMATCH " + name + " (" + file.getFileName() + "): " + problem);
+                if (keep != null) Files.copy(file,keep.resolve(file.getFileName()),java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.delete(file);
+        }
+        for (String en : ENGINES.keySet())
+        {   String name = corpus + "/" + en;
+            if (only != null && !only.matcher(name).find()) continue;
+            int cnt = bad.getOrDefault(name,0);
+            mismatches += cnt;
+            System.out.printf("%-40s %8d %10d%n",name,checked,cnt);
+        }
+    }
+    if (size > 0)
+    {
+        System.out.printf("%n%-40s %10s %12s %14s %5s%n","Benchmark","keys","ms/op","B/op","gc");
+        for (String corpus : CORPORA)
+        {
+            Path file = dir.resolve(corpus + "_large.properties");
+            write(file,corpus,new Random(seed),size);
+            if (only == null || only.matcher(corpus + "/loadWrapper").find())
+               PropBench.run(corpus + "/loadWrapper",size,iters,() -> Prop.loadWrapper(file));
+            for (Map.Entry<String,Engine> en : ENGINES.entrySet())
+            {   String name = corpus + "/" + en.getKey();
+                if (only != null && !only.matcher(name).find()) continue;
+                Engine e = en.getValue();
+                PropBench.run(name,size,iters,() -> e.load(file));
+            }
+            Files.delete(file);
+        }
+    }
+} finally
+{   PropBench.deleteAll(dir);
+}
+    System.out.println(mismatches == 0 ? "No mismatches" : mismatches + " mismatches");
+    if (mismatches > 0) System.exit(1);
+} //--------------------- end of main()
+
+/**
+ * Writes a generated .properties file
+ * @param file The output file
+ * @param corpus One of {@link #CORPORA}
+ * @param rnd The generator
+ * @param entries Number of entries
+ * @throws IOException On error
+ */
+static void write(Path file,String corpus,Random rnd,int entries) throws IOException
+{
+    Charset cs = StandardCharsets.UTF_8;   byte[] bom = new byte[0];
+    switch (corpus)
+    {
+    case "latin1":  cs = StandardCharsets.ISO_8859_1; break;
+    case "bom":     bom = new byte[] { (byte)0xEF,(byte)0xBB,(byte)0xBF }; break;
+    case "utf16le": cs = StandardCharsets.UTF_16LE;   bom = new byte[] { (byte)0xFF,(byte)0xFE }; break;
+    case "utf16be": cs = StandardCharsets.UTF_16BE;   bom = new byte[] { (byte)0xFE,(byte)0xFF }; break;
+    default:
+    }
+    String[] eols = { "\n", "\r\n", "\r" };
+    String eol = eols[rnd.nextInt(eols.length)];
+    StringBuilder sb = new StringBuilder(entries * 40);
+    // the first line decides the charset of loadWrapper(): a Latin-1 char which is not valid UTF-8
+    sb.append(cs == StandardCharsets.ISO_8859_1 ? "# latin1 \u00e4 file" : "# generated: " + corpus).append(eol);
+    for (int i=0;i < entries;i++)
+    {
+        switch (rnd.nextInt(12))
+        {
+        case 0: sb.append(eol); break;
+        case 1: sb.append(rnd.nextBoolean() ? "  " : "\t").append(rnd.nextBoolean() ? '#' : '!').append(" comment \\").append(eol); break;
+        case 2: sb.append(" \t ").append(eol); break;
+        default:
+        }
+        for (int b=rnd.nextInt(3);b > 0;b--) sb.append(rnd.nextBoolean() ? ' ' : '\t');
+        sb.append(key(rnd,i));
+        switch (rnd.nextInt(3))
+        {
+        case 0:  sb.append('='); break;
+        case 1:  sb.append(" = "); break;
+        default: sb.append(" =\t");        // loadProper() accepts only '=' and no control char in the key
+        }
+        value(sb,corpus,rnd,cs,eol);
+        sb.append(eol);
+    }
+    try (OutputStream out = Files.newOutputStream(file))
+    {   out.write(bom);
+        out.write(sb.toString().getBytes(cs));
+    }
+} //--------------------- end of write()
+
+//A key valid for loadProper(), 1 of 16 keys is a duplicate
+private static String key(Random rnd,int i)
+{
+    if (i > 0 && rnd.nextInt(16) == 0) return "k" + rnd.nextInt(i);
+    StringBuilder sb = new StringBuilder("k").append(i);
+    for (int n=rnd.nextInt(8);n > 0;n--) sb.append(KEY_CHARS.charAt(rnd.nextInt(KEY_CHARS.length())));
+    return sb.toString();
+} //--------------------- end of key()
+
+//Appends a value which uses the grammar parts of 'corpus'
+private static void value(StringBuilder sb,String corpus,Random rnd,Charset cs,String eol)
+{
+    boolean unicode = cs != StandardCharsets.ISO_8859_1;
+    int parts = corpus.equals("deepcont") ? 1 + rnd.nextInt(40) : rnd.nextInt(8);
+    for (int p=0;p < parts;p++)
+    {
+        int r = rnd.nextInt(10);
+        switch (corpus)
+        {
+        case "deepcont":
+            text(sb,rnd,unicode,1 + rnd.nextInt(6));
+            sb.append('\\').append(eol);
+            for (int b=rnd.nextInt(4);b > 0;b--) sb.append(rnd.nextBoolean() ? ' ' : '\t');
+            continue;
+        case "backslash":
+            if (r < 4)
+            {   int run = rnd.nextInt(7);
+                for (int b=0;b < run;b++) sb.append('\\');
+                if ((run & 1) != 0) sb.append(rnd.nextBoolean() ? "t" : eol + "  "); // an odd run escapes the next char
+                continue;
+            }
+            break;
+        case "surrogates":
+            if (r < 3) { sb.append(String.format("\\u%04x\\u%04X",0xD800 + rnd.nextInt(0x400),0xDC00 + rnd.nextInt(0x400))); continue; }
+            if (r < 4) { sb.append(String.format("\\u%04X",0xD800 + rnd.nextInt(0x800))); continue; } // lone
+            if (r < 6 && unicode) { sb.appendCodePoint(0x10000 + rnd.nextInt(0xF0000)); continue; }
+            break;
+        case "unicode":
+            if (r < 5) { int c = rnd.nextInt(0xD800); sb.append(String.format(rnd.nextBoolean() ? "\\u%04x" : "\\u%04X",c)); continue; }
+            break;
+        default:
+        }
+        if (r < 2) { sb.append(new String[] { "\\t", "\\n", "\\r", "\\f", "\\\\", "\\=", "\\:", "\\#", "\\!", "\\ " }[rnd.nextInt(10)]); continue; }
+        if (r < 3 && !corpus.equals("backslash")) { sb.append('\\').append(eol).append(rnd.nextBoolean() ? "   " : ""); continue; }
+        text(sb,rnd,unicode,1 + rnd.nextInt(12));
+    }
+    if (rnd.nextInt(8) == 0) sb.append("  "); // trailing blanks are part of the value
+    int end = sb.length();   // an odd number of backslashes at the end would join the next entry
+    int run = 0;
+    while (run < end && sb.charAt(end - 1 - run) == '\\') run++;
+    if ((run & 1) != 0) sb.append('\\');
+} //--------------------- end of value()
+
+//Plain chars: ASCII incl. '=', ':', '#', blanks - Latin-1 - BMP
+private static void text(StringBuilder sb,Random rnd,boolean unicode,int len)
+{
+    for (int i=0;i < len;i++)
+    {   int r = rnd.nextInt(20);
+        if (r == 0)      sb.append("=:#! ".charAt(rnd.nextInt(5)));
+        else if (r == 1) sb.append((char)(0xA0 + rnd.nextInt(0x60)));
+        else if (r == 2 && unicode) sb.append((char)(0x100 + rnd.nextInt(0xD700)));
+        else             sb.append((char)('a' + rnd.nextInt(26)));
+    }
+} //--------------------- end of text()
+
+//Returns null if 'engine' agrees with the reference, else a description of the first difference
+private static String compare(Map<String,String> ref,String refError,Engine engine,Path file)
+{
+    Map<String,String> got;
+    try
+    {   got = engine.load(file);
+    } catch (Exception e)
+    {   if (refError != null) return null; // both reject the file
+        return "rejected: " + e.getMessage();
+    }
+    if (refError != null) return "accepted, the reference rejected: " + refError;
+    if (got.equals(ref)) return null;
+    for (Map.Entry<String,String> e : ref.entrySet())
+    {   String v = got.get(e.getKey());
+        if (!e.getValue().equals(v)) return "key '" + e.getKey() + "': expected '" + show(e.getValue()) + "', got '" + (v == null ? "(missing)" : show(v)) + "'";
+    }
+    for (String k : got.keySet()) if (!ref.containsKey(k)) return "extra key '" + show(k) + "'";
+    return "differs";
+} //--------------------- end of compare()
+
+private static Map<String,String> map(Properties props)
+{
+    Map<String,String> m = new TreeMap<String,String>();
+    for (String k : props.stringPropertyNames()) m.put(k,props.getProperty(k));
+    return m;
+} //--------------------- end of map()
+
+//Control chars and non ASCII chars as \\uXXXX
+private static String show(String s)
+{
+    StringBuilder sb = new StringBuilder();
+    for (int i=0;i < s.length();i++)
+    {   char c = s.charAt(i);
+        if (c < ' ' || c > 0x7e) sb.append(String.format("\\u%04X",(int)c)); else sb.append(c);
+    }
+    return sb.toString();
+} //--------------------- end of show()
+
+} //------------------------------------- end of class
@@ -0,0 +1,173 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * <h3>Versioned history of a config with structural sharing</h3>
+ * Each revision is a {@link PersistentPropMap}: a new revision shares all unchanged entries with its predecessor, so
+ * it costs heap in the order of its changes - 1000 revisions of a config with 100k keys are not 100M entries.
+ * Any two revisions can be compared, any revision can be exported as .properties file. Example:<br>
+ * PropHistory hist = new PropHistory();<br>
+ * hist.load(Paths.get("app.properties"),"deploy 17");   ...   hist.load(Paths.get("app.properties"),"deploy 18");<br>
+ * hist.diff(0,1).forEach(System.out::println);   hist.export(0,Paths.get("rollback.properties"),"rev 0");
+ * @since Last change: 2026.10.19
+ */
+public class PropHistory
+{
+/**
+ * One revision
+ */
+public static final class Version
+{
+    /** The number of the revision, the first one is 0 */
+    public final int revision;
+    /** The creation time in ms since 1970 */
+    public final long time;
+    /** A comment, may be null */
+    public final String label;
+    /** The content */
+    public final PersistentPropMap map;
+
+    Version(int revision,long time,String label,PersistentPropMap map)
+    {   this.revision = revision; this.time = time; this.label = label; this.map = map;
+    }
+
+    @Override
+    public String toString() { return "rev " + revision + " " + new Date(time) + " (" + map.size() + " keys)" + (label != null ? ": " + label : ""); }
+} //--------------------- end of class Version
+
+/**
+ * One difference between two revisions
+ */
+public static final class Change
+{
+    public final String key;
+    /** The value in the older revision, null if the key was added */
+    public final String oldValue;
+    /** The value in the newer revision, null if the key was removed */
+    public final String newValue;
+
+    Change(String key,String oldValue,String newValue) { this.key = key; this.oldValue = oldValue; this.newValue = newValue; }
+
+    @Override
+    public String toString()
+    {   if (oldValue == null) return "+ " + key + "=" + newValue;
+        if (newValue == null) return "- " + key + "=" + oldValue;
+        return "~ " + key + "=" + oldValue + " -> " + newValue;
+    }
+} //--------------------- end of class Change
+
+    private final List<Version> versions = new ArrayList<Version>();
+
+/**
+ * Loads a revision of a .properties file with {@link Prop#loadProper(Path, EntryHandler)} as new revision: only the
+ * changed keys are copied into the new map
+ * @param propfile The file
+ * @param label A comment e.g. the release, may be null
+ * @return The new revision
+ * @throws IOException If the file cannot be loaded
+ * @since Last change: 2026.10.19
+ */
+public Version load(Path propfile,String label) throws IOException
+{
+    PersistentPropMap head = head().map;
+    PersistentPropMap[] m = { head };
+    Set<String> seen = new HashSet<String>(Math.max(16,head.size() * 2));
+    Prop.loadProper(propfile,(k,v) ->
+    {   m[0] = m[0].with(k,v); // returns the same map if the value is unchanged
+        seen.add(k);
+    });
+    head.forEach((k,v) -> { if (!seen.contains(k)) m[0] = m[0].without(k); });
+    return commit(m[0],label);
+} //--------------------- end of load()
+
+/**
+ * Adds a Properties container as new revision, only the changed keys are copied into the new map
+ * @param props The new content
+ * @param label A comment, may be null
+ * @return The new revision
+ * @since Last change: 2026.10.19
+ */
+public Version commit(Properties props,String label)
+{
+    PersistentPropMap head = head().map, m = head;
+    for (String k : props.stringPropertyNames()) m = m.with(k,props.getProperty(k));
+    PersistentPropMap[] r = { m };
+    head.forEach((k,v) -> { if (props.getProperty(k) == null) r[0] = r[0].without(k); });
+    return commit(r[0],label);
+} //--------------------- end of commit()
+
+/**
+ * Adds a map as new revision
+ * @param map The new content
+ * @param label A comment, may be null
+ * @return The new revision
+ */
+public synchronized Version commit(PersistentPropMap map,String label)
+{
+    Version v = new Version(versions.size(),System.currentTimeMillis(),label,Objects.requireNonNull(map,"map"));
+    versions.add(v);
+    return v;
+} //--------------------- end of commit()
+
+/**
+ * @return The latest revision - an empty one with number -1 if there is none
+ */
+public synchronized Version head()
+{
+    if (versions.isEmpty()) return new Version(-1,0,null,PersistentPropMap.EMPTY);
+    return versions.get(versions.size() - 1);
+} //--------------------- end of head()
+
+/**
+ * @param revision The number of the revision
+ * @return The revision
+ * @throws IndexOutOfBoundsException If there is no such revision
+ */
+public synchronized Version get(int revision) { return versions.get(revision); }
+
+/** @return The number of revisions */
+public synchronized int size() { return versions.size(); }
+
+/**
+ * Compares two revisions - shared entries are skipped, so two neighboring revisions are compared in about O(changes)
+ * @param from The older revision
+ * @param to The newer revision
+ * @return The changes from 'from' to 'to', not sorted
+ * @since Last change: 2026.10.19
+ */
+public List<Change> diff(int from,int to)
+{
+    List<Change> list = new ArrayList<Change>();
+    get(from).map.diff(get(to).map,(k,ov,nv) -> list.add(new Change(k,ov,nv)));
+    return list;
+} //--------------------- end of diff()
+
+/**
+ * Writes a revision with {@link Prop#storeProper(Properties, Path, String, boolean...)} sorted by key
+ * @param revision The number of the revision
+ * @param propfile The output file
+ * @param title A comment, may be null or empty
+ * @throws IOException On error
+ * @since Last change: 2026.10.19
+ */
+public void export(int revision,Path propfile,String title) throws IOException
+{
+    Prop.storeProper(get(revision).map.toProperties(),propfile,title,true);
+} //--------------------- end of export()
+
+} //------------------------------------- end of class
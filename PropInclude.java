@@ -0,0 +1,256 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h3>Loads a config split across many .properties files with include directives</h3>
+ * A line @include=common.properties, db/*.properties includes other files at its position: later entries override
+ * earlier ones, so keys in front of the directive may be overridden by the included files, keys behind it override
+ * them. The paths are relative to the including file, a glob (* ? [ ] { } and ** for subdirectories) matches the
+ * files in sorted order - no match is no error. Several directives per file are allowed. Example:<br>
+ * PropInclude inc = PropInclude.load(Paths.get("app.properties"),true,4);<br>
+ * Properties props = inc.properties();   PropInclude.Origin o = inc.origin("db.url"); // e.g. conf/db/prod.properties:12
+ * <ul>
+ * <li> The include graph is loaded in parallel: each file is parsed by {@link Prop#loadProper(Path, EntryHandler)}
+ *      rules as soon as its includer has been parsed
+ * <li> Each file is parsed once per load, even if it is included from many places
+ * <li> An include cycle is an error which names the chain and the file:line of the directive
+ * <li> ${...} references are expanded across the merged scope - an error names the file:line of the key
+ * </ul>
+ * @since Last change: 2026.10.19
+ */
+public class PropInclude
+{
+    /** The key of the include directive */
+    public static final String DIRECTIVE = "@include";
+
+/**
+ * The file and line where the value of a key was defined
+ */
+public static final class Origin
+{
+    public final Path file;
+    /** The natural line number, 1 based */
+    public final long line;
+    /** The definition which was overridden by this one, null if none */
+    public final Origin overridden;
+
+    Origin(Path file,long line,Origin overridden) { this.file = file; this.line = line; this.overridden = overridden; }
+
+    @Override
+    public String toString() { return file + ":" + line; }
+} //--------------------- end of class Origin
+
+    //One entry or one include directive of a parsed file
+    private static final class Item
+    {
+        final String key, value;
+        final long line;
+        final List<Path> targets; // null: an entry
+        Item(String key,String value,long line,List<Path> targets) { this.key = key; this.value = value; this.line = line; this.targets = targets; }
+    }
+
+    private final Properties props = new Properties();
+    private final Map<String,Origin> origins = new HashMap<String,Origin>();
+    private final List<Path> files = new ArrayList<Path>();
+
+    private PropInclude() {}
+
+/**
+ * Loads a file and all files it includes
+ * @param propfile The root file
+ * @param expand true: ${...} $[...] $%...% are expanded as by {@link Prop#expandProperties(Properties)} in the merged scope
+ * @param threads The number of threads parsing the files
+ * @return The merged result
+ * @throws IOException If a file cannot be parsed, an include is missing or cyclic, or a reference cannot be expanded.
+ * The message starts with file:line.
+ * @since Last change: 2026.10.19
+ */
+public static PropInclude load(Path propfile,boolean expand,int threads) throws IOException
+{
+    PropInclude inc = new PropInclude();
+    ConcurrentHashMap<Path,CompletableFuture<List<Item>>> parsed = new ConcurrentHashMap<Path,CompletableFuture<List<Item>>>();
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1,threads));
+    try
+    {
+        Path root = propfile.toAbsolutePath().normalize();
+        schedule(root,parsed,pool);
+        inc.merge(root,new ArrayDeque<Path>(),null,parsed);
+    } finally
+    {   pool.shutdownNow();
+    }
+    if (expand) inc.expand();
+    return inc;
+} //--------------------- end of load()
+
+/**
+ * @return The merged entries, without the directives
+ */
+public Properties properties() { return props; }
+
+/**
+ * @param key The key
+ * @return The file and line of its value, null if the key does not exist
+ */
+public Origin origin(String key) { return origins.get(key); }
+
+/**
+ * @return The files parsed, in the order of their first inclusion - the root file first
+ */
+public List<Path> files() { return Collections.unmodifiableList(files); }
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Starts parsing 'file' once per load, the includes found are scheduled by the worker - no thread waits for another
+private static CompletableFuture<List<Item>> schedule(Path file,ConcurrentHashMap<Path,CompletableFuture<List<Item>>> parsed,ExecutorService pool)
+{
+    return parsed.computeIfAbsent(file,f -> CompletableFuture.supplyAsync(() ->
+    {   try
+        {   List<Item> items = parse(f);
+            for (Item it : items)
+            {   if (it.targets != null) for (Path t : it.targets) schedule(t,parsed,pool);
+            }
+            return items;
+        } catch (IOException e)
+        {   throw new CompletionException(e);
+        }
+    },pool));
+} //--------------------- end of schedule()
+
+//Parses one file: the entries with their line numbers, the directives with their resolved files
+private static List<Item> parse(Path file) throws IOException
+{
+    List<Item> items = new ArrayList<Item>();
+    ParseContext ctx = new ParseContext("PropInclude",file);
+    try (InputStream in = Files.newInputStream(file))
+    {
+        Prop.readProper(Prop.newReader(ctx.count(in),ctx),(k,v) ->
+        {   if (!DIRECTIVE.equals(k)) { items.add(new Item(k,v,ctx.lineno,null)); return; }
+            List<Path> targets = new ArrayList<Path>();
+            for (String s : v.split(","))
+            {   if ( (s = s.trim()).isEmpty()) continue;
+                targets.addAll(resolve(file,s,ctx.lineno));
+            }
+            items.add(new Item(k,v,ctx.lineno,targets));
+        },ctx);
+        ctx.publish();
+        return items;
+    } catch (Exception e)
+    {   String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        if (msg != null && msg.startsWith(file + ":")) throw new IOException(msg); // from resolve()
+        throw new IOException(file + ":" + Math.max(1,ctx.lines) + ": " + msg);
+    }
+} //--------------------- end of parse()
+
+//The files of one include: a path or a glob relative to the directory of 'file'
+private static List<Path> resolve(Path file,String include,long line) throws IOException
+{
+    Path dir = file.getParent();
+    String spec = include.replace('\\','/');
+    int g = indexOfGlob(spec);
+    if (g < 0)
+    {   Path p = dir.resolve(spec).normalize();
+        if (!Files.isRegularFile(p)) throw new IOException(file + ":" + line + ": Included file not found: " + p);
+        return Collections.singletonList(p);
+    }
+    int slash = spec.lastIndexOf('/',g);
+    Path base = (slash < 0) ? dir : dir.resolve(spec.substring(0,slash)).normalize();
+    String pattern = spec.substring(slash + 1);
+    if (!Files.isDirectory(base)) return Collections.emptyList();
+    PathMatcher m = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    int depth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("/").length;
+    try (Stream<Path> s = Files.walk(base,depth))
+    {   List<Path> list = s.filter(p -> Files.isRegularFile(p) && m.matches(Paths.get(base.relativize(p).toString().replace('\\','/'))))
+                           .map(Path::normalize).sorted().collect(Collectors.toList());
+        if (list.isEmpty()) Prop.logger.log(Level.FINE,"{0}:{1}: No file matches: {2}",new Object[] {file,line,include});
+        return list;
+    }
+} //--------------------- end of resolve()
+
+private static int indexOfGlob(String s)
+{
+    for (int i=0;i < s.length();i++) if ("*?[{".indexOf(s.charAt(i)) >= 0) return i;
+    return -1;
+} //--------------------- end of indexOfGlob()
+
+//Applies the entries of 'file' and its includes in order, 'stack' holds the includers for the cycle check
+private void merge(Path file,Deque<Path> stack,Origin directive,ConcurrentHashMap<Path,CompletableFuture<List<Item>>> parsed) throws IOException
+{
+    if (stack.contains(file))
+    {   StringBuilder sb = new StringBuilder();
+        for (Iterator<Path> it = stack.descendingIterator();it.hasNext();) sb.append(it.next().getFileName()).append(" -> ");
+        throw new IOException(directive + ": Include cycle: " + sb + file.getFileName());
+    }
+    List<Item> items;
+    try
+    {   items = parsed.get(file).join();
+    } catch (CompletionException e)
+    {   Throwable c = e.getCause();
+        throw (c instanceof IOException) ? new IOException(c.getMessage()) : new IOException(c.toString());
+    }
+    if (!files.contains(file)) files.add(file);
+    stack.push(file);
+    for (Item it : items)
+    {   if (it.targets == null)
+        {   Origin prev = origins.get(it.key);
+            if (prev != null && prev.file.equals(file) && prev.line == it.line) prev = prev.overridden; // included twice
+            origins.put(it.key,new Origin(file,it.line,prev));
+            props.setProperty(it.key,it.value);
+            continue;
+        }
+        for (Path t : it.targets) merge(t,stack,new Origin(file,it.line,null),parsed);
+    }
+    stack.pop();
+} //--------------------- end of merge()
+
+//As Prop.expandProperties() - in the merged scope, an error names the origin of the key
+private void expand() throws IOException
+{
+    ParseContext ctx = new ParseContext("expandProperties",files.isEmpty() ? null : files.get(0));
+    int[] placeholders = new int[2];
+    String val, newval;   long many = 0;
+    for (String k : props.stringPropertyNames())
+    {
+        if ( (val = props.getProperty(k)) == null) continue;
+        if (!val.contains("${") && !val.contains("$%") && !val.contains("$[")) continue;
+        try
+        {   newval = Prop.expandHelper(k,val,props,placeholders);
+        } catch (IOException e)
+        {   throw new IOException(origins.get(k) + ": Cannot expand key '" + k + "': " + e.getMessage());
+        }
+        if (newval == null) continue;
+        if (ctx.trace != null) ctx.trace.add(String.valueOf(origins.get(k).file),origins.get(k).line,PropTrace.Kind.EXPAND,k,newval);
+        props.setProperty(k,newval);
+        many++;
+        ctx.record("placeholders",placeholders[0]);
+        ctx.record("depth",placeholders[1]);
+    }
+    ctx.entries = many;
+    ctx.publish();
+} //--------------------- end of expand()
+
+} //------------------------------------- end of class
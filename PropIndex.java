@@ -0,0 +1,671 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * <h3>Persistent inverted index of the keys of many .properties and .ini files</h3>
+ * Answers "which files set key K (to value V)?" without loading the files: key to file and line, optionally value
+ * tokens to keys. The files are parsed with the loaders of Prop in parallel - .properties files leniently, so a
+ * broken line does not hide the rest of the file. An update only parses the files whose size or modification time
+ * changed - with 'hash' a file whose content is unchanged (CRC32C) is not parsed either.<br>
+ * Queries run on a sorted key table: exact, prefix and glob ('*' and '?') key patterns. The index file holds the table
+ * with the posting lists (file and line) and an offset per key: an opened index reads only the table and binary searches
+ * it, the entries per file (the forward index) are read only by an update. The index file is limited to 2 GB.
+ * From the command line:<br>
+ * java de.noschu.shsutils.PropIndex --index idx.bin [--threads n] [--hash] [--values] dir... (build or update)<br>
+ * java de.noschu.shsutils.PropIndex --index idx.bin --key db.url|--prefix db.|--glob *.url [--value text]
+ * @since Last change: 2026.10.19
+ */
+public class PropIndex
+{
+    private static final int MAGIC = 0x50494458, VERSION = 2; // "PIDX"
+    private static final int TRAILER = 6 * 8 + 3 * 4;
+
+/**
+ * One occurrence of a key
+ */
+public static final class Hit
+{
+    public final Path file;
+    /** The line number (1 based) where the entry starts */
+    public final long line;
+    public final String key;
+
+    Hit(Path file,long line,String key) { this.file = file; this.line = line; this.key = key; }
+
+    @Override
+    public String toString() { return file + ":" + line + ": " + key; }
+} //--------------------- end of class Hit
+
+//The entries of one file: the forward index, it is saved and reused as long as the file is unchanged
+private static final class FileEntry
+{
+    final Path file;
+    final long mtime, size;
+    final int crc;
+    final String[] keys;
+    final int[] lines;
+    final String[][] tokens; // null if no value tokens
+    final String error;
+
+    FileEntry(Path file,long mtime,long size,int crc,String[] keys,int[] lines,String[][] tokens,String error)
+    {   this.file = file; this.mtime = mtime; this.size = size; this.crc = crc; this.keys = keys; this.lines = lines;
+        this.tokens = tokens; this.error = error;
+    }
+} //--------------------- end of class FileEntry
+
+//The sorted key and token tables of an opened index file, see save() - used by the queries until the next update
+private static final class Table
+{
+    Path source;
+    long size, forwardOff, tableOff;
+    Path[] paths;
+    ByteBuffer buf;   // from 'tableOff' to the trailer
+    int keys, tokens; // number of
+    int keyIndex, tokenIndex; // position of the offsets per key / token in 'buf'
+} //--------------------- end of class Table
+
+    private final boolean values;
+    private final StringPool pool = new StringPool(1 << 16);
+    private List<FileEntry> files = new ArrayList<FileEntry>(); // null: still in the index file, see forward()
+    private Table table = null;
+    //The inverted index, built on the first query after an update: posting = file index << 32 | entry index
+    private TreeMap<String,long[]> byKey = null;
+    private HashMap<String,long[]> byToken = null;
+
+/**
+ * @param values If true the tokens of the values are indexed too, see {@link #find(String, String)}
+ */
+public PropIndex(boolean values)
+{
+    this.values = values;
+}
+
+/**
+ * Opens an index saved by {@link #save(Path)}: reads the file names and the sorted key table - not the entries per
+ * file, they are read by the first update
+ * @param indexfile The index file
+ * @return The index
+ * @throws IOException On error, e.g. not an index file
+ * @since Last change: 2026.10.19
+ */
+public static PropIndex open(Path indexfile) throws IOException
+{
+    try (FileChannel ch = FileChannel.open(indexfile,StandardOpenOption.READ))
+    {
+        Table t = new Table();
+        t.source = indexfile;   t.size = ch.size();
+        if (t.size < 9 + TRAILER) throw new IOException("Not an index file");
+        ByteBuffer head = read(ch,0,9), trailer = read(ch,t.size - TRAILER,TRAILER);
+        if (head.getInt() != MAGIC || head.getInt() != VERSION) throw new IOException("Not an index file of version " + VERSION);
+        if (trailer.getInt(TRAILER - 4) != MAGIC) throw new IOException("Index file is truncated");
+        PropIndex idx = new PropIndex(head.get() != 0);
+        long filesOff = trailer.getLong();
+        t.forwardOff = trailer.getLong();   t.tableOff = trailer.getLong();
+        t.keyIndex = (int)(trailer.getLong() - t.tableOff);
+        trailer.getLong(); // the start of the token table
+        t.tokenIndex = (int)(trailer.getLong() - t.tableOff);
+        t.keys = trailer.getInt();   t.tokens = trailer.getInt();
+
+        ByteBuffer names = read(ch,filesOff,(int)(t.forwardOff - filesOff));
+        t.paths = new Path[names.getInt()];
+        for (int i=0;i < t.paths.length;i++) t.paths[i] = Paths.get(readString(names));
+        t.buf = read(ch,t.tableOff,(int)(t.size - TRAILER - t.tableOff));
+        idx.files = null;
+        idx.table = t;
+        return idx;
+    } catch (Exception e)
+    {
+        String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropIndex.open(): " + msg + " (file: " + indexfile + ")");
+    }
+} //--------------------- end of open()
+
+/**
+ * Writes the index via temp file and atomic move. The file holds: the file names, the entries per file (for updates),
+ * the sorted key table with the postings (file, entry, line) per key, the sorted token table and a trailer with the
+ * offsets of the blocks. The tables are followed by the offset of each record, so a query can binary search them.
+ * @param indexfile The index file
+ * @throws IOException On error, e.g. the index exceeds 2 GB
+ * @since Last change: 2026.10.19
+ */
+public synchronized void save(Path indexfile) throws IOException
+{
+    Path tmp = Prop.tempFor(indexfile);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp),1 << 16)))
+    {
+        forward();
+        if (byKey == null) buildInverted();
+        List<FileEntry> valid = new ArrayList<FileEntry>(files.size());
+        int[] remap = new int[files.size()]; // the postings refer to 'files', the saved ones to 'valid'
+        for (int i=0;i < files.size();i++)
+        {   remap[i] = valid.size();
+            if (files.get(i).error == null) valid.add(files.get(i));
+        }
+        out.writeInt(MAGIC);   out.writeInt(VERSION);   out.writeBoolean(values);
+        long filesOff = out.size();
+        out.writeInt(valid.size());
+        for (FileEntry f : valid) writeString(out,f.file.toString());
+
+        long forwardOff = out.size();
+        for (FileEntry f : valid)
+        {
+            out.writeLong(f.mtime);   out.writeLong(f.size);   out.writeInt(f.crc);
+            out.writeInt(f.keys.length);
+            for (int j=0;j < f.keys.length;j++)
+            {   writeString(out,f.keys[j]);
+                out.writeInt(f.lines[j]);
+                if (values)
+                {   out.writeInt(f.tokens[j].length);
+                    for (String t : f.tokens[j]) writeString(out,t);
+                }
+            }
+        }
+        long keyOff = out.size();
+        int[] offsets = new int[byKey.size()];   int i = 0;
+        for (Map.Entry<String,long[]> e : byKey.entrySet())
+        {   offsets[i++] = (int)(out.size() - keyOff);
+            writeString(out,e.getKey());
+            out.writeInt(e.getValue().length);
+            for (long x : e.getValue())
+            {   int file = (int)(x >>> 32);
+                out.writeInt(remap[file]);   out.writeInt((int)x);   out.writeInt(files.get(file).lines[(int)x]);
+            }
+        }
+        long keyIndexOff = out.size();
+        for (int o : offsets) out.writeInt(o);
+
+        long tokenOff = out.size();
+        TreeMap<String,long[]> sorted = new TreeMap<String,long[]>(byToken);
+        offsets = new int[sorted.size()];   i = 0;
+        for (Map.Entry<String,long[]> e : sorted.entrySet())
+        {   offsets[i++] = (int)(out.size() - keyOff); // relative to the key table, as the table is read as one block
+            writeString(out,e.getKey());
+            out.writeInt(e.getValue().length);
+            for (long x : e.getValue()) out.writeLong((long)remap[(int)(x >>> 32)] << 32 | (x & 0xFFFFFFFFL));
+        }
+        long tokenIndexOff = out.size();
+        for (int o : offsets) out.writeInt(o);
+
+        if (out.size() >= Integer.MAX_VALUE - TRAILER) throw new IOException("Index exceeds 2 GB");
+        out.writeLong(filesOff);   out.writeLong(forwardOff);   out.writeLong(keyOff);   out.writeLong(keyIndexOff);
+        out.writeLong(tokenOff);   out.writeLong(tokenIndexOff);
+        out.writeInt(byKey.size());   out.writeInt(sorted.size());   out.writeInt(MAGIC);
+    } catch (Exception e)
+    {
+        try { Files.deleteIfExists(tmp); } catch (Exception ee) {}
+        String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropIndex.save(): " + msg + " (file: " + indexfile + ")");
+    }
+    try
+    {   Files.move(tmp,indexfile,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e)
+    {   Files.move(tmp,indexfile,StandardCopyOption.REPLACE_EXISTING);
+    }
+} //--------------------- end of save()
+
+/**
+ * Brings the index up to date with 'list': unchanged files are reused, changed and new files are parsed in
+ * parallel, files not in 'list' are dropped. Files ending with .ini are read by loadFromIniFile(), all others
+ * as .properties files.
+ * @param list The files to be indexed
+ * @param threads The number of threads, e.g. Runtime.getRuntime().availableProcessors()
+ * @param hash If true a file whose size is unchanged is compared by content hash - not by modification time
+ * @return The number of files parsed
+ * @throws IOException If interrupted
+ * @since Last change: 2026.10.19
+ */
+public synchronized int update(Collection<Path> list,int threads,boolean hash) throws IOException
+{
+    forward();
+    Map<Path,FileEntry> old = new HashMap<Path,FileEntry>();
+    for (FileEntry f : files) old.put(f.file,f);
+
+    ExecutorService exec = Executors.newFixedThreadPool(Math.max(1,threads));
+    try
+    {
+        List<Future<FileEntry>> futures = new ArrayList<Future<FileEntry>>(list.size());
+        for (Path p : list) futures.add(exec.submit(() -> index(p,old.get(p),hash)));
+
+        List<FileEntry> result = new ArrayList<FileEntry>(list.size());
+        int parsed = 0;
+        for (Future<FileEntry> f : futures)
+        {   FileEntry fe = f.get();
+            FileEntry o = old.get(fe.file);
+            if (o == null || fe.keys != o.keys) parsed++;
+            result.add(fe);
+        }
+        files = result;
+        byKey = null;   byToken = null;   table = null;
+        return parsed;
+
+    } catch (InterruptedException e)
+    {   Thread.currentThread().interrupt();
+        throw new IOException("PropIndex.update(): interrupted");
+    } catch (ExecutionException e)
+    {   throw new IOException("PropIndex.update(): " + e.getCause());
+    } finally
+    {   exec.shutdownNow();
+    }
+} //--------------------- end of update()
+
+/**
+ * As {@link #update(Collection, int, boolean)} for all *.properties and *.ini files of a directory tree
+ * @param dir The root directory
+ * @param threads The number of threads
+ * @param hash If true unchanged files are detected by content hash
+ * @return The number of files parsed
+ * @throws IOException If the tree cannot be walked
+ * @since Last change: 2026.10.19
+ */
+public int updateTree(Path dir,int threads,boolean hash) throws IOException
+{
+    List<Path> list;
+    try (Stream<Path> s = Files.walk(dir))
+    {   list = s.filter(p -> (p.toString().endsWith(".properties") || p.toString().endsWith(".ini")) && Files.isRegularFile(p))
+                .sorted().collect(Collectors.toList());
+    } catch (Exception e)
+    {   String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropIndex.updateTree(): " + msg + " (dir: " + dir + ")");
+    }
+    return update(list,threads,hash);
+} //--------------------- end of updateTree()
+
+/**
+ * @param key The key
+ * @return All occurrences of 'key'
+ */
+public List<Hit> findKey(String key)
+{
+    return find(key,null);
+}
+
+/**
+ * @param prefix The start of the keys e.g. "db."
+ * @return All occurrences of the keys starting with 'prefix', sorted by key
+ */
+public List<Hit> findPrefix(String prefix)
+{
+    return find(prefix + "*",null);
+}
+
+/**
+ * @param glob A key pattern, '*' matches any chars, '?' one char e.g. "*.url"
+ * @return All occurrences of the matching keys, sorted by key
+ */
+public List<Hit> findGlob(String glob)
+{
+    return find(glob,null);
+}
+
+/**
+ * Finds the entries with a matching key and value, e.g. find("db.url","prod-db.example.com")
+ * @param glob A key pattern, '*' matches any chars, '?' one char
+ * @param value Null for any value, else each token of 'value' (letters, digits, '.', '-', '_', case ignored)
+ * must occur in the value - requires an index built with value tokens
+ * @return The occurrences, sorted by key
+ * @since Last change: 2026.10.19
+ */
+public synchronized List<Hit> find(String glob,String value)
+{
+    if (value != null && !values) throw new IllegalStateException("PropIndex: value tokens are not indexed");
+    if (byKey == null && table == null) buildInverted();
+
+    int wild = indexOfWildcard(glob);
+    Pattern pat = (wild < 0 || wild == glob.length() - 1 && glob.charAt(wild) == '*') ? null : globToRegex(glob);
+
+    Set<Long> allowed = null;
+    if (value != null)
+    {   for (String t : tokens(value))
+        {   long[] p = (byToken != null) ? byToken.get(t) : tokenPostings(t);
+            Set<Long> s = new HashSet<Long>();
+            if (p != null) for (long x : p) s.add(x);
+            if (allowed == null) allowed = s; else allowed.retainAll(s);
+        }
+        if (allowed == null) allowed = Collections.emptySet();
+    }
+    List<Hit> hits = new ArrayList<Hit>();
+    if (byKey == null) return findInTable(glob,wild,pat,allowed,hits);
+
+    SortedMap<String,long[]> range;
+    if (wild < 0) range = byKey.containsKey(glob) ? byKey.subMap(glob,true,glob,true) : Collections.<String,long[]>emptySortedMap();
+    else          range = byKey.subMap(glob.substring(0,wild),true,glob.substring(0,wild) + Character.MAX_VALUE,true);
+    for (Map.Entry<String,long[]> e : range.entrySet())
+    {
+        if (pat != null && !pat.matcher(e.getKey()).matches()) continue;
+        for (long x : e.getValue())
+        {   if (allowed != null && !allowed.contains(x)) continue;
+            FileEntry f = files.get((int)(x >>> 32));
+            hits.add(new Hit(f.file,f.lines[(int)x],e.getKey()));
+        }
+    }
+    return hits;
+} //--------------------- end of find()
+
+/** @return The number of indexed files */
+public synchronized int fileCount() { return (files != null) ? files.size() : table.paths.length; }
+
+/** @return The number of distinct keys */
+public synchronized int keyCount()
+{
+    if (byKey == null && table != null) return table.keys;
+    if (byKey == null) buildInverted();
+    return byKey.size();
+}
+
+/**
+ * @return The files which could not be read with their error messages
+ */
+public synchronized Map<Path,String> errors()
+{
+    Map<Path,String> map = new LinkedHashMap<Path,String>();
+    if (files != null) for (FileEntry f : files) if (f.error != null) map.put(f.file,f.error); // a saved index has none
+    return map;
+}
+
+/**
+ * Command line, see the class description
+ * @param args See above
+ * @throws Exception On error
+ */
+public static void main(String[] args) throws Exception
+{
+    int threads = Runtime.getRuntime().availableProcessors();   boolean hash = false, vals = false;
+    Path index = null;   String glob = null, value = null;
+    List<Path> dirs = new ArrayList<Path>();
+    for (int i=0;i < args.length;i++)
+    {
+        if ("--index".equals(args[i]) && i+1 < args.length) index = Paths.get(args[++i]);
+        else if ("--threads".equals(args[i]) && i+1 < args.length) threads = Integer.parseInt(args[++i]);
+        else if ("--hash".equals(args[i])) hash = true;
+        else if ("--values".equals(args[i])) vals = true;
+        else if ("--key".equals(args[i]) && i+1 < args.length) glob = args[++i];
+        else if ("--prefix".equals(args[i]) && i+1 < args.length) glob = args[++i] + "*";
+        else if ("--glob".equals(args[i]) && i+1 < args.length) glob = args[++i];
+        else if ("--value".equals(args[i]) && i+1 < args.length) value = args[++i];
+        else dirs.add(Paths.get(args[i]));
+    }
+    if (index == null || (dirs.isEmpty() && glob == null))
+    {   System.err.println("Usage: java de.noschu.shsutils.PropIndex --index idx.bin [--threads n] [--hash] [--values] dir...");
+        System.err.println("       java de.noschu.shsutils.PropIndex --index idx.bin --key k|--prefix p|--glob g [--value text]");
+        System.exit(2);
+    }
+    PropIndex idx = Files.exists(index) ? open(index) : new PropIndex(vals);
+    if (!dirs.isEmpty())
+    {   long t0 = System.nanoTime();   int parsed = 0;
+        List<Path> list = new ArrayList<Path>();
+        for (Path d : dirs)
+        {   try (Stream<Path> s = Files.walk(d))
+            {   list.addAll(s.filter(p -> (p.toString().endsWith(".properties") || p.toString().endsWith(".ini")) && Files.isRegularFile(p))
+                             .sorted().collect(Collectors.toList()));
+            }
+        }
+        parsed = idx.update(list,threads,hash);
+        idx.save(index);
+        System.err.println(idx.fileCount() + " files indexed, " + parsed + " parsed, " + idx.errors().size() + " errors in "
+                           + (System.nanoTime() - t0) / 1000000 + " ms");
+        for (Map.Entry<Path,String> e : idx.errors().entrySet()) System.err.println(e.getKey() + ": " + e.getValue());
+    }
+    if (glob != null)
+    {   long t0 = System.nanoTime();
+        List<Hit> hits = idx.find(glob,value);
+        for (Hit h : hits) System.out.println(h);
+        System.err.println(hits.size() + " hits in " + (System.nanoTime() - t0) / 1000 + " us");
+    }
+} //--------------------- end of main()
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Invoked in parallel by update(): returns 'old' if the file is unchanged, else the newly parsed entries
+private FileEntry index(Path file,FileEntry old,boolean hash)
+{
+    long mtime = -1, size = -1;
+    try
+    {
+        BasicFileAttributes attr = Files.readAttributes(file,BasicFileAttributes.class);
+        mtime = attr.lastModifiedTime().toMillis();   size = attr.size();
+        if (old != null && old.error == null && old.size == size)
+        {   if (old.mtime == mtime) return old;
+            if (hash && crc(file) == old.crc)
+                return new FileEntry(file,mtime,size,old.crc,old.keys,old.lines,old.tokens,null);
+        }
+        List<String> keys = new ArrayList<String>();   List<Integer> lines = new ArrayList<Integer>();
+        List<String[]> toks = values ? new ArrayList<String[]>() : null;
+        CRC32C crc = new CRC32C();
+        String name = file.getFileName().toString();
+        try (InputStream in = new CheckedInputStream(Files.newInputStream(file),crc))
+        {
+            boolean ini = name.endsWith(".ini");
+            ParseContext ctx = new ParseContext(ini ? "PropIndex.ini" : "PropIndex",file);
+            if (!ini) ctx.diagnostics = new ArrayList<PropValidator.Diagnostic>(); // lenient: broken lines are skipped
+            EntryHandler h = (k,v) ->
+            {   keys.add(pool.intern(k));
+                lines.add((int)ctx.lineno);
+                if (toks != null) toks.add(tokens(v).toArray(new String[0]));
+            };
+            BufferedReader br = Prop.newReader(ctx.count(in),ctx);
+            if (ini) Prop.readIni(br,h,new String[] { "" },ctx);
+            else     Prop.readProper(br,h,ctx);
+            ctx.publish();
+            while (in.read() >= 0) {} // the checksum covers the whole file, e.g. bytes after the GZIP stream
+        }
+        int[] ln = new int[lines.size()];
+        for (int i=0;i < ln.length;i++) ln[i] = lines.get(i);
+        return new FileEntry(file,mtime,size,(int)crc.getValue(),keys.toArray(new String[0]),ln,
+                             toks == null ? null : toks.toArray(new String[0][]),null);
+    } catch (Exception e)
+    {
+        String msg; if (e.getClass() == IOException.class) msg = e.getMessage(); else msg = e.toString();
+        return new FileEntry(file,mtime,size,0,new String[0],new int[0],values ? new String[0][] : null,msg);
+    }
+} //--------------------- end of index()
+
+//Reads the entries per file of an opened index, they are needed by update() and save()
+private void forward() throws IOException
+{
+    if (files != null) return;
+    Table t = table;
+    ByteBuffer buf;
+    try (FileChannel ch = FileChannel.open(t.source,StandardOpenOption.READ))
+    {   if (ch.size() != t.size) throw new IOException("PropIndex: index file changed since open (file: " + t.source + ")");
+        buf = read(ch,t.forwardOff,(int)(t.tableOff - t.forwardOff));
+    }
+    List<FileEntry> list = new ArrayList<FileEntry>(t.paths.length);
+    for (Path file : t.paths)
+    {
+        long mtime = buf.getLong(), size = buf.getLong();   int crc = buf.getInt();
+        int m = buf.getInt();
+        String[] keys = new String[m];   int[] lines = new int[m];   String[][] tokens = values ? new String[m][] : null;
+        for (int j=0;j < m;j++)
+        {   keys[j] = pool.intern(readString(buf));
+            lines[j] = buf.getInt();
+            if (tokens != null)
+            {   tokens[j] = new String[buf.getInt()];
+                for (int k=0;k < tokens[j].length;k++) tokens[j][k] = pool.intern(readString(buf));
+            }
+        }
+        list.add(new FileEntry(file,mtime,size,crc,keys,lines,tokens,null));
+    }
+    files = list;
+} //--------------------- end of forward()
+
+//find() on the table of an opened index: the first key >= the literal prefix of 'glob' is binary searched
+private List<Hit> findInTable(String glob,int wild,Pattern pat,Set<Long> allowed,List<Hit> hits)
+{
+    ByteBuffer buf = table.buf;
+    String prefix = wild < 0 ? glob : glob.substring(0,wild);
+    for (int i = lowerBound(table.keyIndex,table.keys,prefix);i < table.keys;i++)
+    {
+        int p = buf.getInt(table.keyIndex + 4 * i);
+        String key = stringAt(buf,p);
+        if (wild < 0 ? !key.equals(glob) : !key.startsWith(prefix)) break;
+        if (pat != null && !pat.matcher(key).matches()) continue;
+        p += 4 + buf.getInt(p);
+        int n = buf.getInt(p);   p += 4;
+        for (int j=0;j < n;j++,p += 12)
+        {   int file = buf.getInt(p), entry = buf.getInt(p + 4);
+            if (allowed != null && !allowed.contains((long)file << 32 | entry)) continue;
+            hits.add(new Hit(table.paths[file],buf.getInt(p + 8),key));
+        }
+    }
+    return hits;
+} //--------------------- end of findInTable()
+
+//The postings of a token in the table of an opened index, null if none
+private long[] tokenPostings(String token)
+{
+    ByteBuffer buf = table.buf;
+    int i = lowerBound(table.tokenIndex,table.tokens,token);
+    if (i >= table.tokens) return null;
+    int p = buf.getInt(table.tokenIndex + 4 * i);
+    if (!stringAt(buf,p).equals(token)) return null;
+    p += 4 + buf.getInt(p);
+    long[] a = new long[buf.getInt(p)];
+    for (int j=0;j < a.length;j++) a[j] = buf.getLong(p + 4 + 8 * j);
+    return a;
+} //--------------------- end of tokenPostings()
+
+//The index of the first record >= 'key' in the sorted table whose record offsets start at 'index'
+private int lowerBound(int index,int n,String key)
+{
+    int lo = 0, hi = n;
+    while (lo < hi)
+    {   int mid = (lo + hi) >>> 1;
+        if (stringAt(table.buf,table.buf.getInt(index + 4 * mid)).compareTo(key) < 0) lo = mid + 1; else hi = mid;
+    }
+    return lo;
+} //--------------------- end of lowerBound()
+
+//Builds the inverted index from the entries of all files
+private void buildInverted()
+{
+    HashMap<String,List<Long>> keys = new HashMap<String,List<Long>>();
+    HashMap<String,List<Long>> toks = values ? new HashMap<String,List<Long>>() : null;
+    for (int i=0;i < files.size();i++)
+    {   FileEntry f = files.get(i);
+        for (int j=0;j < f.keys.length;j++)
+        {   long posting = (long)i << 32 | j;
+            keys.computeIfAbsent(f.keys[j],k -> new ArrayList<Long>(2)).add(posting);
+            if (toks != null) for (String t : f.tokens[j]) toks.computeIfAbsent(t,k -> new ArrayList<Long>(2)).add(posting);
+        }
+    }
+    byKey = new TreeMap<String,long[]>();
+    for (Map.Entry<String,List<Long>> e : keys.entrySet()) byKey.put(e.getKey(),toArray(e.getValue()));
+    byToken = new HashMap<String,long[]>();
+    if (toks != null) for (Map.Entry<String,List<Long>> e : toks.entrySet()) byToken.put(e.getKey(),toArray(e.getValue()));
+} //--------------------- end of buildInverted()
+
+private static long[] toArray(List<Long> list)
+{
+    long[] a = new long[list.size()];
+    for (int i=0;i < a.length;i++) a[i] = list.get(i);
+    return a;
+} //--------------------- end of toArray()
+
+//The distinct tokens of a value: runs of letters, digits, '.', '-' and '_' in lower case
+private static Set<String> tokens(String value)
+{
+    Set<String> set = new LinkedHashSet<String>();
+    int len = value.length(), st = -1;
+    for (int i=0;i <= len;i++)
+    {   char c = i < len ? value.charAt(i) : ' ';
+        boolean tok = Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_';
+        if (tok && st < 0) st = i;
+        else if (!tok && st >= 0) { set.add(value.substring(st,i).toLowerCase(Locale.ROOT)); st = -1; }
+    }
+    return set;
+} //--------------------- end of tokens()
+
+private static int indexOfWildcard(String glob)
+{
+    for (int i=0;i < glob.length();i++) if (glob.charAt(i) == '*' || glob.charAt(i) == '?') return i;
+    return -1;
+} //--------------------- end of indexOfWildcard()
+
+private static Pattern globToRegex(String glob)
+{
+    StringBuilder sb = new StringBuilder();   int st = 0;
+    for (int i=0;i < glob.length();i++)
+    {   char c = glob.charAt(i);
+        if (c != '*' && c != '?') continue;
+        if (i > st) sb.append(Pattern.quote(glob.substring(st,i)));
+        sb.append(c == '*' ? ".*" : ".");
+        st = i + 1;
+    }
+    if (st < glob.length()) sb.append(Pattern.quote(glob.substring(st)));
+    return Pattern.compile(sb.toString(),Pattern.DOTALL);
+} //--------------------- end of globToRegex()
+
+private static int crc(Path file) throws IOException
+{
+    CRC32C crc = new CRC32C();
+    byte[] buf = new byte[1 << 16];
+    try (InputStream in = Files.newInputStream(file))
+    {   int n;
+        while ((n = in.read(buf)) > 0) crc.update(buf,0,n);
+    }
+    return (int)crc.getValue();
+} //--------------------- end of crc()
+
+//Length prefixed UTF-8, not limited to 64 KB as writeUTF()
+private static void writeString(DataOutputStream out,String s) throws IOException
+{
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(b.length);
+    out.write(b);
+} //--------------------- end of writeString()
+
+//As readString(DataInputStream) from the position of 'buf'
+private static String readString(ByteBuffer buf)
+{
+    int len = buf.getInt();
+    String s = new String(buf.array(),buf.arrayOffset() + buf.position(),len,StandardCharsets.UTF_8);
+    buf.position(buf.position() + len);
+    return s;
+} //--------------------- end of readString()
+
+//The string written by writeString() at 'pos' of a heap buffer
+private static String stringAt(ByteBuffer buf,int pos)
+{
+    return new String(buf.array(),buf.arrayOffset() + pos + 4,buf.getInt(pos),StandardCharsets.UTF_8);
+} //--------------------- end of stringAt()
+
+//Reads 'len' bytes at 'pos' into a heap buffer
+private static ByteBuffer read(FileChannel ch,long pos,int len) throws IOException
+{
+    ByteBuffer buf = ByteBuffer.allocate(len);
+    while (buf.hasRemaining())
+    {   if (ch.read(buf,pos + buf.position()) < 0) throw new EOFException("Index file is truncated");
+    }
+    buf.flip();
+    return buf;
+} //--------------------- end of read()
+
+} //------------------------------------- end of class
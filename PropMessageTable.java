@@ -0,0 +1,322 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * <h3>Columnar table of a message bundle and all its translations</h3>
+ * Loads a master bundle e.g. messages.properties and its siblings messages_de.properties, messages_fr_CA.properties ...
+ * into one key index and one value column per locale - instead of one Properties per locale: 80 locales with 60k keys
+ * keep one copy of each key and no hash table per locale. A translation equal to the master value shares its String.<br>
+ * The keys are the keys of the master, as after {@link Prop#syncResourceBundle(Path, Path)}. A translation is
+ * missing if its key is not in the sibling or its value is still marked "----TODO: TRANSLATE ME": then the master
+ * value is returned. Keys of a sibling which are not in the master (e.g. #_OBSOLETED_ entries) are counted and ignored.
+ * Example:<br>
+ * PropMessageTable t = PropMessageTable.load(Paths.get("i18n/messages.properties"),4);<br>
+ * String s = t.get("MSG_FILE_NOT_FOUND",Locale.forLanguageTag("de-CH")); // de_CH, de, master<br>
+ * BitSet todo = t.missing(Locale.GERMAN);
+ * <br>The table is immutable and thread safe.
+ * @since Last change: 2026.10.19
+ */
+public class PropMessageTable
+{
+    /** Suffix of an untranslated value as written by syncResourceBundle() */
+    public static final String TODO_MARK = "----TODO: TRANSLATE ME";
+
+    private final String[] keys;          // master order
+    private final int[] slots;            // open addressing: key index + 1, 0 = free
+    private final Locale[] locales;       // [0] = Locale.ROOT: the master
+    private final String[][] columns;     // [locale][key index], null = missing
+    private final BitSet[] missing;
+    private final int[] extra;
+    private final Map<Locale,Integer> columnOf = new HashMap<Locale,Integer>();
+    private final ConcurrentHashMap<Locale,int[]> chains = new ConcurrentHashMap<Locale,int[]>();
+    private final List<PropValidator.Diagnostic> problems;
+
+    private PropMessageTable(String[] keys,Locale[] locales,String[][] columns,BitSet[] missing,int[] extra,List<PropValidator.Diagnostic> problems)
+    {
+        this.keys = keys;   this.locales = locales;   this.columns = columns;   this.missing = missing;   this.extra = extra;
+        this.problems = Collections.unmodifiableList(problems);
+        int cap = Integer.highestOneBit(Math.max(2,keys.length) * 2 - 1) << 1;
+        slots = new int[cap];
+        for (int i=0;i < keys.length;i++)
+        {   int s = keys[i].hashCode() & (cap - 1);
+            while (slots[s] != 0) s = (s + 1) & (cap - 1);
+            slots[s] = i + 1;
+        }
+        for (int c=0;c < locales.length;c++) columnOf.put(locales[c],c);
+    }
+
+/**
+ * Loads a master bundle and all its siblings in the same directory. The master is loaded with
+ * {@link Prop#loadProper(Path, EntryHandler)}, the siblings in parallel and lenient: a line which loadProper() rejects
+ * is skipped and reported by {@link #problems()}.
+ * @param master The master bundle e.g. i18n/messages.properties - its siblings are i18n/messages_*.properties
+ * @param threads The number of threads loading the siblings
+ * @return The table
+ * @throws IOException If the master or a sibling cannot be read
+ * @since Last change: 2026.10.19
+ */
+public static PropMessageTable load(Path master,int threads) throws IOException
+{
+    String name = master.getFileName().toString();
+    if (!name.endsWith(".properties")) throw new IOException("PropMessageTable.load(): Not a .properties file: " + master);
+    String prefix = name.substring(0,name.length() - ".properties".length()) + "_";
+    Map<Locale,Path> files = new TreeMap<Locale,Path>(Comparator.comparing(Locale::toString));
+    Path dir = master.toAbsolutePath().getParent();
+    try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir,prefix + "*.properties"))
+    {   for (Path p : ds)
+        {   String n = p.getFileName().toString();
+            Locale loc = toLocale(n.substring(prefix.length(),n.length() - ".properties".length()));
+            if (loc != null && Files.isRegularFile(p)) files.put(loc,p);
+        }
+    }
+    return load(master,files,threads);
+} //--------------------- end of load()
+
+/**
+ * Loads a master bundle and the given translations
+ * @param master The master bundle
+ * @param translations The file per locale
+ * @param threads The number of threads loading the translations
+ * @return The table
+ * @throws IOException If a file cannot be read
+ * @since Last change: 2026.10.19
+ */
+public static PropMessageTable load(Path master,Map<Locale,Path> translations,int threads) throws IOException
+{
+    //--- STEP: 1) The master defines the keys and their order
+    LinkedHashMap<String,String> m = new LinkedHashMap<String,String>();
+    Prop.loadProper(master,(k,v) -> m.put(k,v));
+    String[] keys = m.keySet().toArray(new String[0]);
+    String[] mcol = m.values().toArray(new String[0]);
+    m.clear();
+    Map<String,Integer> index = new HashMap<String,Integer>(keys.length * 2);
+    for (int i=0;i < keys.length;i++) index.put(keys[i],i);
+
+    //--- STEP: 2) One column per translation, filled in parallel
+    int n = translations.size() + 1;
+    Locale[] locales = new Locale[n];   String[][] columns = new String[n][];   BitSet[] missing = new BitSet[n];   int[] extra = new int[n];
+    locales[0] = Locale.ROOT;   columns[0] = mcol;   missing[0] = new BitSet();
+    List<PropValidator.Diagnostic> problems = new ArrayList<PropValidator.Diagnostic>();
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1,Math.min(threads,n)));
+    try
+    {
+        Map<Locale,Future<List<PropValidator.Diagnostic>>> futures = new LinkedHashMap<Locale,Future<List<PropValidator.Diagnostic>>>();
+        int c = 1;
+        for (Map.Entry<Locale,Path> e : translations.entrySet())
+        {   final int col = c++;
+            locales[col] = e.getKey();   columns[col] = new String[keys.length];
+            futures.put(e.getKey(),pool.submit(() -> fill(e.getValue(),index,mcol,columns[col],extra,col)));
+        }
+        c = 1;
+        for (Future<List<PropValidator.Diagnostic>> f : futures.values())
+        {   problems.addAll(f.get());
+            String[] col = columns[c];
+            BitSet b = new BitSet(keys.length);
+            for (int i=0;i < keys.length;i++) if (col[i] == null) b.set(i);
+            missing[c++] = b;
+        }
+    } catch (InterruptedException e)
+    {   Thread.currentThread().interrupt();
+        throw new IOException("PropMessageTable.load(): interrupted");
+    } catch (ExecutionException e)
+    {   Throwable t = e.getCause();
+        throw new IOException("PropMessageTable.load(): " + (t instanceof IOException ? t.getMessage() : t.toString()));
+    } finally
+    {   pool.shutdownNow();
+    }
+    return new PropMessageTable(keys,locales,columns,missing,extra,problems);
+} //--------------------- end of load()
+
+/**
+ * @param key The key
+ * @return The index of 'key' in the master, -1 if it is unknown
+ */
+public int indexOf(String key)
+{
+    int s = key.hashCode() & (slots.length - 1), i;
+    while ( (i = slots[s]) != 0)
+    {   if (keys[i-1].equals(key)) return i - 1;
+        s = (s + 1) & (slots.length - 1);
+    }
+    return -1;
+} //--------------------- end of indexOf()
+
+/**
+ * Returns the message of a key in a locale - or in its fallback: for de_CH_x the locales de_CH_x, de_CH, de, master
+ * @param key The key
+ * @param locale The locale
+ * @return The message, null if the key is not in the master
+ * @since Last change: 2026.10.19
+ */
+public String get(String key,Locale locale)
+{
+    int i = indexOf(key);
+    return (i < 0) ? null : get(i,locale);
+} //--------------------- end of get()
+
+/**
+ * Returns the message of a key index from {@link #indexOf(String)} - the fastest access for a known key
+ * @param index The key index
+ * @param locale The locale
+ * @return The message in 'locale' or its fallback
+ */
+public String get(int index,Locale locale)
+{
+    String v;
+    for (int c : chain(locale)) if ( (v = columns[c][index]) != null) return v;
+    return columns[0][index];
+} //--------------------- end of get()
+
+/**
+ * @param key The key
+ * @return The master value, null if the key is unknown
+ */
+public String get(String key)
+{
+    int i = indexOf(key);
+    return (i < 0) ? null : columns[0][i];
+} //--------------------- end of get()
+
+/**
+ * Returns the missing translations of a locale - the set bits are key indexes
+ * @param locale The locale of a sibling
+ * @return A copy of the bitmap, empty if there is no such sibling
+ */
+public BitSet missing(Locale locale)
+{
+    Integer c = columnOf.get(locale);
+    return (c == null) ? new BitSet() : (BitSet)missing[c].clone();
+} //--------------------- end of missing()
+
+/**
+ * @param locale The locale of a sibling
+ * @return The keys without translation in master order
+ */
+public List<String> missingKeys(Locale locale)
+{
+    BitSet b = missing(locale);
+    List<String> list = new ArrayList<String>(b.cardinality());
+    for (int i=b.nextSetBit(0);i >= 0;i=b.nextSetBit(i+1)) list.add(keys[i]);
+    return list;
+} //--------------------- end of missingKeys()
+
+/**
+ * @param locale The locale of a sibling
+ * @return The number of keys of the sibling which are not in the master, -1 if there is no such sibling
+ */
+public int extraKeys(Locale locale)
+{
+    Integer c = columnOf.get(locale);
+    return (c == null) ? -1 : extra[c];
+} //--------------------- end of extraKeys()
+
+/**
+ * @return The locales of the siblings, without the master
+ */
+public List<Locale> locales() { return Collections.unmodifiableList(Arrays.asList(locales).subList(1,locales.length)); }
+
+/**
+ * @return The keys in master order
+ */
+public List<String> keys() { return Collections.unmodifiableList(Arrays.asList(keys)); }
+
+/** @return The number of keys */
+public int size() { return keys.length; }
+
+/**
+ * @return The lines skipped in the siblings, e.g. #_OBSOLETED_ keys written by syncResourceBundle()
+ */
+public List<PropValidator.Diagnostic> problems() { return problems; }
+
+/**
+ * Returns the messages of one locale incl. fallback as Properties, e.g. for code which needs a container
+ * @param locale The locale
+ * @return A new container with all keys
+ */
+public Properties toProperties(Locale locale)
+{
+    Properties props = new Properties();
+    for (int i=0;i < keys.length;i++) props.setProperty(keys[i],get(i,locale));
+    return props;
+} //--------------------- end of toProperties()
+
+@Override
+public String toString()
+{
+    StringBuilder sb = new StringBuilder("PropMessageTable[keys=").append(keys.length).append(", locales=").append(locales.length - 1);
+    for (int c=1;c < locales.length;c++) sb.append(c == 1 ? ", missing: " : " ").append(locales[c]).append('=').append(missing[c].cardinality());
+    return sb.append(']').toString();
+} //--------------------- end of toString()
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//The columns to search for 'locale' - most specific first, without the master; computed once per locale
+private int[] chain(Locale locale)
+{
+    int[] chain = chains.get(locale);
+    if (chain != null) return chain;
+    List<Locale> cand = ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_DEFAULT).getCandidateLocales("",locale);
+    int[] tmp = new int[cand.size()];   int n = 0;
+    for (Locale l : cand)
+    {   Integer c = columnOf.get(l);
+        if (c != null && c > 0) tmp[n++] = c;
+    }
+    chain = Arrays.copyOf(tmp,n);
+    chains.putIfAbsent(locale,chain);
+    return chain;
+} //--------------------- end of chain()
+
+//Loads one sibling lenient into 'col': a value equal to the master shares its String, TODO values stay null
+private static List<PropValidator.Diagnostic> fill(Path file,Map<String,Integer> index,String[] master,String[] col,int[] extra,int c) throws IOException
+{
+    ParseContext ctx = new ParseContext("PropMessageTable",file);
+    ctx.diagnostics = new ArrayList<PropValidator.Diagnostic>();
+    int[] many = new int[1];
+    try (InputStream in = Files.newInputStream(file))
+    {
+        Prop.readProper(Prop.newReader(ctx.count(in),ctx),(k,v) ->
+        {   Integer i = index.get(k);
+            if (i == null) { many[0]++; return; }
+            if (v.endsWith(TODO_MARK)) col[i] = null;
+            else col[i] = v.equals(master[i]) ? master[i] : v;
+        },ctx);
+        ctx.publish();
+    } catch (Exception e)
+    {   String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException(msg + " (File: " + file + ")");
+    }
+    extra[c] = many[0];
+    return ctx.diagnostics;
+} //--------------------- end of fill()
+
+//de_CH -> de_CH, an invalid language -> null
+private static Locale toLocale(String s)
+{
+    String[] p = s.split("_",3);
+    if (p[0].isEmpty() || !p[0].chars().allMatch(Character::isLetter)) return null;
+    if (p.length == 1) return new Locale(p[0]);
+    if (p.length == 2) return new Locale(p[0],p[1]);
+    return new Locale(p[0],p[1],p[2]);
+} //--------------------- end of toLocale()
+
+} //------------------------------------- end of class
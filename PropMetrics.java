@@ -0,0 +1,59 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+
+/**
+ * Instrumentation SPI for the load, parse, expand and store operations of Prop. Install an implementation with
+ * {@link Prop#setMetrics(PropMetrics)}, e.g. an adapter to your metrics library or {@link InMemoryPropMetrics}.<br>
+ * The default is {@link #NOOP}: then the operations only count into local variables and publish nothing.
+ * The figures are published once per operation (not per line), so an implementation does not need to be
+ * extremely fast - but it must be thread safe.<br>
+ * Arguments are: 'op' the operation e.g. "loadProper", 'source' the file name or "stream", 'name' the figure e.g.
+ * "bytes", "lines", "contLines", "unescapes", "entries", "charset.UTF-8", "placeholders" and "depth" (the nesting of
+ * the placeholders of an expanded value), "poolHits" (the strings found in a {@link StringPool}).<br>
+ * The cache of {@link PropRegistry} counts with op "PropRegistry" and a null source: "hits", "loads", "evictions".
+ * @since Last change: 2026.10.18
+ */
+public interface PropMetrics
+{
+    /** Publishes nothing */
+    PropMetrics NOOP = new PropMetrics() {};
+
+/**
+ * Adds 'delta' to a counter
+ * @param op The operation
+ * @param source The file or "stream", may be null if not related to a file
+ * @param name The counter name
+ * @param delta The value to add
+ */
+default void count(String op,String source,String name,long delta) {}
+
+/**
+ * Records the duration of an operation
+ * @param op The operation
+ * @param source The file or "stream", may be null if not related to a file
+ * @param nanos The duration in nanoseconds
+ */
+default void time(String op,String source,long nanos) {}
+
+/**
+ * Records one value of a distribution, e.g. the number of placeholders in a value
+ * @param op The operation
+ * @param source The file or "stream", may be null if not related to a file
+ * @param name The histogram name
+ * @param value The value
+ */
+default void record(String op,String source,String name,long value) {}
+
+} //------------------------------------- end of interface
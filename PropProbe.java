@@ -0,0 +1,280 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h3>Fast metadata of .properties files without loading them</h3>
+ * Each file is opened once: the charset is detected from the first 8 KB as the loaders do, the header comment lines
+ * are read as {@link Prop#getHeaderLines(Path)} does and - optionally - the entries are counted by a byte level scan
+ * which follows continuation lines as {@link Prop#loadProper(Path, Properties...)} does, but does not decode, unescape
+ * or validate anything. Without counting only a bounded prefix of the file is read.<br>
+ * Many files or a directory tree can be probed in parallel. From the command line:<br>
+ * java de.noschu.shsutils.PropProbe [--count] [--threads n] file|dir...<br>
+ * prints one CSV line per file: file;charset;entries;size;lastModified;title
+ * @since Last change: 2026.10.18
+ */
+public class PropProbe
+{
+    /** Max. number of bytes read for the header lines if the entries are not counted */
+    public static final int HEADER_LIMIT = 1 << 16;
+
+    private static final int START = 0, COMMENT = 1, ENTRY = 2, CONT = 3;
+
+/**
+ * The metadata of one file
+ */
+public static final class Info
+{
+    public final Path file;
+    /** The detected charset, null on error */
+    public final Charset charset;
+    /** The comment lines at the beginning, as returned by {@link Prop#getHeaderLines(Path)} */
+    public final List<String> headerLines;
+    /** The number of entries (logical lines which are not a comment), -1 if not counted or on error */
+    public final long entries;
+    /** The file size in bytes */
+    public final long size;
+    /** The time of the last modification in ms since 1970 */
+    public final long lastModified;
+    /** The error message, null if the file could be probed */
+    public final String error;
+
+    Info(Path file,Charset charset,List<String> headerLines,long entries,long size,long lastModified,String error)
+    {   this.file = file; this.charset = charset; this.headerLines = headerLines; this.entries = entries;
+        this.size = size; this.lastModified = lastModified; this.error = error;
+    }
+
+    /** @return The first header line without the comment char, or "" */
+    public String title()
+    {   if (headerLines.isEmpty()) return "";
+        return headerLines.get(0).substring(1).trim();
+    }
+
+    /** @return The fields separated by ';': file;charset;entries;size;lastModified;title - or the error as title */
+    public String toCsv()
+    {   return file + ";" + (charset == null ? "" : charset.name()) + ";" + entries + ";" + size + ";" + lastModified + ";"
+               + (error != null ? error : title()).replace(';',',');
+    }
+
+    @Override
+    public String toString() { return toCsv(); }
+} //--------------------- end of class Info
+
+    private PropProbe() {}
+
+/**
+ * Probes a file. Never throws: on error the Info contains the message.
+ * @param propfile The file, may be GZIP compressed
+ * @param countEntries If true all the file is scanned to count the entries, else only the header is read
+ * @return The metadata
+ * @since Last change: 2026.10.18
+ */
+public static Info probe(Path propfile,boolean countEntries)
+{
+    long size = -1, mtime = 0;
+    Charset cs = null;
+    try
+    {
+        BasicFileAttributes attr = Files.readAttributes(propfile,BasicFileAttributes.class);
+        size = attr.size();   mtime = attr.lastModifiedTime().toMillis();
+        try (BufferedInputStream bin = Compression.autoDecode(Files.newInputStream(propfile)))
+        {
+            cs = Prop.getCharset(bin);
+            if (cs.name().startsWith("UTF-32")) throw new IOException("Charset " + cs + " is not supported");
+            List<String> header = new ArrayList<String>();
+            long entries = scan(bin,cs,header,countEntries);
+            return new Info(propfile,cs,header,entries,size,mtime,null);
+        }
+    } catch (Exception e)
+    {
+        String msg; if (e.getClass() == IOException.class) msg = e.getMessage(); else msg = e.toString();
+        return new Info(propfile,cs,Collections.<String>emptyList(),-1,size,mtime,msg);
+    }
+} //--------------------- end of probe()
+
+/**
+ * Probes many files in parallel
+ * @param files The files
+ * @param countEntries If true the entries are counted
+ * @param threads The number of threads, e.g. Runtime.getRuntime().availableProcessors()
+ * @return The metadata per file in the order of 'files'
+ * @throws IOException If interrupted
+ * @since Last change: 2026.10.18
+ */
+public static Map<Path,Info> probe(Collection<Path> files,boolean countEntries,int threads) throws IOException
+{
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1,threads));
+    try
+    {
+        Map<Path,Future<Info>> futures = new LinkedHashMap<Path,Future<Info>>();
+        for (Path f : files) futures.put(f,pool.submit(() -> probe(f,countEntries)));
+
+        Map<Path,Info> result = new LinkedHashMap<Path,Info>();
+        for (Map.Entry<Path,Future<Info>> e : futures.entrySet()) result.put(e.getKey(),e.getValue().get());
+        return result;
+
+    } catch (InterruptedException e)
+    {   Thread.currentThread().interrupt();
+        throw new IOException("PropProbe.probe(): interrupted");
+    } catch (ExecutionException e)
+    {   throw new IOException("PropProbe.probe(): " + e.getCause());
+    } finally
+    {   pool.shutdownNow();
+    }
+} //--------------------- end of probe()
+
+/**
+ * Probes all *.properties files of a directory tree in parallel
+ * @param dir The root directory
+ * @param countEntries If true the entries are counted
+ * @param threads The number of threads
+ * @return The metadata per file, sorted by path
+ * @throws IOException If the tree cannot be walked
+ * @since Last change: 2026.10.18
+ */
+public static Map<Path,Info> probeTree(Path dir,boolean countEntries,int threads) throws IOException
+{
+    List<Path> files;
+    try (Stream<Path> s = Files.walk(dir))
+    {   files = s.filter(p -> p.toString().endsWith(".properties") && Files.isRegularFile(p)).sorted().collect(Collectors.toList());
+    } catch (Exception e)
+    {   String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropProbe.probeTree(): " + msg + " (dir: " + dir + ")");
+    }
+    return probe(files,countEntries,threads);
+} //--------------------- end of probeTree()
+
+/**
+ * Command line: java de.noschu.shsutils.PropProbe [--count] [--threads n] file|dir...
+ * @param args See above
+ * @throws Exception On error
+ */
+public static void main(String[] args) throws Exception
+{
+    int threads = Runtime.getRuntime().availableProcessors();   boolean count = false;
+    Map<Path,Info> result = new LinkedHashMap<Path,Info>();
+    List<Path> files = new ArrayList<Path>();
+    for (int i=0;i < args.length;i++)
+    {
+        if ("--threads".equals(args[i]) && i+1 < args.length) threads = Integer.parseInt(args[++i]);
+        else if ("--count".equals(args[i])) count = true;
+        else if (Files.isDirectory(Paths.get(args[i]))) result.putAll(probeTree(Paths.get(args[i]),count,threads));
+        else files.add(Paths.get(args[i]));
+    }
+    if (files.isEmpty() && result.isEmpty())
+    {   System.err.println("Usage: java de.noschu.shsutils.PropProbe [--count] [--threads n] file|dir...");
+        System.exit(2);
+    }
+    result.putAll(probe(files,count,threads));
+    BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(System.out,StandardCharsets.UTF_8));
+    bw.write("file;charset;entries;size;lastModified;title\n");
+    for (Info info : result.values()) { bw.write(info.toCsv()); bw.write('\n'); }
+    bw.flush();
+} //--------------------- end of main()
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+/*
+ * One pass over the code units (bytes, or 2 byte units for UTF-16) - all chars which matter are ASCII, so the other
+ * bytes of an UTF-8 sequence never match. Collects the header lines into 'header' and returns the number of
+ * logical lines with an entry, or -1 if 'count' is false: then the scan stops after the header.
+ * As readProper(): a line whose first char (after blanks and tabs) is '#' or '!' is a comment, a line ending with
+ * an odd number of backslashes continues on the next line, a blank continuation line ends the logical line.
+ */
+private static long scan(InputStream in,Charset cs,List<String> header,boolean count) throws IOException
+{
+    final int width = (cs == StandardCharsets.UTF_16BE || cs == StandardCharsets.UTF_16LE) ? 2 : 1;
+    final boolean le = cs == StandardCharsets.UTF_16LE;
+    byte[] buf = new byte[1 << 16];
+    ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    int n = 0, pos = 0, state = START, bs = 0, c;
+    boolean inHeader = true, blanks = false, cr = false, first = true;
+    long entries = 0, consumed = 0;
+
+    while (true)
+    {
+        if (n - pos < width) // refill, an odd byte of UTF-16 is kept
+        {   int rest = n - pos;
+            System.arraycopy(buf,pos,buf,0,rest);
+            n = rest;   pos = 0;
+            if (!count && consumed >= HEADER_LIMIT) return -1; // the header is truncated
+            int r = in.read(buf,n,buf.length - n);
+            if (r < 0) break;
+            n += r;   consumed += r;
+            continue;
+        }
+        if (width == 1) c = buf[pos] & 0xFF;
+        else if (le)    c = (buf[pos] & 0xFF) | (buf[pos+1] & 0xFF) << 8;
+        else            c = (buf[pos] & 0xFF) << 8 | (buf[pos+1] & 0xFF);
+        int at = pos;
+        pos += width;
+
+        if (first) // skip the BOM
+        {   first = false;
+            if (c == 0xFEFF) continue;
+            if (c == 0xEF && n - at >= 3 && (buf[at+1] & 0xFF) == 0xBB && (buf[at+2] & 0xFF) == 0xBF) { pos = at + 3; continue; }
+        }
+        if (c == '\n' && cr) { cr = false; continue; } // CR LF
+        cr = c == '\r';
+        boolean eol = c == '\n' || c == '\r';
+
+        switch (state)
+        {
+        case START:
+            if (eol) { if (blanks) inHeader = false; blanks = false; }  // a blank line ends the header as in getHeaderLines()
+            else if (c == ' ' || c == '\t') blanks = true;
+            else if (c == '#' || c == '!')
+            {   state = COMMENT;
+                if (inHeader) { line.reset(); line.write(buf,at,width); }
+            } else
+            {   entries++;   inHeader = false;
+                state = ENTRY;   bs = c == '\\' ? 1 : 0;
+            }
+            if (!inHeader && !count) return -1;
+            break;
+        case COMMENT:
+            if (eol)
+            {   if (inHeader) header.add(new String(line.toByteArray(),cs));
+                state = START;   blanks = false;
+            }
+            else if (inHeader) line.write(buf,at,width);
+            break;
+        case ENTRY:
+            if (eol) { state = (bs & 1) != 0 ? CONT : START;   blanks = false; }
+            else     bs = c == '\\' ? bs + 1 : 0;
+            break;
+        default: // CONT: blanks in front of a continuation line are skipped
+            if (eol) state = START;
+            else if (c != ' ' && c != '\t') { state = ENTRY;   bs = c == '\\' ? 1 : 0; }
+        }
+    }
+    if (state == COMMENT && inHeader) header.add(new String(line.toByteArray(),cs));
+    return count ? entries : -1;
+} //--------------------- end of scan()
+
+} //------------------------------------- end of class
@@ -0,0 +1,330 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * <h3>Thread safe registry of many named configs loaded on demand</h3>
+ * Maps names (e.g. tenant or locale) to Properties loaded with {@link Prop#loadProper(Path, Properties...)}.
+ * Reads of loaded configs take no lock. Concurrent requests for a config not yet loaded wait for one load -
+ * the file is parsed once. Above 'maxEntries' the least recently used configs are evicted and reloaded on the
+ * next request; modified (dirty) configs are written before they are evicted.<br>
+ * Changes are made with {@link #setProperty(String, String, String)} or {@link #update(String, Consumer)}: they hold
+ * the lock of the config, so it cannot be written and evicted in between - a change of a config being evicted is
+ * applied to the reloaded config. {@link #flush()} writes all dirty configs with
+ * {@link Prop#storeProper(Properties, Path, String, boolean...)}, sorted by key. Example:<br>
+ * PropRegistry reg = new PropRegistry(name -&gt; confDir.resolve(name + ".properties"),5000);<br>
+ * String url = reg.get("tenant42").getProperty("db.url");
+ * @since Last change: 2026.10.19
+ */
+public class PropRegistry
+{
+    private final Function<String,Path> files;
+    private final int maxEntries;
+    private final StringPool pool;
+    private final int unicodeOptions;
+    private final ConcurrentHashMap<String,Entry> map = new ConcurrentHashMap<String,Entry>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder(), loads = new LongAdder(), evictions = new LongAdder(), stores = new LongAdder();
+
+    //One config: 'loaded' completes once, 'used' is the access time for LRU eviction. Changes, store() and eviction
+    //lock the entry, 'evicted' is set when it is no longer in the map - a change then retries on a new entry.
+    private static final class Entry
+    {
+        final CompletableFuture<Properties> loaded = new CompletableFuture<Properties>();
+        final AtomicBoolean dirty = new AtomicBoolean();
+        volatile long used;
+        boolean evicted; // guarded by 'this'
+    }
+
+/**
+ * The configs are loaded with the unicode options of {@link Prop#getUnicodeOptions()} at construction.
+ * @param files Maps a name to its .properties file
+ * @param maxEntries Max. number of configs kept in memory
+ * @param pool Option: Shares equal keys and values of all configs, see {@link StringPool}
+ */
+public PropRegistry(Function<String,Path> files,int maxEntries,StringPool... pool)
+{
+    this(files,maxEntries,Prop.getUnicodeOptions(),pool);
+}
+
+/**
+ * @param files Maps a name to its .properties file
+ * @param maxEntries Max. number of configs kept in memory
+ * @param unicodeOptions The unicode options of all loads, see {@link Prop#loadProper(Path, int, Properties...)}
+ * @param pool Option: Shares equal keys and values of all configs, see {@link StringPool}
+ */
+public PropRegistry(Function<String,Path> files,int maxEntries,int unicodeOptions,StringPool... pool)
+{
+    if (maxEntries < 1) throw new IllegalArgumentException("PropRegistry(): maxEntries must be > 0: " + maxEntries);
+    this.files = Objects.requireNonNull(files,"files");
+    this.maxEntries = maxEntries;
+    this.pool = pool.length > 0 ? pool[0] : null;
+    this.unicodeOptions = unicodeOptions;
+}
+
+/**
+ * Returns the config, loads it if not in memory. Concurrent calls for the same name wait for one load.
+ * @param name The name of the config
+ * @return The Properties container - shared, read only: make changes with {@link #update(String, Consumer)}
+ * @throws IOException If the file cannot be loaded - the next call tries again
+ * @since Last change: 2026.10.19
+ */
+public Properties get(String name) throws IOException
+{
+    return entry(name).loaded.join();
+} //--------------------- end of get()
+
+/**
+ * @param name The name of the config
+ * @return The config if in memory, else null - never loads
+ */
+public Properties getIfPresent(String name)
+{
+    Entry e = map.get(name);
+    if (e == null || !e.loaded.isDone() || e.loaded.isCompletedExceptionally()) return null;
+    e.used = clock.incrementAndGet();
+    return e.loaded.join();
+} //--------------------- end of getIfPresent()
+
+/**
+ * Sets a property and marks the config as dirty
+ * @param name The name of the config, loaded if not in memory
+ * @param key The key
+ * @param value The value
+ * @return The previous value or null
+ * @throws IOException If the config cannot be loaded
+ * @since Last change: 2026.10.19
+ */
+public String setProperty(String name,String key,String value) throws IOException
+{
+    Object[] old = new Object[1];
+    update(name,p -> old[0] = p.setProperty(key,value));
+    return (String)old[0];
+} //--------------------- end of setProperty()
+
+/**
+ * Changes a config and marks it as dirty. The change holds the lock of the config: it is not written or evicted
+ * meanwhile. If it was evicted before, the change is applied to the reloaded config.
+ * @param name The name of the config, loaded if not in memory
+ * @param change Changes the container, should not block
+ * @throws IOException If the config cannot be loaded
+ * @since Last change: 2026.10.19
+ */
+public void update(String name,Consumer<Properties> change) throws IOException
+{
+    for (;;)
+    {   Entry e = entry(name);
+        synchronized (e)
+        {   if (e.evicted) continue; // removed after entry() returned it
+            change.accept(e.loaded.join());
+            e.dirty.set(true);
+            return;
+        }
+    }
+} //--------------------- end of update()
+
+/**
+ * Replaces a config, the file is written with the next flush
+ * @param name The name of the config
+ * @param props The new content
+ * @since Last change: 2026.10.18
+ */
+public void put(String name,Properties props)
+{
+    Entry e = new Entry();
+    e.loaded.complete(props);
+    e.dirty.set(true);
+    e.used = clock.incrementAndGet();
+    Entry old = map.put(name,e);
+    if (old != null) synchronized (old) { old.evicted = true; }
+    evictIfNeeded();
+} //--------------------- end of put()
+
+/**
+ * Writes all dirty configs. A config changed while it is written stays dirty.
+ * @return The number of configs written
+ * @throws IOException If a config cannot be written - all others are written nevertheless
+ * @since Last change: 2026.10.18
+ */
+public int flush() throws IOException
+{
+    int many = 0, failed = 0;   IOException first = null;
+    for (Map.Entry<String,Entry> me : map.entrySet())
+    {
+        try
+        {
+            if (store(me.getKey(),me.getValue())) many++;
+        } catch (IOException e)
+        {   failed++;
+            if (first == null) first = e;
+        }
+    }
+    if (first != null) throw new IOException("PropRegistry.flush(): " + failed + " configs not written, first: " + first.getMessage());
+    return many;
+} //--------------------- end of flush()
+
+/**
+ * Removes a config from memory without writing it - the next get() loads the file again
+ * @param name The name of the config
+ */
+public void invalidate(String name)
+{
+    Entry old = map.remove(name);
+    if (old != null) synchronized (old) { old.evicted = true; }
+}
+
+/** @return The number of configs in memory (including the ones being loaded) */
+public int size() { return map.size(); }
+
+/** @return The number of dirty configs */
+public int dirtyCount()
+{
+    int n = 0;
+    for (Entry e : map.values()) if (e.dirty.get()) n++;
+    return n;
+}
+
+@Override
+public String toString()
+{
+    return "PropRegistry: size=" + size() + " maxEntries=" + maxEntries + " hits=" + hits.sum() + " loads=" + loads.sum()
+           + " evictions=" + evictions.sum() + " stores=" + stores.sum();
+}
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Returns the loaded entry of 'name', loads it if not in memory: concurrent calls wait for one load
+private Entry entry(String name) throws IOException
+{
+    Entry e = map.get(name);
+    if (e == null)
+    {
+        Entry created = new Entry();
+        created.used = clock.incrementAndGet(); // not the eldest when load() evicts
+        e = map.putIfAbsent(name,created);
+        if (e == null)
+        {   e = created;
+            load(name,e);
+        }
+    }
+    else if (e.loaded.isDone() && !e.loaded.isCompletedExceptionally())
+    {   e.used = clock.incrementAndGet();
+        hits.increment();
+        Prop.getMetrics().count("PropRegistry",null,"hits",1);
+        return e;
+    }
+    e.used = clock.incrementAndGet();
+    try
+    {
+        e.loaded.get();
+        return e;
+    } catch (InterruptedException ex)
+    {   Thread.currentThread().interrupt();
+        throw new IOException("PropRegistry.get(): interrupted (name: '" + name + "')");
+    } catch (ExecutionException ex)
+    {   Throwable c = ex.getCause();
+        if (c instanceof IOException) throw (IOException)c;
+        throw new IOException("PropRegistry.get(): " + c + " (name: '" + name + "')");
+    }
+} //--------------------- end of entry()
+
+//Invoked from entry() by the thread which created the entry: the others wait for 'e.loaded'
+private void load(String name,Entry e)
+{
+    try
+    {
+        Path file = files.apply(name);
+        Properties props = new Properties();
+        EntryHandler h = (k,v) -> props.setProperty(k,v);
+        long[] poolHits = new long[1];
+        Prop.loadProper(file,unicodeOptions,pool != null ? pool.interning(h,poolHits) : h);
+        e.loaded.complete(props);
+        loads.increment();
+        PropMetrics metrics = Prop.getMetrics();
+        metrics.count("PropRegistry",null,"loads",1);
+        if (pool != null) metrics.count("loadProper",file.toString(),"poolHits",poolHits[0]);
+    } catch (Throwable ex)
+    {   map.remove(name,e);   // the next get() tries again
+        e.loaded.completeExceptionally(ex);
+        return;
+    }
+    evictIfNeeded();
+} //--------------------- end of load()
+
+//Writes 'e' if dirty, returns false if not dirty. Holds the lock of 'e': no change is made while it is written.
+private boolean store(String name,Entry e) throws IOException
+{
+    synchronized (e)
+    {
+        if (!e.dirty.compareAndSet(true,false)) return false;
+        try
+        {
+            Properties props = e.loaded.join();
+            Prop.storeProper(props,files.apply(name),name,Compression.NONE,0,null,true);
+            stores.increment();
+            return true;
+        } catch (IOException | RuntimeException ex)
+        {   e.dirty.set(true);
+            throw ex;
+        }
+    }
+} //--------------------- end of store()
+
+//Evicts the least recently used configs down to 7/8 of 'maxEntries' - one thread at a time, the others go on
+private void evictIfNeeded()
+{
+    if (map.size() <= maxEntries || !evicting.compareAndSet(false,true)) return;
+    try
+    {
+        int excess = map.size() - (maxEntries - maxEntries / 8);
+        if (excess <= 0) return;
+        List<Map.Entry<String,Entry>> list = new ArrayList<Map.Entry<String,Entry>>();
+        for (Map.Entry<String,Entry> me : map.entrySet()) if (me.getValue().loaded.isDone()) list.add(me);
+        list.sort(Comparator.comparingLong(me -> me.getValue().used));
+        for (int i=0;i < excess && i < list.size();i++)
+        {
+            String name = list.get(i).getKey();   Entry e = list.get(i).getValue();
+            synchronized (e) // no change between the write and the removal
+            {
+                try
+                {   store(name,e);
+                } catch (IOException ex)
+                {   Prop.logger.warning("PropRegistry: config not evicted: " + ex.getMessage());
+                    continue;   // keep it in memory, flush() reports the error
+                }
+                if (map.remove(name,e))
+                {   e.evicted = true;
+                    evictions.increment();
+                    Prop.getMetrics().count("PropRegistry",null,"evictions",1);
+                }
+            }
+        }
+    } finally
+    {   evicting.set(false);
+    }
+} //--------------------- end of evictIfNeeded()
+
+} //------------------------------------- end of class
@@ -0,0 +1,374 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h3>Persistent .properties file with write-behind of frequent small updates</h3>
+ * Updates change the in-memory state at once and are written later: on a fixed interval or when 'maxPending'
+ * distinct keys are changed. Several updates of one key between two flushes are coalesced into one write.<br>
+ * Without a journal each flush writes a full snapshot with {@link Prop#storeProper(Properties, Path, String, boolean...)}
+ * (sorted by key, via temp file and atomic move). With a journal each flush appends only the changed keys to
+ * 'file.journal'; the journal is compacted into a snapshot when it holds more entries than the file. The journal is
+ * replayed when the store is opened - a torn last line (crash while appending) is dropped. The snapshot and the
+ * journal carry a generation in their first line: a journal is replayed only over the snapshot it was started on, so a
+ * crash between writing a snapshot and deleting the old journal cannot roll a key back.<br>
+ * The keys must be written by {@link Prop#storeProper(Properties, Path, String, boolean...)} and read back by
+ * {@link Prop#loadProper(Path)} unchanged: printable ASCII without '=' and '\\', not starting with '#' or '!', no
+ * blank at the beginning or end. Other keys are rejected by setProperty() and remove().<br>
+ * Durability: updates since the last flush are lost on a crash. {@link Durability#JOURNAL_SYNC} forces each append
+ * to the disk. The figures are published to {@link Prop#getMetrics()} with op "PropStore": counters "updates",
+ * "coalesced", "journalEntries", "snapshots", "fsyncs", "flushErrors", histogram "lagMillis" (age of the oldest
+ * update at its flush) and the flush duration. Example:<br>
+ * try (PropStore st = new PropStore(Paths.get("agent.properties"),1000,500,PropStore.Durability.JOURNAL))<br>
+ * { st.setProperty("requests",Long.toString(n)); ... }
+ * @since Last change: 2026.10.19
+ */
+public class PropStore implements Closeable
+{
+    /** What a flush writes */
+    public enum Durability
+    {
+        /** Each flush writes a full snapshot */
+        SNAPSHOT,
+        /** Each flush appends the changes to the journal, the OS writes them to the disk */
+        JOURNAL,
+        /** As JOURNAL - each append is forced to the disk */
+        JOURNAL_SYNC
+    }
+
+    //Marks a removed key in 'pending'
+    private static final String REMOVED = new String("");
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    //The first line of the snapshot and of the journal, followed by the generation
+    private static final String GENERATION = "PropStore generation ";
+
+    private final Path file, journal;
+    private final int maxPending;
+    private final Durability durability;
+    private final String source;
+    private final Properties props = new Properties();
+    private final ScheduledExecutorService timer;
+    private final Object flushLock = new Object();
+
+    private LinkedHashMap<String,String> pending = new LinkedHashMap<String,String>(); // guarded by 'this'
+    private long oldest = 0;          // nanoTime of the oldest pending update, guarded by 'this'
+    private long journalEntries = 0;  // guarded by 'flushLock'
+    private long generation = 0;      // of the snapshot, the journal continues it - guarded by 'flushLock'
+    private volatile long lastFlush = System.currentTimeMillis();
+    private volatile boolean closed = false;
+
+/**
+ * Loads 'file' (if it exists) and replays its journal
+ * @param file The .properties file
+ * @param intervalMillis Flush interval, 0 to flush only on 'maxPending' or explicitly
+ * @param maxPending Flush when this number of distinct keys is changed
+ * @param durability SNAPSHOT, JOURNAL or JOURNAL_SYNC
+ * @throws IOException If the file or the journal cannot be read
+ */
+public PropStore(Path file,long intervalMillis,int maxPending,Durability durability) throws IOException
+{
+    this.file = file;
+    this.journal = file.resolveSibling(file.getFileName() + ".journal");
+    this.maxPending = Math.max(1,maxPending);
+    this.durability = Objects.requireNonNull(durability,"durability");
+    this.source = file.toString();
+
+    if (Files.exists(file))
+    {   props.putAll(Prop.loadProper(file,0)); // written by formatProper(): \\uXXXX only, not the defaults of Prop.setUnicodeOptions()
+        generation = readGeneration(file);
+    }
+    if (Files.exists(journal)) journalEntries = replay();
+
+    timer = Executors.newSingleThreadScheduledExecutor(r ->
+    {   Thread t = new Thread(r,"PropStore-" + THREADS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    if (intervalMillis > 0) timer.scheduleWithFixedDelay(this::flushQuietly,intervalMillis,intervalMillis,TimeUnit.MILLISECONDS);
+}
+
+/**
+ * @param key The key
+ * @return The current value - including updates not yet written - or null
+ */
+public String getProperty(String key)
+{
+    return props.getProperty(key);
+}
+
+/**
+ * @return A copy of the current content
+ */
+public synchronized Properties snapshot()
+{
+    Properties copy = new Properties();
+    copy.putAll(props);
+    return copy;
+} //--------------------- end of snapshot()
+
+/**
+ * Sets a value, it is written with the next flush
+ * @param key The key
+ * @param value The value
+ * @throws IllegalArgumentException If the key cannot be stored, see the class description
+ * @since Last change: 2026.10.19
+ */
+public void setProperty(String key,String value)
+{
+    update(checkKey(key),Objects.requireNonNull(value,"value"));
+}
+
+/**
+ * Removes a key, the removal is written with the next flush
+ * @param key The key
+ * @throws IllegalArgumentException If the key cannot be stored, see the class description
+ * @since Last change: 2026.10.19
+ */
+public void remove(String key)
+{
+    update(checkKey(key),REMOVED);
+}
+
+/**
+ * @return The number of keys changed since the last flush
+ */
+public synchronized int pendingCount() { return pending.size(); }
+
+/**
+ * @return The time (System.currentTimeMillis()) of the last successful flush - or of the open
+ */
+public long lastFlushMillis() { return lastFlush; }
+
+/**
+ * Writes the pending changes now: appends them to the journal or writes a snapshot
+ * @throws IOException On error - the changes stay pending
+ * @since Last change: 2026.10.18
+ */
+public void flush() throws IOException
+{
+    synchronized (flushLock)
+    {
+        LinkedHashMap<String,String> batch;   long since;   Properties copy = null;
+        boolean snap = durability == Durability.SNAPSHOT;
+        synchronized (this)
+        {
+            if (pending.isEmpty()) return;
+            batch = pending;   since = oldest;
+            pending = new LinkedHashMap<String,String>();
+            if (!snap && journalEntries + batch.size() > Math.max(1000,props.size())) snap = true; // compact
+            if (snap) { copy = new Properties(); copy.putAll(props); }
+        }
+        ParseContext ctx = new ParseContext("PropStore",file);
+        try
+        {
+            if (snap)
+            {   writeSnapshot(copy);
+                journalEntries = 0;
+            } else
+            {   appendJournal(batch);
+                journalEntries += batch.size();
+            }
+        } catch (IOException | RuntimeException e)
+        {   restore(batch,since);
+            ctx.metrics.count("PropStore",source,"flushErrors",1);
+            throw new IOException("PropStore.flush(): " + e.getMessage() + " (file: " + file + ")");
+        }
+        lastFlush = System.currentTimeMillis();
+        ctx.metrics.count("PropStore",source,snap ? "snapshots" : "journalEntries",snap ? 1 : batch.size());
+        if (durability == Durability.JOURNAL_SYNC) ctx.metrics.count("PropStore",source,"fsyncs",1);
+        ctx.metrics.record("PropStore",source,"lagMillis",(System.nanoTime() - since) / 1000000);
+        ctx.metrics.time("PropStore.flush",source,System.nanoTime() - ctx.t0);
+    }
+} //--------------------- end of flush()
+
+/**
+ * Writes the pending changes and a snapshot, removes the journal, stops the flush timer
+ * @throws IOException On error
+ */
+@Override
+public void close() throws IOException
+{
+    if (closed) return;
+    closed = true;
+    timer.shutdownNow();
+    synchronized (flushLock)
+    {
+        Properties copy;
+        synchronized (this)
+        {   copy = new Properties();
+            copy.putAll(props);
+            pending.clear();
+        }
+        try
+        {   writeSnapshot(copy);
+        } catch (IOException e)
+        {   throw new IOException("PropStore.close(): " + e.getMessage() + " (file: " + file + ")");
+        }
+        journalEntries = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+} //--------------------- end of close()
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Invoked from setProperty() and remove()
+private void update(String key,String value)
+{
+    if (closed) throw new IllegalStateException("PropStore: closed (file: " + file + ")");
+    boolean full;
+    synchronized (this)
+    {
+        if (value == REMOVED) props.remove(key); else props.setProperty(key,value);
+        if (pending.isEmpty()) oldest = System.nanoTime();
+        if (pending.put(key,value) != null) Prop.getMetrics().count("PropStore",source,"coalesced",1);
+        full = pending.size() >= maxPending;
+    }
+    Prop.getMetrics().count("PropStore",source,"updates",1);
+    if (full) timer.execute(this::flushQuietly);
+} //--------------------- end of update()
+
+//Invoked from setProperty() and remove(): a key which formatProper() rejects or readProper() would read back
+//differently would make every flush fail
+private static String checkKey(String key)
+{
+    Objects.requireNonNull(key,"key");
+    String why = null;
+    for (int i=0;i < key.length() && why == null;i++)
+    {   char c = key.charAt(i);
+        if (c == '=' || c == '\\') why = "contains a '" + c + "' char";
+        else if (c < ' ' || c > 0x7e) why = "contains a control or non ASCII character at position " + i;
+    }
+    if (why == null && !key.equals(key.trim())) why = "starts or ends with a blank";
+    if (why == null && (key.startsWith("#") || key.startsWith("!"))) why = "starts with a comment char";
+    if (why != null) throw new IllegalArgumentException("PropStore: Invalid key, " + why + ": '" + key + "'");
+    return key;
+} //--------------------- end of checkKey()
+
+//Invoked by the timer: errors are logged, the changes stay pending for the next try
+private void flushQuietly()
+{
+    try
+    {   flush();
+    } catch (Exception e)
+    {   Prop.logger.warning(e.getMessage());
+    }
+} //--------------------- end of flushQuietly()
+
+//Puts a batch which could not be written back to 'pending' - newer updates of a key win
+private synchronized void restore(LinkedHashMap<String,String> batch,long since)
+{
+    LinkedHashMap<String,String> merged = new LinkedHashMap<String,String>(batch);
+    merged.putAll(pending);
+    pending = merged;
+    oldest = since;
+} //--------------------- end of restore()
+
+//Writes the snapshot of the next generation via temp file and atomic move, then deletes the journal. A crash before
+//the delete leaves a journal of the old generation, replay() skips it.
+private void writeSnapshot(Properties copy) throws IOException
+{
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    Prop.storeProper(copy,tmp,GENERATION + (generation + 1),Compression.NONE,0,null,true); // the defaults of Prop.setStoreOptions() do not apply
+    try
+    {   Files.move(tmp,file,StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e)
+    {   Files.move(tmp,file,StandardCopyOption.REPLACE_EXISTING);
+    }
+    generation++;
+    Files.deleteIfExists(journal);
+} //--------------------- end of writeSnapshot()
+
+//Appends one line per change: '+' or '-' followed by the line written by storeProper(). A new journal starts with
+//the generation of the snapshot.
+private void appendJournal(LinkedHashMap<String,String> batch) throws IOException
+{
+    StringBuilder sb = new StringBuilder(batch.size() * 32);
+    if (!Files.exists(journal) || Files.size(journal) == 0) sb.append('#').append(GENERATION).append(generation).append('\n');
+    for (Map.Entry<String,String> e : batch.entrySet())
+    {   boolean removed = e.getValue() == REMOVED;
+        sb.append(removed ? '-' : '+').append(Prop.formatProper(e.getKey(),removed ? "" : e.getValue())).append('\n');
+    }
+    ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+    try (FileChannel ch = FileChannel.open(journal,StandardOpenOption.CREATE,StandardOpenOption.WRITE,StandardOpenOption.APPEND))
+    {
+        while (buf.hasRemaining()) ch.write(buf);
+        if (durability == Durability.JOURNAL_SYNC) ch.force(false);
+    }
+} //--------------------- end of appendJournal()
+
+//Applies the journal to 'props', returns the number of changes. The lines without the op char are parsed by readProper().
+//A journal of another generation than the snapshot is stale - its changes are in the snapshot - and is deleted.
+private long replay() throws IOException
+{
+    String text = new String(Files.readAllBytes(journal),StandardCharsets.UTF_8);
+    int end = text.lastIndexOf('\n') + 1; // a torn last line is dropped
+    int start = 0;
+    if (text.startsWith("#"))
+    {   start = text.indexOf('\n') + 1;
+        if (start == 0) { Files.delete(journal); return 0; } // torn header, no changes
+        if (parseGeneration(text.substring(1,start - 1)) != generation)
+        {   Prop.logger.info("PropStore: Stale journal of an older snapshot deleted (file: " + journal + ")");
+            Files.delete(journal);
+            return 0;
+        }
+    }
+    StringBuilder lines = new StringBuilder(end);
+    StringBuilder ops = new StringBuilder();
+    for (int i=start;i < end; )
+    {   int eol = text.indexOf('\n',i);
+        ops.append(text.charAt(i));
+        lines.append(text,i + 1,eol + 1);
+        i = eol + 1;
+    }
+    ParseContext ctx = new ParseContext("PropStore.replay",journal,0);
+    int[] n = {0};
+    long many = Prop.readProper(new BufferedReader(new StringReader(lines.toString())),(k,v) ->
+    {   if (ops.charAt(n[0]++) == '-') props.remove(k); else props.setProperty(k,v);
+    },ctx);
+    if (many != ops.length()) throw new IOException("PropStore: corrupt journal, " + ops.length() + " lines, " + many + " entries (file: " + journal + ")");
+    ctx.publish();
+    return many;
+} //--------------------- end of replay()
+
+//The generation in the first line of a snapshot, 0 if it has none (written by another program)
+private static long readGeneration(Path file) throws IOException
+{
+    try (BufferedReader br = Files.newBufferedReader(file,StandardCharsets.UTF_8))
+    {   String line = br.readLine();
+        return (line != null && line.startsWith("#")) ? Math.max(0,parseGeneration(line.substring(1))) : 0;
+    }
+} //--------------------- end of readGeneration()
+
+//-1 if 'header' is no generation header
+private static long parseGeneration(String header)
+{
+    if (!header.startsWith(GENERATION)) return -1;
+    try
+    {   return Long.parseLong(header.substring(GENERATION.length()).trim());
+    } catch (NumberFormatException e)
+    {   return -1;
+    }
+} //--------------------- end of parseGeneration()
+
+} //------------------------------------- end of class
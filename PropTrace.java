@@ -0,0 +1,127 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * <h3>Bounded trace of parse events for selected files</h3>
+ * Install with {@link Prop#setTrace(PropTrace)}. Each load of a matching file records its logical lines,
+ * continuation lines, entries and expanded values - without the global logger. Only the last 'capacity' events
+ * are kept (ring buffer), so a trace can stay switched on for a large file.<br>
+ * Whether a file is traced is decided once when its load starts. Loads of other files are not slowed down.
+ * Example:<br>
+ * PropTrace trace = PropTrace.forFile(Paths.get("app.properties"),1000);<br>
+ * Prop.setTrace(trace);   Prop.loadProper(...);   trace.events().forEach(System.out::println);
+ * @since Last change: 2026.10.18
+ */
+public class PropTrace
+{
+    /** The kind of a parse event */
+    public enum Kind { LINE, CONTLINE, ENTRY, EXPAND }
+
+/**
+ * One parse event
+ */
+public static final class Event
+{
+    /** The file or "stream" */
+    public final String source;
+    /** The natural line number (1 based) where the logical line starts, 0 for EXPAND */
+    public final long line;
+    public final Kind kind;
+    /** The key, null for LINE and CONTLINE */
+    public final String key;
+    /** The logical line, the continuation line, the value or the expanded value */
+    public final String text;
+
+    Event(String source,long line,Kind kind,String key,String text)
+    {   this.source = source; this.line = line; this.kind = kind; this.key = key; this.text = text;
+    }
+
+    @Override
+    public String toString()
+    {   return source + ":" + line + " " + kind + (key != null ? " key='" + key + "'" : "") + " '" + text + "'";
+    }
+} //--------------------- end of class Event
+
+    private final Predicate<String> sources;
+    private final Event[] ring;
+    private int next = 0;
+    private long total = 0;
+
+/**
+ * @param capacity The max. number of events kept, the oldest ones are dropped
+ * @param sources Selects the sources to be traced by name e.g. s -&gt; s.endsWith("app.properties")
+ */
+public PropTrace(int capacity,Predicate<String> sources)
+{
+    if (capacity < 1) throw new IllegalArgumentException("PropTrace(): capacity must be > 0: " + capacity);
+    this.ring = new Event[capacity];
+    this.sources = Objects.requireNonNull(sources,"sources");
+}
+
+/**
+ * @param file The file to be traced
+ * @param capacity The max. number of events kept
+ * @return A trace for loads of 'file' only
+ */
+public static PropTrace forFile(Path file,int capacity)
+{
+    final String name = file.toString();
+    return new PropTrace(capacity,s -> name.equals(s));
+} //--------------------- end of forFile()
+
+/**
+ * @param source The file or "stream"
+ * @return true if loads of 'source' are traced
+ */
+public boolean accepts(String source)
+{
+    return source != null && sources.test(source);
+}
+
+/**
+ * @return The kept events, the oldest first
+ */
+public synchronized List<Event> events()
+{
+    List<Event> list = new ArrayList<Event>(ring.length);
+    int n = (int)Math.min(total,ring.length);
+    for (int i=0;i < n;i++) list.add(ring[(next - n + i + ring.length) % ring.length]);
+    return list;
+} //--------------------- end of events()
+
+/**
+ * @return The number of events recorded since the last clear() - including the dropped ones
+ */
+public synchronized long total() { return total; }
+
+/** Removes all events */
+public synchronized void clear()
+{
+    Arrays.fill(ring,null);
+    next = 0;   total = 0;
+}
+
+//Invoked from Prop while loading a traced source
+synchronized void add(String source,long line,Kind kind,String key,String text)
+{
+    ring[next] = new Event(source,line,kind,key,text);
+    next = (next + 1) % ring.length;
+    total++;
+} //--------------------- end of add()
+
+} //------------------------------------- end of class
@@ -0,0 +1,258 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h3>Error tolerant validation of .properties files</h3>
+ * In contrast to {@link Prop#loadProper(Path, Properties...)}, which stops at the first error, each file is parsed
+ * once and all problems are collected as {@link Diagnostic}s with line, column, key and kind. Many files can be
+ * validated in parallel, the result can be written as a CSV report. From the command line:<br>
+ * java de.noschu.shsutils.PropValidator [--threads n] [--out report.csv] file|dir...<br>
+ * Directories are scanned recursively for *.properties files. The exit code is 1 if a problem was found.
+ * @since Last change: 2026.10.18
+ */
+public class PropValidator
+{
+    /** The kind of a problem */
+    public enum Kind
+    {
+        /** A key contains a control character */
+        KEY_CONTROL_CHAR,
+        /** A key contains a backslash */
+        KEY_BACKSLASH,
+        /** A key contains a non ASCII character */
+        KEY_NOT_ASCII,
+        /** A line contains no '=' */
+        MISSING_SEPARATOR,
+        /** Malformed backslash-u escape sequence in a value */
+        MALFORMED_UNICODE,
+        /** A key is defined twice - the last value wins */
+        DUPLICATE_KEY,
+        /** The file cannot be read, e.g. does not exist, unsupported charset or malformed input */
+        READ_ERROR
+    }
+
+/**
+ * One problem found in a file
+ */
+public static final class Diagnostic
+{
+    /** The file or "stream" */
+    public final String file;
+    /** The natural line number (1 based) where the logical line starts, 0 if not related to a line */
+    public final long line;
+    /** The column in the logical line (1 based), 0 if not related to a column */
+    public final int column;
+    /** The key, null if unknown */
+    public final String key;
+    public final Kind kind;
+    public final String message;
+
+    Diagnostic(String file,long line,int column,String key,Kind kind,String message)
+    {   this.file = file; this.line = line; this.column = column; this.key = key; this.kind = kind; this.message = message;
+    }
+
+    /** @return The fields separated by ';' as written by {@link PropValidator#writeReport(Map, Path)} */
+    public String toCsv()
+    {   return csv(file) + ';' + line + ';' + column + ';' + kind + ';' + csv(key == null ? "" : key) + ';' + csv(message);
+    }
+
+    @Override
+    public String toString()
+    {   return file + ":" + line + ":" + column + ": " + kind + (key != null ? " key '" + key + "'" : "") + ": " + message;
+    }
+} //--------------------- end of class Diagnostic
+
+    private PropValidator() {}
+
+/**
+ * Validates a .properties file. Never throws: a file which cannot be read results in a READ_ERROR.
+ * @param propfile The file
+ * @return The problems in the order of the file, empty if the file is valid
+ * @since Last change: 2026.10.18
+ */
+public static List<Diagnostic> validate(Path propfile)
+{
+    List<Diagnostic> diagnostics = new ArrayList<Diagnostic>();
+    loadLenient(propfile,(k,v) -> {},diagnostics);
+    return diagnostics;
+} //--------------------- end of validate()
+
+/**
+ * Validates many .properties files in parallel
+ * @param files The files
+ * @param threads The number of threads, e.g. Runtime.getRuntime().availableProcessors()
+ * @return The problems per file in the order of 'files', files without problems are included
+ * @throws IOException If interrupted
+ * @since Last change: 2026.10.18
+ */
+public static Map<Path,List<Diagnostic>> validate(Collection<Path> files,int threads) throws IOException
+{
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1,threads));
+    try
+    {
+        Map<Path,Future<List<Diagnostic>>> futures = new LinkedHashMap<Path,Future<List<Diagnostic>>>();
+        for (Path f : files) futures.put(f,pool.submit(() -> validate(f)));
+
+        Map<Path,List<Diagnostic>> result = new LinkedHashMap<Path,List<Diagnostic>>();
+        for (Map.Entry<Path,Future<List<Diagnostic>>> e : futures.entrySet()) result.put(e.getKey(),e.getValue().get());
+        return result;
+
+    } catch (InterruptedException e)
+    {   Thread.currentThread().interrupt();
+        throw new IOException("PropValidator.validate(): interrupted");
+    } catch (ExecutionException e)
+    {   throw new IOException("PropValidator.validate(): " + e.getCause());
+    } finally
+    {   pool.shutdownNow();
+    }
+} //--------------------- end of validate()
+
+/**
+ * Loads a .properties file as {@link Prop#loadProper(Path, Properties...)} - however all problems are added to
+ * 'diagnostics' instead of thrown. Lines with an invalid key are skipped, a malformed unicode escape sequence
+ * is kept without its backslash.
+ * @param propfile The file
+ * @param diagnostics OUT: Receives the problems
+ * @param defProps Option: Default properties
+ * @return Properties container with all valid entries
+ * @since Last change: 2026.10.18
+ */
+public static Properties loadLenient(Path propfile,List<Diagnostic> diagnostics,Properties... defProps)
+{
+    Properties props = null;
+    if (defProps.length > 0) props = new Properties(defProps[0]);
+    else                     props = new Properties();
+
+    final Properties target = props;
+    loadLenient(propfile,(k,v) -> target.setProperty(k,v),diagnostics);
+    return props;
+} //--------------------- end of loadLenient()
+
+/**
+ * Writes the problems as CSV file in encoding UTF-8 with the header line: file;line;column;kind;key;message
+ * @param result The problems per file e.g. from {@link #validate(Collection, int)}
+ * @param outfile The output file
+ * @return The number of problems written
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static long writeReport(Map<Path,List<Diagnostic>> result,Path outfile) throws IOException
+{
+    try (BufferedWriter bw = Files.newBufferedWriter(outfile,StandardCharsets.UTF_8))
+    {
+        return writeReport(result,bw);
+    } catch (Exception e)
+    {
+        String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropValidator.writeReport(): " + msg + " (outfile: '" + outfile + "')");
+    }
+} //--------------------- end of writeReport()
+
+/**
+ * Command line: java de.noschu.shsutils.PropValidator [--threads n] [--out report.csv] file|dir...
+ * @param args See above
+ * @throws Exception On error
+ */
+public static void main(String[] args) throws Exception
+{
+    int threads = Runtime.getRuntime().availableProcessors();   Path out = null;
+    List<Path> files = new ArrayList<Path>();
+    for (int i=0;i < args.length;i++)
+    {
+        if ("--threads".equals(args[i]) && i+1 < args.length) threads = Integer.parseInt(args[++i]);
+        else if ("--out".equals(args[i]) && i+1 < args.length) out = Paths.get(args[++i]);
+        else if (Files.isDirectory(Paths.get(args[i])))
+        {   try (Stream<Path> s = Files.walk(Paths.get(args[i])))
+            {   files.addAll(s.filter(p -> p.toString().endsWith(".properties") && Files.isRegularFile(p)).sorted().collect(Collectors.toList()));
+            }
+        }
+        else files.add(Paths.get(args[i]));
+    }
+    if (files.isEmpty())
+    {   System.err.println("Usage: java de.noschu.shsutils.PropValidator [--threads n] [--out report.csv] file|dir...");
+        System.exit(2);
+    }
+    Map<Path,List<Diagnostic>> result = validate(files,threads);
+    long many;
+    if (out != null) many = writeReport(result,out);
+    else
+    {   BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(System.out,StandardCharsets.UTF_8));
+        many = writeReport(result,bw);
+        bw.flush();
+    }
+    System.err.println(files.size() + " files validated, " + many + " problems found");
+    if (many > 0) System.exit(1);
+} //--------------------- end of main()
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Invoked from validate() and loadLenient(): one pass over the file, duplicate keys are reported too
+private static void loadLenient(Path propfile,EntryHandler handler,List<Diagnostic> diagnostics)
+{
+    ParseContext ctx = new ParseContext("validate",propfile);
+    ctx.diagnostics = diagnostics;
+    Map<String,Long> seen = new HashMap<String,Long>();
+    try (InputStream in = Files.newInputStream(propfile))
+    {
+        Prop.readProper(Prop.newReader(ctx.count(in),ctx),(k,v) ->
+        {   Long first = seen.putIfAbsent(k,ctx.lineno);
+            if (first != null) ctx.problem(Kind.DUPLICATE_KEY,0,k,"Duplicate key, first defined in line " + first);
+            handler.entry(k,v);
+        },ctx);
+        ctx.publish();
+    } catch (Exception e)
+    {
+        String msg; if (e.getClass() == IOException.class) msg = e.getMessage(); else msg = e.toString(); // e.g. NoSuchFileException
+        long line = (ctx.charset != null) ? ctx.lines + 1 : 0; // the line which could not be read
+        diagnostics.add(new Diagnostic(ctx.source,line,0,null,Kind.READ_ERROR,msg));
+    }
+} //--------------------- end of loadLenient()
+
+//Invoked from writeReport()
+private static long writeReport(Map<Path,List<Diagnostic>> result,BufferedWriter bw) throws IOException
+{
+    long many = 0;
+    bw.write("file;line;column;kind;key;message\r\n");
+    for (List<Diagnostic> list : result.values())
+    {   for (Diagnostic d : list)
+        {   bw.write(d.toCsv());
+            bw.write("\r\n");
+            many++;
+        }
+    }
+    return many;
+} //--------------------- end of writeReport()
+
+//Quotes a CSV field if it contains a ';', a '"' or a line break
+private static String csv(String s)
+{
+    if (s.indexOf(';') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+    return '"' + s.replace("\"","\"\"") + '"';
+} //--------------------- end of csv()
+
+} //------------------------------------- end of class
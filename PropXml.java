@@ -0,0 +1,292 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * <h3>Streaming reader/writer for properties .xml files</h3>
+ * The format is the one defined in "http://java.sun.com/dtd/properties.dtd" as used by
+ * Properties.loadFromXML() and Properties.storeToXML(). In contrast to these methods no DOM is built:
+ * the file is read with a StAX cursor and each entry is passed to an {@link EntryHandler},
+ * so the memory used does not depend on the file size.<br>
+ * The DTD is never resolved - neither over the network nor from the local disk. GZIP compressed files are
+ * decompressed transparently.
+ * @see Prop#loadFromXMLWrapper(Path)
+ * @see Prop#storeToXMLWrapper(Properties, Path, String)
+ * @since Last change: 2026.10.18
+ */
+public class PropXml
+{
+    static final String DOCTYPE = "<!DOCTYPE properties SYSTEM \"http://java.sun.com/dtd/properties.dtd\">";
+
+    private PropXml() {}
+
+/**
+ * Loads a properties .xml file into a Properties container.
+ * @param xmlfile The input file
+ * @param defProps Option: Default properties
+ * @return The properties container
+ * @throws IOException On error, e.g. file does not exist or is not a valid properties .xml file
+ * @since Last change: 2026.10.18
+ */
+public static Properties load(Path xmlfile,Properties... defProps) throws IOException
+{
+    Properties props = null;
+    if (defProps.length > 0) props = new Properties(defProps[0]);
+    else                     props = new Properties();
+
+    final Properties target = props;
+    load(xmlfile,(k,v) -> target.setProperty(k,v));
+    return props;
+} //--------------------- end of load()
+
+/**
+ * Streams all entries of a properties .xml file to 'handler'. Nothing is kept in memory
+ * but the current entry.
+ * @param xmlfile The input file
+ * @param handler Receives each entry in document order
+ * @return Number of entries read
+ * @throws IOException On error, e.g. file does not exist or is not a valid properties .xml file
+ * @since Last change: 2026.10.18
+ */
+public static long load(Path xmlfile,EntryHandler handler) throws IOException
+{
+    ParseContext ctx = new ParseContext("PropXml.load",xmlfile);
+    try (InputStream ifs = Files.newInputStream(xmlfile))
+    {
+        ctx.entries = read(Compression.autoDecode(ctx.count(ifs)),handler);
+        ctx.publish();
+        return ctx.entries;
+    } catch (Exception e)
+    {
+        String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropXml.load(): " + msg + " (xmlfile: '" + xmlfile + "')");
+    }
+} //--------------------- end of load()
+
+/**
+ * Streams all entries of a properties .xml stream to 'handler'. GZIP input is decompressed transparently.
+ * 'in' is not closed.
+ * @param in The input stream e.g. a resource or Channels.newInputStream(channel)
+ * @param handler Receives each entry in document order
+ * @return Number of entries read
+ * @throws IOException On error, e.g. not a valid properties .xml file
+ * @since Last change: 2026.10.18
+ */
+public static long load(InputStream in,EntryHandler handler) throws IOException
+{
+    try
+    {
+        return read(Compression.autoDecode(in),handler);
+    } catch (Exception e)
+    {
+        String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropXml.load(): " + msg);
+    }
+} //--------------------- end of load()
+
+/**
+ * Stores a Properties container to a properties .xml file in encoding UTF-8.
+ * @param props The Properties container, must not be null
+ * @param outfile The output file
+ * @param comment A comment, may be null or empty
+ * @param sort Option: If true the output is sorted by key
+ * @throws IOException On error
+ * @since Last change: 2026.10.18
+ */
+public static void store(Properties props,Path outfile,String comment,boolean... sort) throws IOException
+{
+    boolean sortit = false; if (sort.length > 0) sortit = sort[0];
+    ParseContext ctx = new ParseContext("PropXml.store",outfile);
+
+    try (Writer w = new Writer(outfile,comment))
+    {
+        if (sortit)
+        {   List<String> keylist = new ArrayList<String>(props.stringPropertyNames());
+            java.util.Collections.sort(keylist);
+            for (String k : keylist) w.entry(k,props.getProperty(k,""));
+            ctx.entries = keylist.size();
+        } else
+        {   for (String k : props.stringPropertyNames()) { w.entry(k,props.getProperty(k,"")); ctx.entries++; }
+        }
+    } catch (Exception e)
+    {
+        String msg; if (e instanceof IOException) msg = e.getMessage(); else msg = e.toString();
+        throw new IOException("PropXml.store(): " + msg + " (outfile: '" + outfile + "')");
+    }
+    ctx.publish();
+} //--------------------- end of store()
+
+/**
+ * Streaming writer for a properties .xml file: each {@link #entry(String, String)} is written
+ * immediately, the closing tag is written by {@link #close()}.
+ * @since Last change: 2026.10.18
+ */
+public static class Writer implements EntryHandler,Closeable
+{
+    private final BufferedWriter bw;
+    private boolean closed = false;
+
+    /**
+     * Creates the file and writes the XML header and the optional comment
+     * @param outfile The output file, UTF-8 encoded
+     * @param comment A comment, may be null or empty
+     * @throws IOException On error
+     */
+    public Writer(Path outfile,String comment) throws IOException
+    {
+        this(Files.newBufferedWriter(outfile,StandardCharsets.UTF_8),comment);
+    }
+
+    /**
+     * Writes the XML header and the optional comment to 'bw', which must write UTF-8
+     * @param bw The output, closed by {@link #close()}
+     * @param comment A comment, may be null or empty
+     * @throws IOException On error
+     */
+    public Writer(BufferedWriter bw,String comment) throws IOException
+    {
+        this.bw = bw;
+        bw.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+        bw.write(DOCTYPE + "\n");
+        bw.write("<properties>\n");
+        if (comment != null && !comment.isEmpty())
+        {   bw.write("<comment>");
+            escape(comment,false,bw);
+            bw.write("</comment>\n");
+        }
+    }
+
+    @Override
+    public void entry(String key,String value) throws IOException
+    {
+        bw.write("<entry key=\"");
+        escape(key,true,bw);
+        bw.write("\">");
+        escape(value,false,bw);
+        bw.write("</entry>\n");
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (closed) return;
+        closed = true;
+        try { bw.write("</properties>\n"); } finally { bw.close(); }
+    }
+} //--------------------- end of class Writer
+
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+//Invoked from load(): the StAX cursor loop
+static long read(InputStream ifs,EntryHandler handler) throws Exception
+{
+    XMLStreamReader xr = newInputFactory().createXMLStreamReader(ifs);
+    long many = 0; int depth = 0;   String name,key;
+try
+{
+    while (xr.hasNext())
+    {
+        switch (xr.next())
+        {
+        case XMLStreamConstants.START_ELEMENT:
+            name = xr.getLocalName();
+            depth++;
+            if (depth == 1)
+            {   if (!"properties".equals(name))
+                   throw new IOException("Root element <properties> expected, found: <" + name + ">");
+                break;
+            }
+            if (depth == 2 && "entry".equals(name))
+            {   if ( (key = xr.getAttributeValue(null,"key")) == null)
+                   throw new IOException("Missing attribute 'key' in <entry> at line " + xr.getLocation().getLineNumber());
+                handler.entry(key,xr.getElementText()); // consumes the END_ELEMENT
+                depth--;
+                many++;
+                break;
+            }
+            if (depth == 2 && "comment".equals(name))
+            {   xr.getElementText();
+                depth--;
+                break;
+            }
+            throw new IOException("Unexpected element <" + name + "> at line " + xr.getLocation().getLineNumber());
+        case XMLStreamConstants.END_ELEMENT:
+            depth--;
+            break;
+        default:
+        }
+    }
+    return many;
+} finally
+{  try { xr.close(); } catch (Exception e) {}
+}
+} //--------------------- end of read()
+
+//Never resolves the DTD or any external entity
+private static XMLInputFactory newInputFactory()
+{
+    XMLInputFactory f = XMLInputFactory.newInstance();
+    f.setProperty(XMLInputFactory.SUPPORT_DTD,Boolean.FALSE);
+    f.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,Boolean.FALSE);
+    f.setProperty(XMLInputFactory.IS_COALESCING,Boolean.TRUE);
+    f.setXMLResolver((publicID,systemID,baseURI,namespace) -> new ByteArrayInputStream(new byte[0]));
+    return f;
+} //--------------------- end of newInputFactory()
+
+/*
+ * Writes 'str' XML escaped. CR, LF and TAB are written as character references where the parser
+ * would normalize them (CR always, LF and TAB in attribute values).
+ */
+private static void escape(String str,boolean attr,java.io.Writer w) throws IOException
+{
+    int len = str.length(), start = 0;   char c;   String rep;
+    for (int i=0;i < len;i++)
+    {
+        c = str.charAt(i);
+        switch(c)
+        {
+        case '&':  rep = "&amp;";  break;
+        case '<':  rep = "&lt;";   break;
+        case '>':  rep = "&gt;";   break;
+        case '"':  rep = attr ? "&quot;" : null;  break;
+        case '\r': rep = "&#13;";  break;
+        case '\n': rep = attr ? "&#10;" : null;  break;
+        case '\t': rep = attr ? "&#9;"  : null;  break;
+        default:
+            if (c < ' ')
+               throw new IOException("Control character 0x" + Integer.toHexString((int)c) + " cannot be stored in XML 1.0: '" + str + "'");
+            rep = null;
+        }
+        if (rep == null) continue;
+        if (i > start) w.write(str,start,i-start);
+        w.write(rep);
+        start = i+1;
+    }
+    if (len > start) w.write(str,start,len-start);
+} //--------------------- end of escape()
+
+} //------------------------------------- end of class
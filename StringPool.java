@@ -0,0 +1,156 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h3>Bounded, thread safe pool to deduplicate keys and short values</h3>
+ * Many configs loaded with the same pool share one String object per distinct key and per common value
+ * (e.g. "true", "0", host names) - the duplicates created by the loader become garbage at once.<br>
+ * The pool is a fixed size 2-way set associative cache: it never grows, a full set evicts its older entry, so
+ * rare strings do not stay forever. Lookups take no lock - a lost update under contention only costs a duplicate.
+ * Strings longer than 'maxLength' are not pooled. Example:<br>
+ * StringPool pool = new StringPool(1 &lt;&lt; 16);<br>
+ * for (Path f : tenantFiles) configs.put(f,Prop.loadProper(f,pool));<br>
+ * System.out.println(pool);
+ * @see Prop#loadProper(Path, StringPool, Properties...)
+ * @see Prop#loadFromIniFile(Path, StringPool)
+ * @since Last change: 2026.10.18
+ */
+public class StringPool
+{
+    /** Default max. length of a pooled string */
+    public static final int DEFAULT_MAX_LENGTH = 128;
+
+    private final String[] slots;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), saved = new LongAdder();
+
+/**
+ * @param capacity Max. number of pooled strings, rounded up to a power of 2
+ */
+public StringPool(int capacity)
+{
+    this(capacity,DEFAULT_MAX_LENGTH);
+}
+
+/**
+ * @param capacity Max. number of pooled strings, rounded up to a power of 2
+ * @param maxLength Longer strings are not pooled
+ */
+public StringPool(int capacity,int maxLength)
+{
+    if (capacity < 2 || capacity > (1 << 30)) throw new IllegalArgumentException("StringPool(): invalid capacity: " + capacity);
+    int n = Integer.highestOneBit(capacity - 1) << 1;
+    this.slots = new String[n];
+    this.mask = n - 1;
+    this.maxLength = maxLength;
+}
+
+/**
+ * @param s A string, may be null
+ * @return The pooled string equal to 's' or 's' itself
+ */
+public String intern(String s)
+{
+    if (s == null || s.length() > maxLength) return s;
+    int h = s.hashCode();
+    int i = (h ^ (h >>> 16)) & mask & ~1; // the first slot of the set
+    String[] sl = slots;
+    String c = sl[i];
+    if (c != null && c.hashCode() == h && c.equals(s)) { hit(s); return c; }
+    c = sl[i+1];
+    if (c != null && c.hashCode() == h && c.equals(s))
+    {   sl[i+1] = sl[i];   sl[i] = c; // most recently used first
+        hit(s);
+        return c;
+    }
+    sl[i+1] = sl[i];   sl[i] = s;     // the older one is evicted
+    misses.increment();
+    return s;
+} //--------------------- end of intern()
+
+/**
+ * @param handler The target, e.g. a lambda which fills a Properties container
+ * @return A handler which passes the pooled key and value to 'handler' - for all streaming loaders
+ */
+public EntryHandler interning(EntryHandler handler)
+{
+    return (k,v) -> handler.entry(intern(k),intern(v));
+}
+
+//As interning(handler) - 'hits'[0] counts the pooled strings found by this handler, for PropMetrics "poolHits"
+EntryHandler interning(EntryHandler handler,/*OUT*/long[] hits)
+{
+    return (k,v) ->
+    {   String ik = intern(k), iv = intern(v);
+        if (ik != k) hits[0]++;
+        if (iv != v) hits[0]++;
+        handler.entry(ik,iv);
+    };
+}
+
+/** @return The number of lookups which found a pooled string */
+public long hits() { return hits.sum(); }
+
+/** @return The number of lookups which pooled a new string */
+public long misses() { return misses.sum(); }
+
+/**
+ * @return The approx. heap bytes of the duplicates replaced by pooled strings (compact strings assumed)
+ */
+public long bytesSaved() { return saved.sum(); }
+
+/** @return The number of pooled strings */
+public int size()
+{
+    int n = 0;
+    for (String s : slots) if (s != null) n++;
+    return n;
+}
+
+/** Removes all pooled strings and resets the statistics */
+public void clear()
+{
+    java.util.Arrays.fill(slots,null);
+    hits.reset();   misses.reset();   saved.reset();
+}
+
+@Override
+public String toString()
+{
+    return "StringPool: capacity=" + slots.length + " size=" + size() + " hits=" + hits() + " misses=" + misses()
+           + " bytesSaved=" + bytesSaved();
+}
+
+/////////////////////////////////////////////////////////////////////////////////
+// Now: PRIVATE methods
+/////////////////////////////////////////////////////////////////////////////////
+
+private void hit(String dup)
+{
+    hits.increment();
+    saved.add(sizeOf(dup));
+} //--------------------- end of hit()
+
+//The shallow size of a String and its byte[]: 24 bytes header + 16 bytes array header + data, aligned to 8
+static long sizeOf(String s)
+{
+    int len = s.length(), bytes = len;
+    for (int i=0;i < len;i++) if (s.charAt(i) > 0xFF) { bytes = len * 2; break; } // UTF16 coder
+    return 24 + ((16 + bytes + 7) & ~7);
+} //--------------------- end of sizeOf()
+
+} //------------------------------------- end of class
@@ -0,0 +1,49 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * <h3>The corpora of the JMH benchmarks</h3>
+ * The values are taken from the properties_worst_case*.properties files of the directory given by the system
+ * property 'samples' (default: the current directory, i.e. the repository root) - see {@link PropBench#templates(Path)}.
+ * The files are generated per trial into a temp directory, which is deleted by the tear down.
+ * @since Last change: 2026.10.19
+ */
+final class Corpus
+{
+    private Corpus() {}
+
+/**
+ * @return The value templates, never empty
+ */
+static List<String> templates()
+{
+    return PropBench.templates(Paths.get(System.getProperty("samples",".")));
+} //--------------------- end of templates()
+
+/**
+ * @return A new temp directory for the files of one trial
+ * @throws IOException On error
+ */
+static Path tempDir() throws IOException
+{
+    return Files.createTempDirectory("propbench");
+} //--------------------- end of tempDir()
+
+} //------------------------------------- end of class
@@ -0,0 +1,59 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <h3>expandProperties() with 1 and 8 ${...} placeholders per value</h3>
+ * Half of the 'size' keys hold placeholders, so the time per placeholder is the score / (size / 2 * placeholders).
+ * The container is copied before each invocation - the copy is not measured.
+ * @since Last change: 2026.10.19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpandBenchmark
+{
+    @Param({ "1", "8" })
+    public int placeholders;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Properties base, copy;
+
+@Setup(Level.Trial)
+public void setup()
+{
+    base = PropBench.expandCorpus(Corpus.templates(),size,placeholders);
+}
+
+@Setup(Level.Invocation)
+public void copy()
+{
+    copy = new Properties();
+    copy.putAll(base);
+}
+
+@Benchmark
+public int expandProperties() throws IOException { return Prop.expandProperties(copy); }
+
+} //------------------------------------- end of class
@@ -0,0 +1,68 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <h3>The loaders of the other formats: loadFromIniFile(), loadTextfile() and loadFromXMLWrapper()</h3>
+ * The files hold the same keys (section.key) and values as the .properties corpora - the text file without the
+ * values with line breaks, the XML file without the values which XML 1.0 cannot hold.
+ * @since Last change: 2026.10.19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatBenchmark
+{
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Path dir, inifile, textfile, xmlfile;
+
+@Setup(Level.Trial)
+public void setup() throws IOException
+{
+    dir = Corpus.tempDir();
+    List<String> templates = Corpus.templates();
+    Properties props = PropBench.generate(templates,size);
+    inifile = dir.resolve("corpus_" + size + ".ini");
+    Prop.storeInifile(props,inifile);
+    textfile = dir.resolve("corpus_" + size + ".txt");
+    PropBench.writeTextfile(props,textfile);
+    xmlfile = dir.resolve("corpus_" + size + ".xml");
+    PropXml.store(PropBench.generate(PropBench.xmlTemplates(templates),size),xmlfile,"PropBench");
+}
+
+@TearDown(Level.Trial)
+public void tearDown() { PropBench.deleteAll(dir); }
+
+@Benchmark
+public Properties loadFromIniFile() throws IOException { return Prop.loadFromIniFile(inifile); }
+
+@Benchmark
+public Properties loadTextfile() throws IOException { return Prop.loadTextfile(textfile); }
+
+@Benchmark
+public Properties loadFromXMLWrapper() throws IOException { return Prop.loadFromXMLWrapper(xmlfile); }
+
+} //------------------------------------- end of class
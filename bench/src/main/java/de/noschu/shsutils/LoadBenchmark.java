@@ -0,0 +1,66 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <h3>loadWrapper(), loadProper() and getCharset() per corpus</h3>
+ * kind: ascii (ISO-8859-1), utf8, utf16 (with BOM), cont (a continuation line every 16 chars), uescape (\\uXXXX),
+ * plain (no escape sequence) and escapes (an escape sequence every 2nd char), see {@link PropBench#writeCorpus}.
+ * Larger corpora e.g. with -p size=1000000,10000000 (-jvmArgs -Xmx8g for 10M keys).
+ * @since Last change: 2026.10.19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark
+{
+    @Param({ "ascii", "utf8", "utf16", "cont", "uescape", "plain", "escapes" })
+    public String kind;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Path dir, file;
+
+@Setup(Level.Trial)
+public void setup() throws IOException
+{
+    dir = Corpus.tempDir();
+    file = dir.resolve("corpus_" + kind + "_" + size + ".properties");
+    PropBench.writeCorpus(file,kind,Corpus.templates(),size);
+}
+
+@TearDown(Level.Trial)
+public void tearDown() { PropBench.deleteAll(dir); }
+
+@Benchmark
+public Properties loadWrapper() throws IOException { return Prop.loadWrapper(file); }
+
+@Benchmark
+public Properties loadProper() throws IOException { return Prop.loadProper(file); }
+
+@Benchmark
+public Charset getCharset() throws IOException { return Prop.getCharset(file); }
+
+} //------------------------------------- end of class
@@ -0,0 +1,89 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <h3>The store methods</h3>
+ * Each benchmark overwrites one output file in the temp directory. 'plain' and 'escapes' compare the fast path and
+ * the slow path of the escape handling of storeProper().
+ * @since Last change: 2026.10.19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreBenchmark
+{
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Path dir, out;
+    private Properties props, plain, escapes, xmlprops;
+
+@Setup(Level.Trial)
+public void setup() throws IOException
+{
+    dir = Corpus.tempDir();
+    out = dir.resolve("out_" + size);
+    props = PropBench.generate(Corpus.templates(),size);
+    plain = PropBench.generate(PropBench.PLAIN,size);
+    escapes = PropBench.generate(PropBench.ESCAPES,size);
+    xmlprops = PropBench.generate(PropBench.xmlTemplates(Corpus.templates()),size);
+}
+
+@TearDown(Level.Trial)
+public void tearDown() { PropBench.deleteAll(dir); }
+
+@Benchmark
+public void storeWrapper() throws IOException { Prop.storeWrapper(props,out,"PropBench"); }
+
+@Benchmark
+public void storeProper() throws IOException { Prop.storeProper(props,out,"PropBench"); }
+
+@Benchmark
+public void storeProperSorted() throws IOException { Prop.storeProper(props,out,"PropBench",true); }
+
+@Benchmark
+public void storeProperExternal() throws IOException { Prop.storeProper(props,out,"PropBench",ExternalSorter.DEFAULT_BUDGET); }
+
+@Benchmark
+public void storeProperGzip() throws IOException { Prop.storeProper(props,out,"PropBench",Compression.GZIP,true); }
+
+@Benchmark
+public void storeProperPlain() throws IOException { Prop.storeProper(plain,out,"PropBench"); }
+
+@Benchmark
+public void storeProperEscapes() throws IOException { Prop.storeProper(escapes,out,"PropBench"); }
+
+@Benchmark
+public void storeInifile() throws IOException { Prop.storeInifile(props,out); }
+
+@Benchmark
+public void storeToXMLWrapper() throws IOException { Prop.storeToXMLWrapper(xmlprops,out,"PropBench"); }
+
+@Benchmark
+public void report() throws IOException { Prop.report(props,out,"PropBench"); }
+
+@Benchmark
+public void reportCsv() throws IOException { Prop.report(props,out,"PropBench",true); }
+
+} //------------------------------------- end of class
@@ -0,0 +1,63 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <h3>syncResourceBundle() with a master and a client file which differ in 10% of the keys</h3>
+ * The client file is restored before each invocation - the copy is not measured.
+ * @since Last change: 2026.10.19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncBenchmark
+{
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private Path dir, masterfile, clientsrc, clientfile;
+
+@Setup(Level.Trial)
+public void setup() throws IOException
+{
+    dir = Corpus.tempDir();
+    masterfile = dir.resolve("msg_" + size + ".properties");
+    clientsrc  = dir.resolve("msg_de_src_" + size + ".properties");
+    clientfile = dir.resolve("msg_de_" + size + ".properties");
+    PropBench.writeSyncCorpus(Corpus.templates(),size,masterfile,clientsrc);
+}
+
+@Setup(Level.Invocation)
+public void restore() throws IOException
+{
+    Files.copy(clientsrc,clientfile,StandardCopyOption.REPLACE_EXISTING);
+}
+
+@TearDown(Level.Trial)
+public void tearDown() { PropBench.deleteAll(dir); }
+
+@Benchmark
+public int syncResourceBundle() throws IOException { return Prop.syncResourceBundle(masterfile,clientfile); }
+
+} //------------------------------------- end of class
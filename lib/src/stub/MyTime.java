@@ -0,0 +1,36 @@
+package de.noschu.shsutils;
+/*
+ * Copyright (c) 2018,2019, Norbert Schultheis. All rights reserved.
+ *
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ * This code is distributed in the hope that it will be useful, but without
+ * any warranty or fitness for a particular purpose.
+ *
+ * You are welcome to send suggestions, criticisms or bugs to: noschu@web.de
+ */
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * <h3>Stand-in for MyTime of the full shsutils package</h3>
+ * Only for the Maven build of this repository (see lib/pom.xml): Prop.syncResourceBundle() writes the current time
+ * into the comment of the updated file.
+ * @since Last change: 2026.10.19
+ */
+class MyTime
+{
+    private MyTime() {}
+
+/**
+ * @return The current local time e.g. 2026-10-19 14:30:05
+ */
+static String getCurrentTime()
+{
+    return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+} //--------------------- end of getCurrentTime()
+
+} //------------------------------------- end of class